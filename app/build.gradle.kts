@@ -33,6 +33,11 @@ android {
     }
     buildFeatures {
         viewBinding = true
+        buildConfig = true
+    }
+    testOptions {
+        // Log e afins devolvem valores padrão nos testes de JVM
+        unitTests.isReturnDefaultValues = true
     }
 }
 
@@ -50,9 +55,11 @@ dependencies {
     implementation(libs.retrofit)
     implementation(libs.converter.gson)
     implementation(libs.gson)
+    implementation(libs.okhttp.logging)
     implementation(libs.play.services.location)
 
     testImplementation(libs.junit)
+    testImplementation(libs.mockwebserver)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
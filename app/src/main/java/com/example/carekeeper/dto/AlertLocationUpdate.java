@@ -0,0 +1,23 @@
+package com.example.carekeeper.dto;
+
+/**
+ * Nova posição para um alerta já enviado ({@code emergencia/alerta/{id}/localizacao}).
+ */
+public class AlertLocationUpdate {
+    private double latitude;
+    private double longitude;
+    private Float precisaoM;
+    private long registradoEm;
+
+    public AlertLocationUpdate(double latitude, double longitude, Float precisaoM, long registradoEm) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.precisaoM = precisaoM;
+        this.registradoEm = registradoEm;
+    }
+
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public Float getPrecisaoM() { return precisaoM; }
+    public long getRegistradoEm() { return registradoEm; }
+}
@@ -1,17 +1,50 @@
 package com.example.carekeeper.dto;
 
 public class PanicAlertRequest {
+    // Gerado no app: as atualizações de localização seguem para o mesmo alerta
+    private String alertaId;
     private String leitura;
-    private double latitude;
-    private double longitude;
+    // Posição e metadados ficam nulos quando não há posição conhecida (nunca 0,0)
+    private Double latitude;
+    private Double longitude;
+    private Float precisaoM;
+    private Long idadeLocalizacaoMs;
+    // Últimos segundos de sensores antes do alerta (pode ser nulo se o monitoramento estiver parado)
+    private SensorHistoryDTO historico;
+    // Sequência dos alertas do dispositivo e chave de idempotência ("<dispositivo>:alerta:<seq>"): reenvios não duplicam o alerta
+    private Long seq;
+    private String chaveIdempotencia;
+    // true no primeiro número de um bloco reservado: a lacuna antes dele pode ser só reserva não usada
+    private Boolean inicioBloco;
 
     // Getters e setters
+    public String getAlertaId() { return alertaId; }
+    public void setAlertaId(String alertaId) { this.alertaId = alertaId; }
+
     public String getLeitura() { return leitura; }
     public void setLeitura(String leitura) { this.leitura = leitura; }
 
-    public double getLatitude() { return latitude; }
-    public void setLatitude(double latitude) { this.latitude = latitude; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+    public Float getPrecisaoM() { return precisaoM; }
+    public void setPrecisaoM(Float precisaoM) { this.precisaoM = precisaoM; }
+
+    public Long getIdadeLocalizacaoMs() { return idadeLocalizacaoMs; }
+    public void setIdadeLocalizacaoMs(Long idadeLocalizacaoMs) { this.idadeLocalizacaoMs = idadeLocalizacaoMs; }
+
+    public SensorHistoryDTO getHistorico() { return historico; }
+    public void setHistorico(SensorHistoryDTO historico) { this.historico = historico; }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
+    public String getChaveIdempotencia() { return chaveIdempotencia; }
+    public void setChaveIdempotencia(String chaveIdempotencia) { this.chaveIdempotencia = chaveIdempotencia; }
 
-    public double getLongitude() { return longitude; }
-    public void setLongitude(double longitude) { this.longitude = longitude; }
+    public Boolean getInicioBloco() { return inicioBloco; }
+    public void setInicioBloco(Boolean inicioBloco) { this.inicioBloco = inicioBloco; }
 }
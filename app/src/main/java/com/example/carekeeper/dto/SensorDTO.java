@@ -25,6 +25,19 @@ public class SensorDTO {
     // Timestamp da leitura
     private long timestamp;
 
+    // Resumo de todas as amostras da janela (opcional; eixos acima trazem a média)
+    private SensorWindowDTO janelaAcelerometro;
+    private SensorWindowDTO janelaGiroscopio;
+
+    // Leituras iguais a anterior suprimidas antes desta (null = nenhuma)
+    private Integer repeticoes;
+
+    // Sequência das leituras do dispositivo e chave de idempotência ("<dispositivo>:<seq>"); nulas em leituras antigas
+    private Long seq;
+    private String chaveIdempotencia;
+    // true no primeiro número de um bloco reservado: a lacuna antes dele pode ser só reserva não usada
+    private Boolean inicioBloco;
+
     // Construtor principal
     public SensorDTO(double ax, double ay, double az,
                      double gx, double gy, double gz,
@@ -68,6 +81,24 @@ public class SensorDTO {
     public long getTimestamp() { return timestamp; }
     public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
 
+    public SensorWindowDTO getJanelaAcelerometro() { return janelaAcelerometro; }
+    public void setJanelaAcelerometro(SensorWindowDTO janelaAcelerometro) { this.janelaAcelerometro = janelaAcelerometro; }
+
+    public SensorWindowDTO getJanelaGiroscopio() { return janelaGiroscopio; }
+    public void setJanelaGiroscopio(SensorWindowDTO janelaGiroscopio) { this.janelaGiroscopio = janelaGiroscopio; }
+
+    public Integer getRepeticoes() { return repeticoes; }
+    public void setRepeticoes(Integer repeticoes) { this.repeticoes = repeticoes; }
+
+    public Long getSeq() { return seq; }
+    public void setSeq(Long seq) { this.seq = seq; }
+
+    public String getChaveIdempotencia() { return chaveIdempotencia; }
+    public void setChaveIdempotencia(String chaveIdempotencia) { this.chaveIdempotencia = chaveIdempotencia; }
+
+    public Boolean getInicioBloco() { return inicioBloco; }
+    public void setInicioBloco(Boolean inicioBloco) { this.inicioBloco = inicioBloco; }
+
     @NonNull
     @Override
     public String toString() {
@@ -81,6 +112,10 @@ public class SensorDTO {
                 ", latitude=" + latitude +
                 ", longitude=" + longitude +
                 ", timestamp=" + timestamp +
+                ", janelaAcelerometro=" + (janelaAcelerometro != null ? janelaAcelerometro.getAmostras() + " amostras" : "-") +
+                ", janelaGiroscopio=" + (janelaGiroscopio != null ? janelaGiroscopio.getAmostras() + " amostras" : "-") +
+                ", repeticoes=" + (repeticoes != null ? repeticoes : 0) +
+                ", seq=" + (seq != null ? seq : "-") +
                 '}';
     }
 }
@@ -0,0 +1,51 @@
+package com.example.carekeeper.dto;
+
+/**
+ * Amostras brutas dos últimos segundos antes de um alerta (acelerômetro e giroscópio).
+ * Os tempos são relativos ao momento da captura, em ms (valores negativos = antes do alerta).
+ */
+public class SensorHistoryDTO {
+
+    /** Série de um sensor de três eixos; {@code valores} tem X, Y, Z por amostra. */
+    public static class Serie {
+        private int[] offsetsMs;
+        private float[] valores;
+
+        public Serie(int[] offsetsMs, float[] valores) {
+            this.offsetsMs = offsetsMs;
+            this.valores = valores;
+        }
+
+        /** Converte as {@code n} primeiras amostras copiadas de um ring buffer. */
+        public static Serie de(long[] tempos, double[] eixos, int n, long referenciaMs) {
+            int[] offsets = new int[n];
+            float[] valores = new float[n * 3];
+            for (int i = 0; i < n; i++) {
+                offsets[i] = (int) (tempos[i] - referenciaMs);
+                valores[i * 3] = (float) eixos[i * 3];
+                valores[i * 3 + 1] = (float) eixos[i * 3 + 1];
+                valores[i * 3 + 2] = (float) eixos[i * 3 + 2];
+            }
+            return new Serie(offsets, valores);
+        }
+
+        public int[] getOffsetsMs() { return offsetsMs; }
+        public float[] getValores() { return valores; }
+        public int getAmostras() { return offsetsMs != null ? offsetsMs.length : 0; }
+    }
+
+    // Momento da captura (epoch ms)
+    private long capturadoEm;
+    private Serie acelerometro;
+    private Serie giroscopio;
+
+    public SensorHistoryDTO(long capturadoEm, Serie acelerometro, Serie giroscopio) {
+        this.capturadoEm = capturadoEm;
+        this.acelerometro = acelerometro;
+        this.giroscopio = giroscopio;
+    }
+
+    public long getCapturadoEm() { return capturadoEm; }
+    public Serie getAcelerometro() { return acelerometro; }
+    public Serie getGiroscopio() { return giroscopio; }
+}
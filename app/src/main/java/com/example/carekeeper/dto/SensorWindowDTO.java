@@ -0,0 +1,43 @@
+package com.example.carekeeper.dto;
+
+/**
+ * Resumo estatístico de um sensor de três eixos dentro da janela de uma leitura.
+ * Arrays de eixo seguem a ordem X, Y, Z.
+ */
+public class SensorWindowDTO {
+
+    // Quantidade de amostras na janela
+    private int amostras;
+
+    // Estatísticas por eixo
+    private double[] minimo;
+    private double[] maximo;
+    private double[] media;
+    private double[] variancia;
+
+    // Signal magnitude area: média de |x| + |y| + |z|
+    private double sma;
+
+    // Maior taxa de variação do vetor entre amostras (unidade/s)
+    private double picoJerk;
+
+    public SensorWindowDTO(int amostras, double[] minimo, double[] maximo, double[] media,
+                           double[] variancia, double sma, double picoJerk) {
+        this.amostras = amostras;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.media = media;
+        this.variancia = variancia;
+        this.sma = sma;
+        this.picoJerk = picoJerk;
+    }
+
+    // Getters
+    public int getAmostras() { return amostras; }
+    public double[] getMinimo() { return minimo; }
+    public double[] getMaximo() { return maximo; }
+    public double[] getMedia() { return media; }
+    public double[] getVariancia() { return variancia; }
+    public double getSma() { return sma; }
+    public double getPicoJerk() { return picoJerk; }
+}
@@ -1,79 +1,179 @@
 package com.example.carekeeper.network;
 
-import androidx.annotation.NonNull;
+import com.example.carekeeper.BuildConfig;
+import com.example.carekeeper.service.auth.TokenRenewer;
 
-import com.example.carekeeper.service.SharedPreferencesService;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
-import okhttp3.Interceptor;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
-import java.io.IOException;
-
+/**
+ * Pilha HTTP única do processo.
+ *
+ * Todos os clientes derivam do mesmo {@link OkHttpClient}, então compartilham um único
+ * pool de conexões (keep-alive / HTTP/2) e o cache de sessões TLS.
+ * Os clientes autenticados acrescentam o {@link AuthInterceptor} e são um por
+ * {@link Prioridade}, cada um com seu dispatcher e sua vez no {@link LaneScheduler}:
+ * alertas não entram na fila da telemetria nem do reenvio do outbox. Todos passam pelo
+ * mesmo {@link CircuitBreaker}: com o backend fora do ar as requisições são recusadas na
+ * hora, exceto as críticas, que sempre tentam.
+ */
 public class ApiClient {
 
     private static final String BASE_URL = "http://172.27.219.132:9001/api/";
+    private static final int MAX_CONEXOES_OCIOSAS = 5;
+    private static final long KEEP_ALIVE_MINUTOS = 5L;
+    private static final int MAX_REQUISICOES_POR_HOST_PADRAO = 4;
+    // Em debug, só uma a cada N requisições tem o corpo registrado no logcat
+    private static final int AMOSTRAGEM_LOG_CORPO = 20;
+    private static final int LIMIAR_FALHAS_CIRCUITO = 3;
+    private static final long ESPERA_INICIAL_CIRCUITO_MS = 5_000L;
+    private static final long ESPERA_MAXIMA_CIRCUITO_MS = 5 * 60_000L;
+
+    private static int maxRequisicoesPorHost = MAX_REQUISICOES_POR_HOST_PADRAO; // protegido pela classe
+    private static OkHttpClient httpClient;
     private static Retrofit retrofit;
+    private static final Map<Prioridade, OkHttpClient> httpClientsComAuth = new EnumMap<>(Prioridade.class);
+    private static final Map<Prioridade, Retrofit> retrofitsComAuth = new EnumMap<>(Prioridade.class);
+
+    // Compartilhado para que a negociação do formato binário valha para todos os clientes
+    private static final SensorBinaryConverterFactory SENSOR_BINARIO = SensorBinaryConverterFactory.create();
+    // Depois do negociador: se o binário for recusado, o corpo em JSON também é comprimido
+    private static final GzipRequestInterceptor GZIP = new GzipRequestInterceptor();
+    private static final CircuitBreaker CIRCUITO = new CircuitBreaker(LIMIAR_FALHAS_CIRCUITO,
+            ESPERA_INICIAL_CIRCUITO_MS, ESPERA_MAXIMA_CIRCUITO_MS, new Random());
+
+    /**
+     * Retorna o OkHttpClient base compartilhado (sem autenticação).
+     */
+    public static synchronized OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(maxRequisicoesPorHost);
+
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_CONEXOES_OCIOSAS, KEEP_ALIVE_MINUTOS, TimeUnit.MINUTES))
+                    .dispatcher(dispatcher)
+                    .retryOnConnectionFailure(true)
+                    .addInterceptor(SENSOR_BINARIO.negociador())
+                    .addInterceptor(GZIP)
+                    .addNetworkInterceptor(new NetworkTelemetryInterceptor(NetworkTelemetry.get()));
+
+            // Log de corpos apenas em debug e por amostragem; em release não há cópia de corpo
+            if (BuildConfig.DEBUG) {
+                HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message ->
+                        android.util.Log.d("Retrofit", message)
+                );
+                logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+                builder.addInterceptor(new SampledLoggingInterceptor(logging, AMOSTRAGEM_LOG_CORPO));
+            }
+
+            httpClient = builder.build();
+        }
+        return httpClient;
+    }
+
+    /** Disjuntor compartilhado pelos clientes autenticados. */
+    public static CircuitBreaker getCircuitoBackend() {
+        return CIRCUITO;
+    }
+
+    /**
+     * Limita quantas requisições simultâneas o app faz para o mesmo host, em cada dispatcher:
+     * o do cliente base e o de cada faixa, que nunca passa da concorrência da própria faixa.
+     */
+    public static synchronized void setMaxRequisicoesPorHost(int max) {
+        maxRequisicoesPorHost = max;
+        getHttpClient().dispatcher().setMaxRequestsPerHost(max);
+        for (Map.Entry<Prioridade, OkHttpClient> faixa : httpClientsComAuth.entrySet()) {
+            faixa.getValue().dispatcher().setMaxRequestsPerHost(limitePorHost(faixa.getKey()));
+        }
+    }
+
+    private static int limitePorHost(Prioridade prioridade) {
+        return Math.min(maxRequisicoesPorHost, prioridade.concorrencia);
+    }
 
     /**
      * Retorna uma instância do Retrofit sem autenticação.
      */
-    public static Retrofit getClient() {
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
-            HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message ->
-                    android.util.Log.d("Retrofit", message)
-            );
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .addInterceptor(logging)
-                    .build();
-
-            retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .client(client)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .build();
+            retrofit = criarRetrofit(getHttpClient());
         }
         return retrofit;
     }
 
     /**
      * Retorna uma instância do Retrofit com JWT incluído no cabeçalho Authorization.
+     * A instância é única; o token é lido a cada requisição, então qualquer
+     * SharedPreferencesService do app serve (ou outro {@link TokenRenewer.Armazenamento}). Respostas 401 passam pelo
+     * {@link TokenAuthenticator}, que renova o token uma única vez e refaz as requisições.
      */
-    public static Retrofit getClientWithAuth(SharedPreferencesService prefs) {
-        HttpLoggingInterceptor logging = new HttpLoggingInterceptor(message ->
-                android.util.Log.d("Retrofit", message)
-        );
-        logging.setLevel(HttpLoggingInterceptor.Level.BODY);
-
-        OkHttpClient client = new OkHttpClient.Builder()
-                .addInterceptor(logging)
-                .addInterceptor(new Interceptor() {
-                    @NonNull
-                    @Override
-                    public Response intercept(@NonNull Chain chain) throws IOException {
-                        String token = prefs.getJwtToken();
-                        Request original = chain.request();
-                        Request.Builder builder = original.newBuilder();
-
-                        if (token != null && !token.isEmpty()) {
-                            builder.header("Authorization", "Bearer " + token);
-                        }
-
-                        Request request = builder.build();
-                        return chain.proceed(request);
-                    }
-                })
-                .build();
+    public static Retrofit getClientWithAuth(TokenRenewer.Armazenamento tokens) {
+        return getClientWithAuth(tokens, Prioridade.NORMAL);
+    }
+
+    /** Retrofit autenticado na faixa de prioridade indicada. */
+    public static synchronized Retrofit getClientWithAuth(TokenRenewer.Armazenamento tokens,
+                                                          Prioridade prioridade) {
+        Retrofit r = retrofitsComAuth.get(prioridade);
+        if (r == null) {
+            r = criarRetrofit(getHttpClientWithAuth(tokens, prioridade));
+            retrofitsComAuth.put(prioridade, r);
+        }
+        return r;
+    }
+
+    /**
+     * OkHttpClient autenticado, para quem fala com o backend fora do Retrofit (WebSocket).
+     */
+    public static OkHttpClient getHttpClientWithAuth(TokenRenewer.Armazenamento tokens) {
+        return getHttpClientWithAuth(tokens, Prioridade.NORMAL);
+    }
+
+    public static synchronized OkHttpClient getHttpClientWithAuth(TokenRenewer.Armazenamento tokens,
+                                                                  Prioridade prioridade) {
+        OkHttpClient client = httpClientsComAuth.get(prioridade);
+        if (client == null) {
+            // Dispatcher próprio: chamadas assíncronas de uma faixa não esperam na fila de outra
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(prioridade.concorrencia);
+            dispatcher.setMaxRequestsPerHost(limitePorHost(prioridade));
+
+            // newBuilder() reaproveita o pool de conexões do cliente base
+            OkHttpClient.Builder builder = getHttpClient().newBuilder()
+                    .dispatcher(dispatcher)
+                    .addInterceptor(new AuthInterceptor(tokens))
+                    .authenticator(new TokenAuthenticator(TokenRenewer.getInstance(tokens)));
+            // Antes de todos: a vaga vale para as novas tentativas dos interceptors seguintes
+            builder.interceptors().add(0, new LaneInterceptor(LaneScheduler.get(), prioridade));
+            // E o disjuntor antes da faixa: recusada não ocupa vaga nem espera a vez
+            builder.interceptors().add(0, new CircuitBreakerInterceptor(CIRCUITO, prioridade == Prioridade.CRITICA));
+            client = builder.build();
+            httpClientsComAuth.put(prioridade, client);
+        }
+        return client;
+    }
+
+    public static HttpUrl getBaseUrl() {
+        return HttpUrl.get(BASE_URL);
+    }
 
+    private static Retrofit criarRetrofit(OkHttpClient client) {
         return new Retrofit.Builder()
                 .baseUrl(BASE_URL)
                 .client(client)
+                .addConverterFactory(SENSOR_BINARIO)
                 .addConverterFactory(GsonConverterFactory.create())
                 .build();
     }
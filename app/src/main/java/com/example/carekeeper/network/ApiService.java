@@ -1,12 +1,18 @@
 package com.example.carekeeper.network;
 
+import com.example.carekeeper.dto.AlertLocationUpdate;
+import com.example.carekeeper.dto.PanicAlertRequest;
 import com.example.carekeeper.dto.SensorDTO;
-import com.example.carekeeper.dto.auth.LoginRequestDTO;
-import com.example.carekeeper.dto.auth.LoginResponseDTO;
+import com.example.carekeeper.dto.auth.LoginRequest;
+import com.example.carekeeper.dto.auth.LoginResponse;
+
+import java.util.List;
 
 import retrofit2.Call;
 import retrofit2.http.Body;
+import retrofit2.http.Header;
 import retrofit2.http.POST;
+import retrofit2.http.Path;
 import retrofit2.http.Query;
 
 public interface ApiService {
@@ -15,7 +21,20 @@ public interface ApiService {
      * Faz login e retorna um token JWT.
      */
     @POST("auth/login")
-    Call<LoginResponseDTO> login(@Body LoginRequestDTO loginRequest);
+    Call<LoginResponse> login(@Body LoginRequest loginRequest);
+
+    /**
+     * Troca o JWT atual (ainda válido) por um novo.
+     * O cabeçalho é explícito para que a renovação funcione pelo cliente sem autenticação.
+     */
+    @POST("auth/refresh")
+    Call<LoginResponse> refreshToken(@Header("Authorization") String bearer);
+
+    /**
+     * Encerra a sessão do token atual no backend.
+     */
+    @POST("auth/logout")
+    Call<Void> logout();
 
     /**
      * Envia leitura dos sensores.
@@ -24,10 +43,23 @@ public interface ApiService {
     @POST("monitor/leitura")
     Call<Void> sendReading(@Body SensorDTO leitura, @Query("ativo") boolean isAlertActive);
 
+    /**
+     * Envia um lote de leituras dos sensores em uma única requisição.
+     * As leituras seguem em ordem cronológica.
+     */
+    @POST("monitor/leituras")
+    Call<Void> sendReadings(@Body List<SensorDTO> leituras, @Query("ativo") boolean isAlertActive);
+
     /**
      * Aciona o botão de pânico manualmente.
      * O userId também será extraído do JWT.
      */
     @POST("emergencia/alerta")
-    Call<Void> triggerPanicButton(@Body SensorDTO leitura);
+    Call<Void> triggerPanicButton(@Body PanicAlertRequest alerta);
+
+    /**
+     * Posição mais recente para um alerta já enviado.
+     */
+    @POST("emergencia/alerta/{id}/localizacao")
+    Call<Void> updateAlertLocation(@Path("id") String alertaId, @Body AlertLocationUpdate localizacao);
 }
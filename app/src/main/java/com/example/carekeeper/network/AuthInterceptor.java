@@ -0,0 +1,37 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+
+import com.example.carekeeper.service.auth.TokenRenewer;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Adiciona o JWT salvo no cabeçalho Authorization de cada requisição.
+ */
+public class AuthInterceptor implements Interceptor {
+
+    private final TokenRenewer.Armazenamento tokens;
+
+    public AuthInterceptor(TokenRenewer.Armazenamento tokens) {
+        this.tokens = tokens;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        String token = tokens.getJwtToken();
+        Request original = chain.request();
+        Request.Builder builder = original.newBuilder();
+
+        if (token != null && !token.isEmpty()) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+
+        return chain.proceed(builder.build());
+    }
+}
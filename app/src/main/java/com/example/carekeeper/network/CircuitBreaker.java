@@ -0,0 +1,182 @@
+package com.example.carekeeper.network;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Disjuntor para o backend: depois de {@code limiarFalhas} falhas seguidas ele abre e as
+ * requisições são recusadas na hora, sem gastar um timeout de conexão cada uma.
+ *
+ * Aberto, espera um backoff exponencial com jitter e então deixa passar uma única
+ * requisição de sonda (semiaberto). Se a sonda funcionar ele fecha; se falhar, abre de
+ * novo com o dobro da espera, até {@code esperaMaximaMs}.
+ *
+ * Sucesso é qualquer resposta do servidor que não seja erro de disponibilidade; a
+ * classificação fica com quem chama (ver {@link CircuitBreakerInterceptor}).
+ */
+public class CircuitBreaker {
+
+    public enum Estado { FECHADO, ABERTO, SEMIABERTO }
+
+    /** Chamado fora do lock, na thread que causou a transição. */
+    public interface Ouvinte {
+        void onTransicao(Estado anterior, Estado novo);
+    }
+
+    private final int limiarFalhas;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+    private final Random random;
+    private final List<Ouvinte> ouvintes = new CopyOnWriteArrayList<>();
+
+    private Estado estado = Estado.FECHADO;
+    private int falhasSeguidas = 0;
+    private int aberturasSeguidas = 0;
+    private long proximaSondaMs = 0L;
+    private boolean sondaEmAndamento = false;
+
+    // Métricas
+    private final Map<Estado, Long> transicoes = new EnumMap<>(Estado.class);
+    private long recusadas = 0;
+    private long sondas = 0;
+    private long abertoDesdeMs = -1L;
+    private long tempoAbertoMs = 0L;
+
+    public CircuitBreaker(int limiarFalhas, long esperaInicialMs, long esperaMaximaMs, Random random) {
+        if (limiarFalhas < 1) throw new IllegalArgumentException("limiarFalhas deve ser >= 1");
+        if (esperaInicialMs < 1 || esperaMaximaMs < esperaInicialMs) {
+            throw new IllegalArgumentException("esperas inválidas: " + esperaInicialMs + "/" + esperaMaximaMs);
+        }
+        this.limiarFalhas = limiarFalhas;
+        this.esperaInicialMs = esperaInicialMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.random = random;
+        for (Estado e : Estado.values()) transicoes.put(e, 0L);
+    }
+
+    /** Inscreve um ouvinte e devolve a ação que cancela a inscrição. */
+    public Runnable adicionarOuvinte(Ouvinte ouvinte) {
+        ouvintes.add(ouvinte);
+        return () -> ouvintes.remove(ouvinte);
+    }
+
+    // ===========================================================
+    // =============== ADMISSÃO =================================
+    // ===========================================================
+    /**
+     * true se a requisição pode seguir. Passado o backoff, a primeira que pedir vira a
+     * sonda e as demais continuam recusadas até ela terminar.
+     */
+    public boolean permitir(long agoraMs) {
+        Estado anterior;
+        synchronized (this) {
+            if (estado == Estado.FECHADO) return true;
+            if (estado == Estado.SEMIABERTO || agoraMs < proximaSondaMs) {
+                recusadas++;
+                return false;
+            }
+            anterior = mudar(Estado.SEMIABERTO, agoraMs);
+            sondaEmAndamento = true;
+            sondas++;
+        }
+        avisar(anterior, Estado.SEMIABERTO);
+        return true;
+    }
+
+    /** Quanto falta para a próxima sonda (0 se as requisições já podem tentar). */
+    public synchronized long getEsperaMs(long agoraMs) {
+        if (estado == Estado.FECHADO) return 0L;
+        if (estado == Estado.SEMIABERTO) return sondaEmAndamento ? esperaInicialMs : 0L;
+        return Math.max(0L, proximaSondaMs - agoraMs);
+    }
+
+    // ===========================================================
+    // =============== RESULTADOS ===============================
+    // ===========================================================
+    public void registrarSucesso(long agoraMs) {
+        Estado anterior;
+        synchronized (this) {
+            falhasSeguidas = 0;
+            sondaEmAndamento = false;
+            if (estado == Estado.FECHADO) return;
+            // Sonda ou requisição que não passou pelo disjuntor: o servidor respondeu
+            aberturasSeguidas = 0;
+            anterior = mudar(Estado.FECHADO, agoraMs);
+        }
+        avisar(anterior, Estado.FECHADO);
+    }
+
+    public void registrarFalha(long agoraMs) {
+        Estado anterior;
+        synchronized (this) {
+            falhasSeguidas++;
+            // Aberto: são respostas atrasadas de antes da abertura, a espera já está contando
+            if (estado == Estado.ABERTO) return;
+            if (estado == Estado.FECHADO && falhasSeguidas < limiarFalhas) return;
+            sondaEmAndamento = false;
+            anterior = abrir(agoraMs);
+        }
+        avisar(anterior, Estado.ABERTO);
+    }
+
+    /** A requisição foi cancelada antes de ter resultado: não conta, e a sonda pode ser refeita. */
+    public synchronized void registrarDesistencia() {
+        if (estado == Estado.SEMIABERTO && sondaEmAndamento) {
+            sondaEmAndamento = false;
+            // Volta a aberto sem aumentar a espera: a próxima requisição já pode sondar
+            estado = Estado.ABERTO;
+            proximaSondaMs = 0L;
+        }
+    }
+
+    // ===========================================================
+    // =============== CONSULTA =================================
+    // ===========================================================
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public synchronized long getTransicoes(Estado para) {
+        return transicoes.get(para);
+    }
+
+    public synchronized long getRecusadas() {
+        return recusadas;
+    }
+
+    public synchronized String resumo(long agoraMs) {
+        long aberto = tempoAbertoMs + (abertoDesdeMs >= 0 ? agoraMs - abertoDesdeMs : 0L);
+        return "estado=" + estado + " aberturas=" + transicoes.get(Estado.ABERTO)
+                + " fechamentos=" + transicoes.get(Estado.FECHADO) + " sondas=" + sondas
+                + " recusadas=" + recusadas + " tempo indisponível=" + aberto / 1000 + " s";
+    }
+
+    private Estado abrir(long agoraMs) {
+        long espera = Math.min(esperaMaximaMs, esperaInicialMs << Math.min(aberturasSeguidas, 20));
+        espera = espera / 2 + (long) (random.nextDouble() * (espera / 2)); // jitter
+        aberturasSeguidas++;
+        proximaSondaMs = agoraMs + espera;
+        return mudar(Estado.ABERTO, agoraMs);
+    }
+
+    private Estado mudar(Estado novo, long agoraMs) {
+        Estado anterior = estado;
+        estado = novo;
+        transicoes.put(novo, transicoes.get(novo) + 1);
+        // Semiaberto ainda conta como indisponível
+        if (novo == Estado.FECHADO && abertoDesdeMs >= 0) {
+            tempoAbertoMs += agoraMs - abertoDesdeMs;
+            abertoDesdeMs = -1L;
+        } else if (novo == Estado.ABERTO && abertoDesdeMs < 0) {
+            abertoDesdeMs = agoraMs;
+        }
+        return anterior;
+    }
+
+    private void avisar(Estado anterior, Estado novo) {
+        for (Ouvinte ouvinte : ouvintes) ouvinte.onTransicao(anterior, novo);
+    }
+}
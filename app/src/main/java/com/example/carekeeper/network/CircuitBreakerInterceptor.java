@@ -0,0 +1,63 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Passa as requisições pelo {@link CircuitBreaker} do backend.
+ *
+ * Falha é erro de rede ou resposta 5xx; qualquer outra resposta mostra que o servidor
+ * está de pé. Chamadas canceladas (por exemplo, lote preemptado pelo {@link LaneScheduler})
+ * não contam. Com {@code sempreTentar} a requisição segue mesmo com o circuito aberto,
+ * para alertas, e o resultado dela também conta.
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+
+    /** Recusada sem ir à rede porque o circuito está aberto. */
+    public static class CircuitoAbertoException extends IOException {
+        public CircuitoAbertoException(long esperaMs) {
+            super("Backend indisponível; próxima tentativa em " + esperaMs + " ms");
+        }
+    }
+
+    private final CircuitBreaker circuito;
+    private final boolean sempreTentar;
+
+    public CircuitBreakerInterceptor(CircuitBreaker circuito, boolean sempreTentar) {
+        this.circuito = circuito;
+        this.sempreTentar = sempreTentar;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        if (!sempreTentar && !circuito.permitir(System.currentTimeMillis())) {
+            throw new CircuitoAbertoException(circuito.getEsperaMs(System.currentTimeMillis()));
+        }
+
+        Call call = chain.call();
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException | RuntimeException e) {
+            if (call.isCanceled()) {
+                circuito.registrarDesistencia();
+            } else {
+                circuito.registrarFalha(System.currentTimeMillis());
+            }
+            throw e;
+        }
+
+        if (response.code() >= 500) {
+            circuito.registrarFalha(System.currentTimeMillis());
+        } else {
+            circuito.registrarSucesso(System.currentTimeMillis());
+        }
+        return response;
+    }
+}
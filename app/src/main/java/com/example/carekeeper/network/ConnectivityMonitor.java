@@ -0,0 +1,96 @@
+package com.example.carekeeper.network;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Acompanha a rede padrão do aparelho pelo {@link ConnectivityManager} e avisa os
+ * ouvintes quando o {@link EstadoRede} muda. Também informa o tipo de rede ao
+ * {@link NetworkTelemetry}, para a contagem de bytes por rede.
+ */
+public class ConnectivityMonitor {
+
+    private static final String TAG = "ConnectivityMonitor";
+    // Abaixo disso a rede é tratada como fraca (2G, sinal ruim)
+    private static final int BANDA_MINIMA_KBPS = 150;
+
+    /** Chamado na thread de callbacks do sistema. */
+    public interface Ouvinte {
+        void onRedeAlterada(EstadoRede estado);
+    }
+
+    private static ConnectivityMonitor instancia;
+
+    private final List<Ouvinte> ouvintes = new CopyOnWriteArrayList<>();
+    private volatile EstadoRede atual;
+
+    public static synchronized ConnectivityMonitor getInstance(Context context) {
+        if (instancia == null) {
+            instancia = new ConnectivityMonitor(context.getApplicationContext());
+        }
+        return instancia;
+    }
+
+    private ConnectivityMonitor(Context context) {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        atual = estadoDe(cm.getNetworkCapabilities(cm.getActiveNetwork()));
+        NetworkTelemetry.get().setRedeAtual(atual.tipo.name());
+
+        cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capacidades) {
+                atualizar(estadoDe(capacidades));
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                atualizar(EstadoRede.OFFLINE);
+            }
+        });
+    }
+
+    public EstadoRede getEstado() {
+        return atual;
+    }
+
+    /** Inscreve um ouvinte e devolve a ação que cancela a inscrição. */
+    public Runnable adicionarOuvinte(Ouvinte ouvinte) {
+        ouvintes.add(ouvinte);
+        return () -> ouvintes.remove(ouvinte);
+    }
+
+    private void atualizar(EstadoRede novo) {
+        if (novo.equals(atual)) return;
+        Log.i(TAG, "📶 Rede: " + atual + " → " + novo);
+        atual = novo;
+        NetworkTelemetry.get().setRedeAtual(novo.tipo.name());
+        for (Ouvinte ouvinte : ouvintes) ouvinte.onRedeAlterada(novo);
+    }
+
+    private static EstadoRede estadoDe(@Nullable NetworkCapabilities c) {
+        if (c == null || !c.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) return EstadoRede.OFFLINE;
+
+        EstadoRede.Tipo tipo;
+        if (c.hasTransport(NetworkCapabilities.TRANSPORT_WIFI) || c.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            tipo = EstadoRede.Tipo.WIFI;
+        } else if (c.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            tipo = EstadoRede.Tipo.CELULAR;
+        } else {
+            tipo = EstadoRede.Tipo.OUTRA;
+        }
+        boolean limitada = !c.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+        int banda = c.getLinkDownstreamBandwidthKbps();
+        boolean fraca = !c.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED)
+                || (banda > 0 && banda < BANDA_MINIMA_KBPS);
+        return new EstadoRede(tipo, limitada, fraca);
+    }
+}
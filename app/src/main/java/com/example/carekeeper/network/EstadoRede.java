@@ -0,0 +1,48 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Fotografia da rede padrão do aparelho, como vista pelo {@link ConnectivityMonitor}.
+ */
+public final class EstadoRede {
+
+    public enum Tipo { OFFLINE, WIFI, CELULAR, OUTRA }
+
+    public static final EstadoRede OFFLINE = new EstadoRede(Tipo.OFFLINE, false, false);
+
+    public final Tipo tipo;
+    /** Rede tarifada (dados móveis, hotspot). */
+    public final boolean limitada;
+    /** Sem internet validada ou com banda muito baixa. */
+    public final boolean fraca;
+
+    public EstadoRede(Tipo tipo, boolean limitada, boolean fraca) {
+        this.tipo = tipo;
+        this.limitada = limitada;
+        this.fraca = fraca;
+    }
+
+    public boolean isOnline() {
+        return tipo != Tipo.OFFLINE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EstadoRede)) return false;
+        EstadoRede outro = (EstadoRede) o;
+        return tipo == outro.tipo && limitada == outro.limitada && fraca == outro.fraca;
+    }
+
+    @Override
+    public int hashCode() {
+        return tipo.hashCode() * 4 + (limitada ? 2 : 0) + (fraca ? 1 : 0);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return tipo + (limitada ? " limitada" : "") + (fraca ? " fraca" : "");
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.carekeeper.network;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip de corpos de requisição com um {@link Deflater} reaproveitado por thread, sem a
+ * alocação nativa que o {@code GZIPOutputStream} faz a cada corpo.
+ *
+ * Usa o nível mais rápido: os lotes de leituras se repetem muito e o ganho dos níveis
+ * mais altos é pequeno perto do custo de CPU (ver {@code GzipCompressorTest}).
+ */
+public final class GzipCompressor {
+
+    private static final byte[] CABECALHO = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<byte[]> BLOCO = ThreadLocal.withInitial(() -> new byte[8 * 1024]);
+
+    private GzipCompressor() {}
+
+    public static byte[] comprimir(byte[] dados) {
+        Deflater deflater = DEFLATER.get();
+        byte[] bloco = BLOCO.get();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(dados.length / 4 + CABECALHO.length + 8);
+        saida.write(CABECALHO, 0, CABECALHO.length);
+
+        deflater.reset();
+        deflater.setInput(dados);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int n = deflater.deflate(bloco);
+            saida.write(bloco, 0, n);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(dados, 0, dados.length);
+        escreverInt(saida, (int) crc.getValue());
+        escreverInt(saida, dados.length);
+        return saida.toByteArray();
+    }
+
+    private static void escreverInt(ByteArrayOutputStream saida, int valor) {
+        saida.write(valor);
+        saida.write(valor >>> 8);
+        saida.write(valor >>> 16);
+        saida.write(valor >>> 24);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+/**
+ * Comprime com gzip os corpos de requisição quando o backend aceita.
+ *
+ * O servidor anuncia suporte com {@code Accept-Encoding: gzip} em qualquer resposta
+ * (RFC 7694). Corpos pequenos, ou que não diminuem, seguem como estão.
+ * Se o servidor responder 415 a um corpo comprimido, a requisição é refeita sem
+ * compressão e ela fica desligada até um novo anúncio.
+ */
+public class GzipRequestInterceptor implements Interceptor {
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String GZIP = "gzip";
+    private static final long TAMANHO_MINIMO = 512L;
+
+    private final AtomicBoolean gzipAceito = new AtomicBoolean(false);
+
+    public boolean isGzipAceito() {
+        return gzipAceito.get();
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request original = chain.request();
+        RequestBody corpo = original.body();
+
+        Request request = original;
+        if (gzipAceito.get() && corpo != null && original.header(HEADER_CONTENT_ENCODING) == null
+                && (corpo.contentLength() < 0 || corpo.contentLength() >= TAMANHO_MINIMO)) {
+            request = comprimir(original, corpo);
+        }
+
+        Response response = chain.proceed(request);
+
+        String aceitos = response.header(HEADER_ACCEPT_ENCODING);
+        if (aceitos != null) gzipAceito.set(aceitos.contains(GZIP));
+
+        if (response.code() == 415 && request != original) {
+            gzipAceito.set(false);
+            response.close();
+            return chain.proceed(original);
+        }
+        return response;
+    }
+
+    private static Request comprimir(Request original, RequestBody corpo) throws IOException {
+        Buffer buffer = new Buffer();
+        corpo.writeTo(buffer);
+        byte[] dados = buffer.readByteArray();
+        byte[] gzip = GzipCompressor.comprimir(dados);
+        // O binário de sensores já é compacto e às vezes cresce; nesse caso vai como está
+        if (gzip.length >= dados.length) return original;
+
+        // Corpo já materializado: o tamanho comprimido é conhecido para telemetria e Content-Length
+        RequestBody comprimido = RequestBody.create(gzip, corpo.contentType());
+        return original.newBuilder()
+                .header(HEADER_CONTENT_ENCODING, GZIP)
+                .method(original.method(), comprimido)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Primeiro interceptor de cada cliente por faixa: a requisição só segue quando o
+ * {@link LaneScheduler} libera a vaga na sua {@link Prioridade}.
+ */
+public class LaneInterceptor implements Interceptor {
+
+    private final LaneScheduler scheduler;
+    private final Prioridade prioridade;
+
+    public LaneInterceptor(LaneScheduler scheduler, Prioridade prioridade) {
+        this.scheduler = scheduler;
+        this.prioridade = prioridade;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Call call = chain.call();
+        Runnable sair;
+        try {
+            sair = scheduler.entrar(prioridade, call::cancel);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido aguardando a faixa " + prioridade);
+        }
+        try {
+            return chain.proceed(chain.request());
+        } finally {
+            sair.run();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.carekeeper.network;
+
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Controle de admissão das requisições por {@link Prioridade}.
+ *
+ * Cada faixa tem a sua cota de requisições simultâneas, então telemetria acumulada nunca
+ * ocupa a vez de um alerta. Quando uma requisição crítica entra, as de lote em andamento
+ * são canceladas (o outbox as reenvia depois) e novas de lote esperam até não haver
+ * nenhuma crítica em andamento.
+ *
+ * Vale também para chamadas síncronas ({@code execute()}), que não passam pelos limites
+ * do dispatcher do OkHttp.
+ */
+public class LaneScheduler {
+
+    /** Como interromper uma requisição em andamento. */
+    public interface Cancelavel {
+        void cancelar();
+    }
+
+    private static final LaneScheduler INSTANCIA = new LaneScheduler();
+
+    private final Map<Prioridade, Integer> ativas = new EnumMap<>(Prioridade.class);
+    private final Set<Cancelavel> loteEmAndamento = new LinkedHashSet<>();
+    private long loteCanceladas = 0;
+
+    public static LaneScheduler get() {
+        return INSTANCIA;
+    }
+
+    LaneScheduler() {
+        for (Prioridade p : Prioridade.values()) ativas.put(p, 0);
+    }
+
+    /**
+     * Espera a vez na faixa e devolve a ação que libera a vaga (chamar em {@code finally}).
+     */
+    public Runnable entrar(Prioridade prioridade, Cancelavel cancelavel) throws InterruptedException {
+        Cancelavel[] preemptadas;
+        synchronized (this) {
+            while (!podeEntrar(prioridade)) wait();
+            ativas.put(prioridade, ativas.get(prioridade) + 1);
+
+            if (prioridade == Prioridade.LOTE) {
+                loteEmAndamento.add(cancelavel);
+                preemptadas = new Cancelavel[0];
+            } else if (prioridade == Prioridade.CRITICA && !loteEmAndamento.isEmpty()) {
+                preemptadas = loteEmAndamento.toArray(new Cancelavel[0]);
+                loteEmAndamento.clear();
+                loteCanceladas += preemptadas.length;
+            } else {
+                preemptadas = new Cancelavel[0];
+            }
+        }
+        // Fora do lock: cancelar pode disparar callbacks
+        for (Cancelavel c : preemptadas) c.cancelar();
+
+        return () -> sair(prioridade, cancelavel);
+    }
+
+    public synchronized int getAtivas(Prioridade prioridade) {
+        return ativas.get(prioridade);
+    }
+
+    public synchronized long getLoteCanceladas() {
+        return loteCanceladas;
+    }
+
+    private boolean podeEntrar(Prioridade prioridade) {
+        if (ativas.get(prioridade) >= prioridade.concorrencia) return false;
+        return prioridade != Prioridade.LOTE || ativas.get(Prioridade.CRITICA) == 0;
+    }
+
+    private synchronized void sair(Prioridade prioridade, Cancelavel cancelavel) {
+        ativas.put(prioridade, ativas.get(prioridade) - 1);
+        if (prioridade == Prioridade.LOTE) loteEmAndamento.remove(cancelavel);
+        notifyAll();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.carekeeper.network;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Métricas de rede do processo: contadores e histograma de latência por endpoint, e bytes
+ * por tipo de rede (informado pelo {@link ConnectivityMonitor}).
+ * Todas as atualizações são atômicas e sem alocação depois que o endpoint é conhecido.
+ */
+public class NetworkTelemetry {
+
+    /** Limites superiores (ms) das faixas do histograma; a última faixa é "acima disso". */
+    static final long[] FAIXAS_MS = {50, 100, 250, 500, 1_000, 2_500, 5_000};
+
+    private static final NetworkTelemetry INSTANCIA = new NetworkTelemetry();
+
+    private final Map<String, Metricas> porEndpoint = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong[]> bytesPorRede = new ConcurrentHashMap<>();
+    private volatile String redeAtual = "DESCONHECIDA";
+
+    public static NetworkTelemetry get() {
+        return INSTANCIA;
+    }
+
+    /** Métricas acumuladas de um endpoint. */
+    public static class Metricas {
+        public final AtomicLong requisicoes = new AtomicLong();
+        public final AtomicLong falhasDeRede = new AtomicLong();
+        public final AtomicLong bytesEnviados = new AtomicLong();
+        public final AtomicLong bytesRecebidos = new AtomicLong();
+        /** Respostas por classe de status: índice 0 = 1xx ... 4 = 5xx. */
+        public final AtomicLongArray status = new AtomicLongArray(5);
+        public final AtomicLongArray latencia = new AtomicLongArray(FAIXAS_MS.length + 1);
+
+        void registrarLatencia(long duracaoMs) {
+            int faixa = 0;
+            while (faixa < FAIXAS_MS.length && duracaoMs > FAIXAS_MS[faixa]) faixa++;
+            latencia.incrementAndGet(faixa);
+        }
+    }
+
+    /** Tipo da rede padrão; os bytes seguintes passam a contar para ela. */
+    public void setRedeAtual(String rede) {
+        redeAtual = rede;
+    }
+
+    void registrarResposta(String endpoint, int codigo, long enviados, long recebidos, long duracaoMs) {
+        registrarBytesPorRede(enviados, recebidos);
+        Metricas m = metricas(endpoint);
+        m.requisicoes.incrementAndGet();
+        if (enviados > 0) m.bytesEnviados.addAndGet(enviados);
+        if (recebidos > 0) m.bytesRecebidos.addAndGet(recebidos);
+        int classe = codigo / 100 - 1;
+        if (classe >= 0 && classe < 5) m.status.incrementAndGet(classe);
+        m.registrarLatencia(duracaoMs);
+    }
+
+    void registrarFalha(String endpoint, long enviados, long duracaoMs) {
+        registrarBytesPorRede(enviados, 0);
+        Metricas m = metricas(endpoint);
+        m.requisicoes.incrementAndGet();
+        m.falhasDeRede.incrementAndGet();
+        if (enviados > 0) m.bytesEnviados.addAndGet(enviados);
+        m.registrarLatencia(duracaoMs);
+    }
+
+    /**
+     * Mensagem de um canal persistente (WebSocket), que não passa pelos interceptors.
+     * Conta bytes e mensagens; sem status nem latência.
+     */
+    void registrarMensagem(String endpoint, long enviados, long recebidos) {
+        registrarBytesPorRede(enviados, recebidos);
+        Metricas m = metricas(endpoint);
+        m.requisicoes.incrementAndGet();
+        if (enviados > 0) m.bytesEnviados.addAndGet(enviados);
+        if (recebidos > 0) m.bytesRecebidos.addAndGet(recebidos);
+    }
+
+    public Metricas getMetricas(String endpoint) {
+        return porEndpoint.get(endpoint);
+    }
+
+    /** Bytes enviados na rede informada (0 se nada passou por ela). */
+    public long getBytesEnviados(String rede) {
+        AtomicLong[] bytes = bytesPorRede.get(rede);
+        return bytes != null ? bytes[0].get() : 0L;
+    }
+
+    public long getBytesRecebidos(String rede) {
+        AtomicLong[] bytes = bytesPorRede.get(rede);
+        return bytes != null ? bytes[1].get() : 0L;
+    }
+
+    /** Resumo legível de todos os endpoints, para log ou diagnóstico. */
+    public String resumo() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Metricas> e : new TreeMap<>(porEndpoint).entrySet()) {
+            Metricas m = e.getValue();
+            sb.append(e.getKey())
+                    .append(": req=").append(m.requisicoes.get())
+                    .append(" falhas=").append(m.falhasDeRede.get())
+                    .append(" 2xx=").append(m.status.get(1))
+                    .append(" 4xx=").append(m.status.get(3))
+                    .append(" 5xx=").append(m.status.get(4))
+                    .append(" enviados=").append(m.bytesEnviados.get()).append("B")
+                    .append(" recebidos=").append(m.bytesRecebidos.get()).append("B")
+                    .append(" latência=[");
+            for (int i = 0; i < m.latencia.length(); i++) {
+                if (i > 0) sb.append(' ');
+                sb.append(i < FAIXAS_MS.length ? "≤" + FAIXAS_MS[i] : ">" + FAIXAS_MS[FAIXAS_MS.length - 1])
+                        .append(':').append(m.latencia.get(i));
+            }
+            sb.append("]\n");
+        }
+        for (Map.Entry<String, AtomicLong[]> e : new TreeMap<>(bytesPorRede).entrySet()) {
+            sb.append("rede ").append(e.getKey())
+                    .append(": enviados=").append(e.getValue()[0].get()).append("B")
+                    .append(" recebidos=").append(e.getValue()[1].get()).append("B\n");
+        }
+        return sb.toString();
+    }
+
+    private void registrarBytesPorRede(long enviados, long recebidos) {
+        String rede = redeAtual;
+        AtomicLong[] bytes = bytesPorRede.get(rede);
+        if (bytes == null) {
+            bytes = bytesPorRede.computeIfAbsent(rede, k -> new AtomicLong[]{new AtomicLong(), new AtomicLong()});
+        }
+        if (enviados > 0) bytes[0].addAndGet(enviados);
+        if (recebidos > 0) bytes[1].addAndGet(recebidos);
+    }
+
+    private Metricas metricas(String endpoint) {
+        Metricas m = porEndpoint.get(endpoint);
+        if (m == null) {
+            m = porEndpoint.computeIfAbsent(endpoint, k -> new Metricas());
+        }
+        return m;
+    }
+}
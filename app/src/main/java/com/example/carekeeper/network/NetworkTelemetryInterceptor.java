@@ -0,0 +1,66 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Registra tempo, tamanhos e status de cada requisição no {@link NetworkTelemetry},
+ * sem ler nem copiar os corpos. Instalado como network interceptor para medir o que
+ * realmente vai para a rede.
+ */
+public class NetworkTelemetryInterceptor implements Interceptor {
+
+    private final NetworkTelemetry telemetria;
+
+    public NetworkTelemetryInterceptor(NetworkTelemetry telemetria) {
+        this.telemetria = telemetria;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = endpoint(request);
+        RequestBody corpo = request.body();
+        long enviados = corpo != null ? corpo.contentLength() : 0L;
+        long inicio = System.nanoTime();
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            telemetria.registrarFalha(endpoint, enviados, (System.nanoTime() - inicio) / 1_000_000L);
+            throw e;
+        }
+
+        long duracaoMs = (System.nanoTime() - inicio) / 1_000_000L;
+        long recebidos = response.body() != null ? response.body().contentLength() : 0L;
+        telemetria.registrarResposta(endpoint, response.code(), enviados, recebidos, duracaoMs);
+        return response;
+    }
+
+    /** Método + caminho, com segmentos numéricos/UUID trocados por {id} para não explodir as chaves. */
+    static String endpoint(Request request) {
+        StringBuilder sb = new StringBuilder(request.method()).append(' ');
+        for (String segmento : request.url().encodedPathSegments()) {
+            sb.append('/');
+            sb.append(isIdentificador(segmento) ? "{id}" : segmento);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isIdentificador(String segmento) {
+        if (segmento.isEmpty()) return false;
+        if (segmento.length() == 36 && segmento.charAt(8) == '-') return true;
+        for (int i = 0; i < segmento.length(); i++) {
+            if (!Character.isDigit(segmento.charAt(i))) return false;
+        }
+        return true;
+    }
+}
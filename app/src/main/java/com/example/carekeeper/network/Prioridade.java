@@ -0,0 +1,20 @@
+package com.example.carekeeper.network;
+
+/**
+ * Faixas de prioridade das requisições ao backend (ver {@link LaneScheduler}).
+ */
+public enum Prioridade {
+    /** Alertas de emergência; as posições seguintes do alerta vão em {@link #NORMAL}. */
+    CRITICA(4),
+    /** Telemetria ao vivo, acompanhamento de localização do alerta e chamadas da interface. */
+    NORMAL(2),
+    /** Reenvio de pendências do outbox; cancelado quando chega uma requisição crítica. */
+    LOTE(1);
+
+    /** Requisições simultâneas permitidas na faixa. */
+    public final int concorrencia;
+
+    Prioridade(int concorrencia) {
+        this.concorrencia = concorrencia;
+    }
+}
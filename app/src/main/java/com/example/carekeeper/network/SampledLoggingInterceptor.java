@@ -0,0 +1,38 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Aplica o interceptor de log só a uma a cada N requisições.
+ * As demais seguem direto, sem copiar corpos nem montar strings.
+ */
+public class SampledLoggingInterceptor implements Interceptor {
+
+    private final Interceptor logging;
+    private final int amostragem;
+    private final AtomicLong contador = new AtomicLong();
+
+    /**
+     * @param amostragem 1 registra todas; N registra uma a cada N
+     */
+    public SampledLoggingInterceptor(Interceptor logging, int amostragem) {
+        if (amostragem < 1) throw new IllegalArgumentException("amostragem deve ser >= 1");
+        this.logging = logging;
+        this.amostragem = amostragem;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        if (contador.getAndIncrement() % amostragem == 0) {
+            return logging.intercept(chain);
+        }
+        return chain.proceed(chain.request());
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.carekeeper.network;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.dto.SensorWindowDTO;
+import com.example.carekeeper.service.location.TrajectorySimplifier;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Codificação binária compacta para leituras de sensores.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *   u8      versão
+ *   u8      flags (bit 0 = corpo é uma lista, bit 1 = leituras trazem janelas,
+ *                  bit 2 = leituras trazem repetições, bit 3 = leituras trazem sequência)
+ *   varint  quantidade de leituras
+ *   i64     timestamp da primeira leitura
+ *   u8 x ⌈quantidade/8⌉  bit i ligado = leitura i traz posição
+ *   se bit 3: varint tamanho + UTF-8 do dispositivo (prefixo das chaves de idempotência)
+ *   repetido para cada leitura:
+ *     varint  delta zigzag do timestamp em relação à leitura anterior (0 na primeira)
+ *     f32 x6  acelerômetro XYZ e giroscópio XYZ
+ *     se traz posição: varint x2 delta zigzag de latitude e longitude em 1e-7 grau
+ *             (~1 cm) em relação à última posição enviada
+ *     se bit 1: janela do acelerômetro e do giroscópio, cada uma com
+ *       varint  amostras (0 = sem janela, nada mais segue)
+ *       f32 x12 mínimo, máximo, média e variância por eixo
+ *       f32 x2  SMA e pico de jerk
+ *     se bit 2: varint leituras iguais suprimidas antes desta (0 = nenhuma)
+ *     se bit 3: varint 0 = sem sequência, senão 1 + 2 x delta zigzag em relação à última
+ *               sequência enviada + 1 se ela abre um bloco reservado (1 byte para
+ *               leituras consecutivas)
+ * </pre>
+ * A chave de idempotência não viaja por leitura: é {@code <dispositivo>:<seq>}.
+ * Os eixos dos sensores viajam como float porque o Android já os entrega em float.
+ *
+ * A trajetória do lote passa pelo {@link TrajectorySimplifier}: só vão as posições
+ * necessárias para reconstruir as demais por interpolação no tempo, com erro de até
+ * {@link #TOLERANCIA_TRAJETORIA_M}. Parado, o lote leva só a primeira e a última.
+ * Leituras sem posição (0, 0) sempre vão e separam trechos.
+ *
+ * Toda mudança de layout sobe {@link #VERSAO}, que também vai no media type negociado
+ * ({@link SensorBinaryConverterFactory#MEDIA_TYPE}): um servidor que só conhece uma versão
+ * anterior não a anuncia e o app continua em JSON. Versões já decodificadas:
+ *  - 1: posições em f64 em todas as leituras, sem mapa de posições
+ *  - 2: mapa de posições e trajetória simplificada, só com os bits 0 e 1
+ *  - 3: bits 2 e 3 (repetições, sequência e dispositivo), sequência sem a marca de bloco
+ *  - 4: marca de início de bloco junto da sequência
+ */
+public final class SensorBinaryCodec {
+
+    public static final int VERSAO = 4;
+    static final int VERSAO_POSICAO_COMPLETA = 1;
+    static final int VERSAO_TRAJETORIA = 2;
+    static final int VERSAO_SEQUENCIAS = 3;
+    static final int VERSAO_INICIO_BLOCO = 4;
+    static final int FLAG_LISTA = 1;
+    static final int FLAG_JANELAS = 2;
+    static final int FLAG_REPETICOES = 4;
+    static final int FLAG_SEQUENCIAS = 8;
+
+    /** Erro máximo, em metros, das posições reconstruídas no servidor. */
+    public static final double TOLERANCIA_TRAJETORIA_M = 5.0;
+    private static final int JANELA_TRAJETORIA = 64;
+    private static final double ESCALA_COORDENADA = 1e7;
+
+    private static final int BYTES_MAX_VARINT = 10;
+    private static final int BYTES_FIXOS_POR_LEITURA = 6 * 4 + 2 * BYTES_MAX_VARINT;
+    private static final int BYTES_JANELA = BYTES_MAX_VARINT + 14 * 4;
+
+    private SensorBinaryCodec() {}
+
+    public static byte[] encode(SensorDTO leitura) {
+        return encode(Collections.singletonList(leitura), false);
+    }
+
+    public static byte[] encode(List<SensorDTO> leituras) {
+        return encode(leituras, true, TOLERANCIA_TRAJETORIA_M);
+    }
+
+    public static byte[] encode(List<SensorDTO> leituras, double toleranciaM) {
+        return encode(leituras, true, toleranciaM);
+    }
+
+    private static byte[] encode(List<SensorDTO> leituras, boolean lista) {
+        return encode(leituras, lista, TOLERANCIA_TRAJETORIA_M);
+    }
+
+    private static byte[] encode(List<SensorDTO> leituras, boolean lista, double toleranciaM) {
+        boolean janelas = false;
+        boolean repeticoes = false;
+        String dispositivo = null;
+        for (SensorDTO leitura : leituras) {
+            if (leitura.getJanelaAcelerometro() != null || leitura.getJanelaGiroscopio() != null) janelas = true;
+            if (leitura.getRepeticoes() != null) repeticoes = true;
+            if (dispositivo == null && leitura.getSeq() != null) dispositivo = dispositivo(leitura);
+        }
+        boolean sequencias = dispositivo != null;
+        byte[] bytesDispositivo = sequencias ? dispositivo.getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+        boolean[] comPosicao = marcarPosicoes(leituras, toleranciaM);
+        int bytesMapa = (leituras.size() + 7) / 8;
+
+        int capacidade = 2 + BYTES_MAX_VARINT + 8 + bytesMapa + BYTES_MAX_VARINT + bytesDispositivo.length
+                + leituras.size() * (BYTES_MAX_VARINT + BYTES_FIXOS_POR_LEITURA + (janelas ? 2 * BYTES_JANELA : 0)
+                + (repeticoes ? BYTES_MAX_VARINT : 0) + (sequencias ? BYTES_MAX_VARINT : 0));
+        ByteBuffer buffer = ByteBuffer.allocate(capacidade).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put((byte) VERSAO);
+        buffer.put((byte) ((lista ? FLAG_LISTA : 0) | (janelas ? FLAG_JANELAS : 0)
+                | (repeticoes ? FLAG_REPETICOES : 0) | (sequencias ? FLAG_SEQUENCIAS : 0)));
+        putVarint(buffer, leituras.size());
+
+        long anterior = leituras.isEmpty() ? 0L : leituras.get(0).getTimestamp();
+        buffer.putLong(anterior);
+
+        byte[] mapa = new byte[bytesMapa];
+        for (int i = 0; i < comPosicao.length; i++) {
+            if (comPosicao[i]) mapa[i >> 3] |= (byte) (1 << (i & 7));
+        }
+        buffer.put(mapa);
+        if (sequencias) {
+            putVarint(buffer, bytesDispositivo.length);
+            buffer.put(bytesDispositivo);
+        }
+
+        long latAnterior = 0, lonAnterior = 0, seqAnterior = 0;
+        for (int i = 0; i < leituras.size(); i++) {
+            SensorDTO leitura = leituras.get(i);
+            long ts = leitura.getTimestamp();
+            putVarint(buffer, zigzag(ts - anterior));
+            anterior = ts;
+
+            buffer.putFloat((float) leitura.getAccelerometerX());
+            buffer.putFloat((float) leitura.getAccelerometerY());
+            buffer.putFloat((float) leitura.getAccelerometerZ());
+            buffer.putFloat((float) leitura.getGyroscopeX());
+            buffer.putFloat((float) leitura.getGyroscopeY());
+            buffer.putFloat((float) leitura.getGyroscopeZ());
+
+            if (comPosicao[i]) {
+                long lat = paraPontoFixo(leitura.getLatitude());
+                long lon = paraPontoFixo(leitura.getLongitude());
+                putVarint(buffer, zigzag(lat - latAnterior));
+                putVarint(buffer, zigzag(lon - lonAnterior));
+                latAnterior = lat;
+                lonAnterior = lon;
+            }
+
+            if (janelas) {
+                putJanela(buffer, leitura.getJanelaAcelerometro());
+                putJanela(buffer, leitura.getJanelaGiroscopio());
+            }
+            if (repeticoes) putVarint(buffer, leitura.getRepeticoes() != null ? leitura.getRepeticoes() : 0);
+            if (sequencias) {
+                Long seq = leitura.getSeq();
+                if (seq == null) {
+                    putVarint(buffer, 0);
+                } else {
+                    boolean inicioBloco = Boolean.TRUE.equals(leitura.getInicioBloco());
+                    putVarint(buffer, 1 + 2 * zigzag(seq - seqAnterior) + (inicioBloco ? 1 : 0));
+                    seqAnterior = seq;
+                }
+            }
+        }
+
+        byte[] saida = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(saida);
+        return saida;
+    }
+
+    public static List<SensorDTO> decode(byte[] dados) {
+        ByteBuffer buffer = ByteBuffer.wrap(dados).order(ByteOrder.LITTLE_ENDIAN);
+
+        int versao = buffer.get() & 0xFF;
+        if (versao < VERSAO_POSICAO_COMPLETA || versao > VERSAO) {
+            throw new IllegalArgumentException("Versão de formato não suportada: " + versao);
+        }
+        int flags = buffer.get() & 0xFF;
+        if (versao < VERSAO_SEQUENCIAS && (flags & (FLAG_REPETICOES | FLAG_SEQUENCIAS)) != 0) {
+            throw new IllegalArgumentException("Flags " + flags + " não existem na versão " + versao);
+        }
+        boolean janelas = (flags & FLAG_JANELAS) != 0;
+        boolean repeticoes = (flags & FLAG_REPETICOES) != 0;
+        boolean sequencias = (flags & FLAG_SEQUENCIAS) != 0;
+
+        int quantidade = (int) getVarint(buffer);
+        long ts = buffer.getLong();
+
+        boolean[] comPosicao = new boolean[quantidade];
+        if (versao >= VERSAO_TRAJETORIA) {
+            byte[] mapa = new byte[(quantidade + 7) / 8];
+            buffer.get(mapa);
+            for (int i = 0; i < quantidade; i++) comPosicao[i] = (mapa[i >> 3] & (1 << (i & 7))) != 0;
+        }
+        String dispositivo = null;
+        if (sequencias) {
+            byte[] bytesDispositivo = new byte[(int) getVarint(buffer)];
+            buffer.get(bytesDispositivo);
+            dispositivo = new String(bytesDispositivo, StandardCharsets.UTF_8);
+        }
+
+        List<SensorDTO> leituras = new ArrayList<>(quantidade);
+        long latAnterior = 0, lonAnterior = 0, seqAnterior = 0;
+        for (int i = 0; i < quantidade; i++) {
+            ts += unzigzag(getVarint(buffer));
+            double ax = buffer.getFloat(), ay = buffer.getFloat(), az = buffer.getFloat();
+            double gx = buffer.getFloat(), gy = buffer.getFloat(), gz = buffer.getFloat();
+            double lat = 0.0, lon = 0.0;
+            if (versao == VERSAO_POSICAO_COMPLETA) {
+                lat = buffer.getDouble();
+                lon = buffer.getDouble();
+            } else if (comPosicao[i]) {
+                latAnterior += unzigzag(getVarint(buffer));
+                lonAnterior += unzigzag(getVarint(buffer));
+                lat = latAnterior / ESCALA_COORDENADA;
+                lon = lonAnterior / ESCALA_COORDENADA;
+            }
+            SensorDTO leitura = new SensorDTO(ax, ay, az, gx, gy, gz, lat, lon, ts);
+            if (janelas) {
+                leitura.setJanelaAcelerometro(getJanela(buffer));
+                leitura.setJanelaGiroscopio(getJanela(buffer));
+            }
+            if (repeticoes) {
+                int n = (int) getVarint(buffer);
+                if (n > 0) leitura.setRepeticoes(n);
+            }
+            if (sequencias) {
+                long v = getVarint(buffer);
+                if (v > 0) {
+                    long delta = v - 1;
+                    if (versao >= VERSAO_INICIO_BLOCO) {
+                        if ((delta & 1) != 0) leitura.setInicioBloco(true);
+                        delta >>>= 1;
+                    }
+                    seqAnterior += unzigzag(delta);
+                    leitura.setSeq(seqAnterior);
+                    if (!dispositivo.isEmpty()) leitura.setChaveIdempotencia(dispositivo + ":" + seqAnterior);
+                }
+            }
+            leituras.add(leitura);
+        }
+        if (versao >= VERSAO_TRAJETORIA) reconstruirPosicoes(leituras, comPosicao);
+        return leituras;
+    }
+
+    /** Indica se o corpo codificado foi gerado a partir de uma lista. */
+    public static boolean isLista(byte[] dados) {
+        return dados.length > 1 && (dados[1] & FLAG_LISTA) != 0;
+    }
+
+    /** Prefixo da chave de idempotência ({@code <dispositivo>:<seq>}); vazio se a leitura não tiver chave. */
+    private static String dispositivo(SensorDTO leitura) {
+        String chave = leitura.getChaveIdempotencia();
+        int separador = chave != null ? chave.lastIndexOf(':') : -1;
+        return separador >= 0 ? chave.substring(0, separador) : "";
+    }
+
+    // ===========================================================
+    // =============== TRAJETÓRIA ===============================
+    // ===========================================================
+    /** Decide quais leituras levam posição; as demais são reconstruídas por quem recebe. */
+    private static boolean[] marcarPosicoes(List<SensorDTO> leituras, double toleranciaM) {
+        boolean[] comPosicao = new boolean[leituras.size()];
+        // O simplificador numera só as posições que recebeu
+        int[] origem = new int[leituras.size()];
+        int alimentadas = 0;
+        TrajectorySimplifier simplificador = new TrajectorySimplifier(toleranciaM, JANELA_TRAJETORIA,
+                indice -> comPosicao[origem[indice]] = true);
+
+        for (int i = 0; i < leituras.size(); i++) {
+            SensorDTO leitura = leituras.get(i);
+            if (semPosicao(leitura)) {
+                simplificador.fechar();
+                comPosicao[i] = true;
+                continue;
+            }
+            origem[alimentadas++] = i;
+            simplificador.adicionar(leitura.getLatitude(), leitura.getLongitude(), leitura.getTimestamp());
+        }
+        simplificador.fechar();
+        return comPosicao;
+    }
+
+    /** Preenche as posições omitidas interpolando no tempo entre as enviadas vizinhas. */
+    private static void reconstruirPosicoes(List<SensorDTO> leituras, boolean[] comPosicao) {
+        double[] interpolada = new double[2];
+        int anterior = -1;
+        for (int i = 0; i < leituras.size(); i++) {
+            if (comPosicao[i]) {
+                anterior = i;
+                continue;
+            }
+            int proxima = i + 1;
+            while (proxima < leituras.size() && !comPosicao[proxima]) proxima++;
+            if (anterior < 0 || proxima == leituras.size()) continue; // não ocorre em corpos gerados aqui
+
+            SensorDTO a = leituras.get(anterior), b = leituras.get(proxima);
+            for (int k = i; k < proxima; k++) {
+                SensorDTO leitura = leituras.get(k);
+                TrajectorySimplifier.interpolar(a.getLatitude(), a.getLongitude(), a.getTimestamp(),
+                        b.getLatitude(), b.getLongitude(), b.getTimestamp(), leitura.getTimestamp(), interpolada);
+                leitura.setLatitude(interpolada[0]);
+                leitura.setLongitude(interpolada[1]);
+            }
+            i = proxima - 1;
+        }
+    }
+
+    private static boolean semPosicao(SensorDTO leitura) {
+        return leitura.getLatitude() == 0.0 && leitura.getLongitude() == 0.0;
+    }
+
+    private static long paraPontoFixo(double grau) {
+        return Math.round(grau * ESCALA_COORDENADA);
+    }
+
+    // ===========================================================
+    // =============== JANELAS ==================================
+    // ===========================================================
+    private static void putJanela(ByteBuffer buffer, SensorWindowDTO janela) {
+        if (janela == null) {
+            putVarint(buffer, 0);
+            return;
+        }
+        putVarint(buffer, janela.getAmostras());
+        for (double v : janela.getMinimo()) buffer.putFloat((float) v);
+        for (double v : janela.getMaximo()) buffer.putFloat((float) v);
+        for (double v : janela.getMedia()) buffer.putFloat((float) v);
+        for (double v : janela.getVariancia()) buffer.putFloat((float) v);
+        buffer.putFloat((float) janela.getSma());
+        buffer.putFloat((float) janela.getPicoJerk());
+    }
+
+    private static SensorWindowDTO getJanela(ByteBuffer buffer) {
+        int amostras = (int) getVarint(buffer);
+        if (amostras == 0) return null;
+        double[] minimo = getEixos(buffer), maximo = getEixos(buffer);
+        double[] media = getEixos(buffer), variancia = getEixos(buffer);
+        double sma = buffer.getFloat(), picoJerk = buffer.getFloat();
+        return new SensorWindowDTO(amostras, minimo, maximo, media, variancia, sma, picoJerk);
+    }
+
+    private static double[] getEixos(ByteBuffer buffer) {
+        return new double[]{buffer.getFloat(), buffer.getFloat(), buffer.getFloat()};
+    }
+
+    // ===========================================================
+    // =============== VARINT ===================================
+    // ===========================================================
+    private static void putVarint(ByteBuffer buffer, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            buffer.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        buffer.put((byte) valor);
+    }
+
+    private static long getVarint(ByteBuffer buffer) {
+        long resultado = 0;
+        for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+            byte b = buffer.get();
+            resultado |= (long) (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) return resultado;
+        }
+        throw new IllegalArgumentException("Varint malformado");
+    }
+
+    private static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    private static long unzigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Converter do Retrofit que envia {@link SensorDTO} e {@code List<SensorDTO>} no formato
+ * binário do {@link SensorBinaryCodec} quando o backend anuncia suporte a ele.
+ *
+ * A negociação é feita pelo {@link #negociador()}: o servidor anuncia o formato no cabeçalho
+ * {@code Accept-Post} de qualquer resposta. Até lá, e sempre que ele responder 415, os corpos
+ * continuam sendo gerados pelo próximo converter registrado (Gson).
+ *
+ * O media type leva a versão do layout ({@code v}, igual a {@link SensorBinaryCodec#VERSAO}):
+ * só vale como aceito o anúncio da mesma versão. Um servidor que conhece outra versão
+ * responderia 400 a um corpo que não entende, e não 415, e o fallback não entraria.
+ */
+public final class SensorBinaryConverterFactory extends Converter.Factory {
+
+    private static final String TIPO = "application";
+    private static final String SUBTIPO = "x-carekeeper-sensor";
+    private static final String PARAMETRO_VERSAO = "v";
+    public static final MediaType MEDIA_TYPE = MediaType.get(
+            TIPO + "/" + SUBTIPO + "; " + PARAMETRO_VERSAO + "=" + SensorBinaryCodec.VERSAO);
+    private static final String HEADER_ACCEPT_POST = "Accept-Post";
+    private static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+
+    private final AtomicBoolean binarioAceito = new AtomicBoolean(false);
+    private final Gson gson = new Gson();
+
+    public static SensorBinaryConverterFactory create() {
+        return new SensorBinaryConverterFactory();
+    }
+
+    private SensorBinaryConverterFactory() {}
+
+    public boolean isBinarioAceito() {
+        return binarioAceito.get();
+    }
+
+    @Nullable
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(@NonNull Type type,
+                                                          @NonNull Annotation[] parameterAnnotations,
+                                                          @NonNull Annotation[] methodAnnotations,
+                                                          @NonNull Retrofit retrofit) {
+        boolean lista = isListaDeSensores(type);
+        if (!lista && type != SensorDTO.class) return null;
+
+        Converter<Object, RequestBody> fallback =
+                retrofit.nextRequestBodyConverter(this, type, parameterAnnotations, methodAnnotations);
+
+        return valor -> {
+            if (!binarioAceito.get()) return fallback.convert(valor);
+            @SuppressWarnings("unchecked")
+            byte[] corpo = lista
+                    ? SensorBinaryCodec.encode((List<SensorDTO>) valor)
+                    : SensorBinaryCodec.encode((SensorDTO) valor);
+            return RequestBody.create(corpo, MEDIA_TYPE);
+        };
+    }
+
+    /**
+     * Interceptor que acompanha a negociação de formato.
+     * Se o servidor recusar o binário (415), a requisição é refeita em JSON na hora.
+     */
+    public Interceptor negociador() {
+        return chain -> {
+            Request request = chain.request();
+            Response response = chain.proceed(request);
+
+            String aceitos = response.header(HEADER_ACCEPT_POST);
+            if (aceitos != null) {
+                binarioAceito.set(aceitaVersaoAtual(aceitos));
+            }
+
+            RequestBody corpo = request.body();
+            if (response.code() == 415 && corpo != null && MEDIA_TYPE.equals(corpo.contentType())) {
+                binarioAceito.set(false);
+                response.close();
+                return chain.proceed(request.newBuilder()
+                        .method(request.method(), paraJson(corpo))
+                        .build());
+            }
+            return response;
+        };
+    }
+
+    /** Se a lista do {@code Accept-Post} inclui o formato binário na versão deste app. */
+    static boolean aceitaVersaoAtual(String acceptPost) {
+        for (String item : acceptPost.split(",")) {
+            MediaType tipo = MediaType.parse(item.trim());
+            if (tipo != null
+                    && TIPO.equalsIgnoreCase(tipo.type())
+                    && SUBTIPO.equalsIgnoreCase(tipo.subtype())
+                    && String.valueOf(SensorBinaryCodec.VERSAO).equals(tipo.parameter(PARAMETRO_VERSAO))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RequestBody paraJson(RequestBody binario) throws IOException {
+        Buffer buffer = new Buffer();
+        binario.writeTo(buffer);
+        byte[] dados = buffer.readByteArray();
+
+        List<SensorDTO> leituras = SensorBinaryCodec.decode(dados);
+        String json = SensorBinaryCodec.isLista(dados) ? gson.toJson(leituras) : gson.toJson(leituras.get(0));
+        return RequestBody.create(json, JSON);
+    }
+
+    private static boolean isListaDeSensores(Type type) {
+        if (!(type instanceof ParameterizedType)) return false;
+        ParameterizedType parametrizado = (ParameterizedType) type;
+        Type bruto = parametrizado.getRawType();
+        return bruto instanceof Class
+                && List.class.isAssignableFrom((Class<?>) bruto)
+                && parametrizado.getActualTypeArguments()[0] == SensorDTO.class;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.carekeeper.network;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.service.monitor.StreamUplinkSession;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+import okio.Utf8;
+
+/**
+ * Canal WebSocket persistente para as leituras, sobre o mesmo cliente HTTP autenticado.
+ *
+ * Protocolo:
+ * <pre>
+ *   cliente → servidor (texto)   {"tipo":"ola","sessao":"&lt;uuid&gt;"}
+ *   servidor → cliente (texto)   {"tipo":"retomar","seq":N}   última sequência recebida nesta sessão
+ *   cliente → servidor (binário) u8 versão, i64 seq, u8 ativo, corpo do {@link SensorBinaryCodec}
+ *   servidor → cliente (texto)   {"tipo":"ack","seq":N}       ack cumulativo
+ * </pre>
+ * Sequências, reenvio, cópia em disco e o desvio para o REST ficam no {@link StreamUplinkSession}. Se o
+ * servidor não tiver o endpoint, o handshake falha e o canal tenta de novo com backoff,
+ * enquanto os lotes seguem pelo REST.
+ *
+ * Os quadros não passam pelo {@link NetworkTelemetryInterceptor}: cada mensagem aceita pelo
+ * socket, e cada uma recebida, conta no {@link NetworkTelemetry} como {@link #ENDPOINT}.
+ */
+public class SensorStreamChannel {
+
+    private static final String TAG = "SensorStreamChannel";
+    private static final String CAMINHO = "monitor/stream";
+    static final String ENDPOINT = "WS /" + CAMINHO;
+    private static final int VERSAO_QUADRO = 1;
+    private static final long PING_S = 30L;
+    private static final long RECONEXAO_INICIAL_MS = 1_000L;
+    private static final long RECONEXAO_MAXIMA_MS = 5 * 60_000L;
+    private static final long VERIFICACAO_MS = 5_000L;
+
+    /** Onde rodam conexão, reconexões e verificações, uma tarefa por vez; no app, uma HandlerThread. */
+    interface Agendador {
+        void agendar(Runnable tarefa, long atrasoMs);
+
+        /** Descarta o que estiver agendado e libera a thread. */
+        void encerrar();
+    }
+
+    /** Mensagem de controle trocada em texto. */
+    private static final class Mensagem {
+        String tipo;
+        long seq;
+        String sessao;
+    }
+
+    private final OkHttpClient client;
+    private final HttpUrl url;
+    private final StreamUplinkSession sessao;
+    private final String sessaoId = UUID.randomUUID().toString();
+    private final Gson gson = new Gson();
+    private final NetworkTelemetry telemetria = NetworkTelemetry.get();
+    private final Random random = new Random();
+    private final Agendador agendador;
+
+    private WebSocket socket;        // só tocado na thread do agendador
+    private int falhasSeguidas = 0;  // idem
+    private boolean encerrado = false;
+
+    private final Runnable verificacao = new Runnable() {
+        @Override
+        public void run() {
+            sessao.verificar(System.currentTimeMillis());
+            agendador.agendar(this, VERIFICACAO_MS);
+        }
+    };
+
+    public SensorStreamChannel(OkHttpClient clienteAutenticado, HttpUrl baseUrl, StreamUplinkSession sessao) {
+        this(clienteAutenticado, baseUrl, sessao, agendadorEmThreadPropria());
+    }
+
+    SensorStreamChannel(OkHttpClient clienteAutenticado, HttpUrl baseUrl, StreamUplinkSession sessao,
+                        Agendador agendador) {
+        // newBuilder() mantém pool e interceptors (inclusive o de autenticação). O dispatcher
+        // é próprio: no OkHttp o laço de leitura do WebSocket roda dentro da chamada assíncrona
+        // e ocuparia uma vaga da faixa de quem emprestou o cliente enquanto a conexão durar
+        this.client = clienteAutenticado.newBuilder()
+                .dispatcher(new Dispatcher())
+                .pingInterval(PING_S, TimeUnit.SECONDS)
+                .build();
+        this.url = baseUrl.resolve(CAMINHO);
+        this.sessao = sessao;
+        this.agendador = agendador;
+    }
+
+    private static Agendador agendadorEmThreadPropria() {
+        HandlerThread thread = new HandlerThread("StreamUplink");
+        thread.start();
+        Handler handler = new Handler(thread.getLooper());
+        return new Agendador() {
+            @Override
+            public void agendar(Runnable tarefa, long atrasoMs) {
+                handler.postDelayed(tarefa, atrasoMs);
+            }
+
+            @Override
+            public void encerrar() {
+                handler.removeCallbacksAndMessages(null);
+                handler.getLooper().quitSafely();
+            }
+        };
+    }
+
+    public void iniciar() {
+        agendador.agendar(this::conectar, 0L);
+        agendador.agendar(verificacao, VERIFICACAO_MS);
+    }
+
+    public void encerrar() {
+        agendador.agendar(() -> {
+            encerrado = true;
+            if (socket != null) socket.close(1000, "encerrado");
+            socket = null;
+            agendador.encerrar();
+        }, 0L);
+    }
+
+    // ===========================================================
+    // =============== CONEXÃO ==================================
+    // ===========================================================
+    private void conectar() {
+        if (encerrado || url == null) return;
+        Request request = new Request.Builder().url(url).build();
+        socket = client.newWebSocket(request, new Ouvinte());
+    }
+
+    private void agendarReconexao(WebSocket origem) {
+        agendador.agendar(() -> {
+            if (encerrado || origem != socket) return;
+            socket = null;
+            falhasSeguidas++;
+            long atraso = Math.min(RECONEXAO_MAXIMA_MS, RECONEXAO_INICIAL_MS << Math.min(falhasSeguidas - 1, 16));
+            atraso = atraso / 2 + (long) (random.nextDouble() * (atraso / 2)); // jitter
+            Log.i(TAG, "🔌 Canal fechado; reconectando em " + atraso + " ms");
+            agendador.agendar(this::conectar, atraso);
+        }, 0L);
+    }
+
+    private void enviar(WebSocket webSocket, String texto) {
+        if (webSocket.send(texto)) telemetria.registrarMensagem(ENDPOINT, Utf8.size(texto), 0L);
+    }
+
+    private void enviar(WebSocket webSocket, ByteString quadro) {
+        if (webSocket.send(quadro)) telemetria.registrarMensagem(ENDPOINT, quadro.size(), 0L);
+    }
+
+    private class Ouvinte extends WebSocketListener {
+        private volatile StreamUplinkSession.Conexao conexao;
+
+        @Override
+        public void onOpen(@NonNull WebSocket webSocket, @NonNull Response response) {
+            Mensagem ola = new Mensagem();
+            ola.tipo = "ola";
+            ola.sessao = sessaoId;
+            enviar(webSocket, gson.toJson(ola));
+            conexao = (seq, lote, ativo) -> enviar(webSocket, quadro(seq, lote, ativo));
+            sessao.onConectado(conexao);
+        }
+
+        @Override
+        public void onMessage(@NonNull WebSocket webSocket, @NonNull String texto) {
+            telemetria.registrarMensagem(ENDPOINT, 0L, Utf8.size(texto));
+            Mensagem mensagem;
+            try {
+                mensagem = gson.fromJson(texto, Mensagem.class);
+            } catch (JsonSyntaxException e) {
+                Log.w(TAG, "⚠️ Mensagem inválida do servidor: " + texto);
+                return;
+            }
+            if (mensagem == null || mensagem.tipo == null) return;
+            if ("ack".equals(mensagem.tipo)) {
+                sessao.onAck(mensagem.seq);
+            } else if ("retomar".equals(mensagem.tipo)) {
+                sessao.onRetomar(mensagem.seq);
+                agendador.agendar(() -> falhasSeguidas = 0, 0L);
+                Log.i(TAG, "🔗 Canal de leituras ativo (servidor recebeu até " + mensagem.seq + ")");
+            }
+        }
+
+        @Override
+        public void onClosing(@NonNull WebSocket webSocket, int codigo, @NonNull String motivo) {
+            webSocket.close(1000, null);
+        }
+
+        @Override
+        public void onClosed(@NonNull WebSocket webSocket, int codigo, @NonNull String motivo) {
+            sessao.onDesconectado(conexao, System.currentTimeMillis());
+            agendarReconexao(webSocket);
+        }
+
+        @Override
+        public void onFailure(@NonNull WebSocket webSocket, @NonNull Throwable t, @Nullable Response response) {
+            Log.w(TAG, "⚠️ Falha no canal de leituras: "
+                    + (response != null ? "HTTP " + response.code() : t.getMessage()));
+            sessao.onDesconectado(conexao, System.currentTimeMillis());
+            agendarReconexao(webSocket);
+        }
+    }
+
+    // ===========================================================
+    // =============== QUADROS ==================================
+    // ===========================================================
+    static ByteString quadro(long seq, List<SensorDTO> lote, boolean ativo) {
+        byte[] corpo = SensorBinaryCodec.encode(lote);
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 + 1 + corpo.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) VERSAO_QUADRO);
+        buffer.putLong(seq);
+        buffer.put((byte) (ativo ? 1 : 0));
+        buffer.put(corpo);
+        return ByteString.of(buffer.array());
+    }
+}
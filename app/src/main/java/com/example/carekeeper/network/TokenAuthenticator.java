@@ -0,0 +1,56 @@
+package com.example.carekeeper.network;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.carekeeper.service.auth.TokenRenewer;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * Trata 401 do cliente autenticado.
+ *
+ * Cada requisição recusada espera o {@link TokenRenewer}, que faz uma única renovação para
+ * todas as que falharam com o mesmo token, e então é refeita com o token novo. As threads
+ * liberadas pelo lock justo refazem suas requisições na ordem em que receberam o 401.
+ */
+public class TokenAuthenticator implements Authenticator {
+
+    private static final int MAX_TENTATIVAS = 2;
+
+    private final TokenRenewer renewer;
+
+    public TokenAuthenticator(TokenRenewer renewer) {
+        this.renewer = renewer;
+    }
+
+    @Nullable
+    @Override
+    public Request authenticate(@Nullable Route route, @NonNull Response response) {
+        if (contarTentativas(response) >= MAX_TENTATIVAS) return null;
+
+        String tokenUsado = extrairToken(response.request());
+        String novo = renewer.renovar(tokenUsado);
+        if (novo == null) return null; // o 401 chega ao chamador
+
+        return response.request().newBuilder()
+                .header("Authorization", "Bearer " + novo)
+                .build();
+    }
+
+    @Nullable
+    private static String extrairToken(Request request) {
+        String header = request.header("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return null;
+        return header.substring("Bearer ".length());
+    }
+
+    private static int contarTentativas(Response response) {
+        int tentativas = 1;
+        while ((response = response.priorResponse()) != null) tentativas++;
+        return tentativas;
+    }
+}
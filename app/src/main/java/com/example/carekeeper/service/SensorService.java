@@ -1,23 +1,31 @@
 package com.example.carekeeper.service;
 
 import android.Manifest;
+import android.annotation.SuppressLint;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
+import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
+import android.hardware.SensorEventListener2;
 import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
+import android.os.BatteryManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
 import android.os.IBinder;
 import android.util.Log;
 
@@ -27,33 +35,146 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
 
 import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.dto.SensorHistoryDTO;
 import com.example.carekeeper.network.ApiClient;
 import com.example.carekeeper.network.ApiService;
+import com.example.carekeeper.network.CircuitBreaker;
+import com.example.carekeeper.network.ConnectivityMonitor;
+import com.example.carekeeper.network.EstadoRede;
+import com.example.carekeeper.network.NetworkTelemetry;
+import com.example.carekeeper.network.SensorStreamChannel;
+import com.example.carekeeper.service.alert.AlertDispatcher;
+import com.example.carekeeper.service.alert.PanicStateStore;
+import com.example.carekeeper.service.auth.TokenRefreshScheduler;
+import com.example.carekeeper.service.location.LocationFix;
+import com.example.carekeeper.service.location.GeofenceReceiver;
+import com.example.carekeeper.service.location.LocationRepository;
+import com.example.carekeeper.service.location.LocationStrategy;
+import com.example.carekeeper.service.location.ModoLocalizacao;
+import com.example.carekeeper.service.monitor.AdaptiveSamplingController;
+import com.example.carekeeper.service.monitor.BoundedUploadExecutor;
+import com.example.carekeeper.service.monitor.FallDetector;
+import com.example.carekeeper.service.monitor.ModoAmostragem;
+import com.example.carekeeper.service.monitor.ReadingDeduplicator;
+import com.example.carekeeper.service.monitor.SensorBatchBuffer;
+import com.example.carekeeper.service.monitor.SensorRingBuffer;
+import com.example.carekeeper.service.monitor.StreamUplinkSession;
+import com.example.carekeeper.service.monitor.UploadScheduler;
+import com.example.carekeeper.service.monitor.WindowAggregator;
+import com.example.carekeeper.service.outbox.OutboxService;
+import com.example.carekeeper.service.prefs.DeviceSequence;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
-import retrofit2.Call;
-import retrofit2.Callback;
 import retrofit2.Response;
 
-public class SensorService extends Service implements SensorEventListener, LocationListener {
+public class SensorService extends Service implements SensorEventListener2, LocationListener {
 
     private static final String TAG = "SensorService";
     private static final String CHANNEL_ID = "SensorServiceChannel";
     private static final long INTERVALO_ENVIO_MS = 1000L;
+    private static final long INTERVALO_ENVIO_ALERTA_MS = 250L;
+    private static final int CAPACIDADE_RING = 1024; // ~10 s a 100 Hz
+    private static final int THREADS_ENVIO = 2;
+    private static final int FILA_MAXIMA_ENVIO = 4;
+    private static final int MAX_QUADROS_PENDENTES = 20;
+    private static final long PRAZO_RECONEXAO_STREAM_MS = 15_000L;
+    private static final long ESPERA_FLUSH_MS = 1_000L;
+    // Leituras que mudam menos que isso em relação à última enviada são suprimidas
+    private static final double LIMIAR_DEDUP_ACELERACAO = 0.05; // m/s²
+    private static final double LIMIAR_DEDUP_GIRO = 0.02;       // rad/s
+    private static final double LIMIAR_DEDUP_POSICAO_M = 5.0;
+    // Pico de jerk da janela: ruído parado fica em poucas unidades, batidas e tremores passam de dezenas
+    private static final double LIMIAR_DEDUP_JERK_ACELERACAO = 5.0; // m/s³
+    private static final double LIMIAR_DEDUP_JERK_GIRO = 2.0;       // rad/s²
+    private static final long HEARTBEAT_MS = 30_000L;
+    private static final String ACAO_SAIDA_CERCA = "com.example.carekeeper.SAIDA_CERCA";
+    private static final String ID_CERCA = "carekeeper-cerca";
 
     private SensorManager sensorManager;
     private LocationManager locationManager;
     private ApiService apiService;
     private SharedPreferencesService sharedPreferencesService;
+    private DeviceSequence sequencia;
+    private Runnable cancelarInscricaoPanico;
+    private Runnable cancelarInscricaoRede;
+    private Runnable cancelarInscricaoCircuito;
+    private SensorBatchBuffer loteLeituras;
+    private UploadScheduler agendadorEnvio; // só tocado na AgregacaoThread
+    private final ReadingDeduplicator deduplicador = new ReadingDeduplicator(
+            LIMIAR_DEDUP_ACELERACAO, LIMIAR_DEDUP_GIRO, LIMIAR_DEDUP_POSICAO_M,
+            LIMIAR_DEDUP_JERK_ACELERACAO, LIMIAR_DEDUP_JERK_GIRO, HEARTBEAT_MS); // idem
+    private AdaptiveSamplingController amostragem;
+    private FallDetector detectorQueda;
+    private ModoAmostragem modoAplicado;
+    private long intervaloEnvioMs = INTERVALO_ENVIO_MS; // só tocado na AgregacaoThread
+
+    // Modo atual exposto para diagnóstico de bateria/CPU
+    private static volatile ModoAmostragem modoAtual = ModoAmostragem.MOVIMENTO;
+
+    // Amostras brutas escritas pela thread do sensor e lidas sem lock pelo envio periódico
+    private final SensorRingBuffer acelerometroRing = new SensorRingBuffer(CAPACIDADE_RING);
+    private final SensorRingBuffer giroscopioRing = new SensorRingBuffer(CAPACIDADE_RING);
+    private final double[] ultimaAceleracao = new double[3];
+    private final double[] ultimoGiro = new double[3];
+
+    // Estágio de agregação: todas as amostras de cada janela de envio viram um resumo
+    private final WindowAggregator janelaAcelerometro = new WindowAggregator();
+    private final WindowAggregator janelaGiroscopio = new WindowAggregator();
+    private final long[] temposJanela = new long[CAPACIDADE_RING];
+    private final double[] valoresJanela = new double[CAPACIDADE_RING * 3];
+    private long ultimoTsAcelerometro = -1L;
+    private long ultimoTsGiroscopio = -1L;
+    private LocationRepository localizacoes;
+    private LocationStrategy estrategiaLocalizacao;
+    private int versaoLugaresSalvos;
+    private GeofencingClient geofencingClient;
+    private PendingIntent intentCerca;
+
+    // Modelo de execução:
+    //  - SensorThread: callbacks de sensores e GPS (captura)
+    //  - AgregacaoThread: único escritor do lote, tick periódico e troca de modo
+    //  - envios: canal WebSocket quando disponível; senão executor REST limitado,
+    //    e se ele encher o excedente vai para o outbox
+    private HandlerThread sensorThread;
+    private Handler sensorHandler;
+    // Troca de registro dos sensores, só tocados na SensorThread
+    private ModoAmostragem modoRegistrado;
+    private ModoAmostragem modoPendente;
+    private int flushesPendentes = 0;
+    private volatile boolean sensoresEncerrados = false;
+    private HandlerThread agregacaoThread;
+    private Handler handler;
+    private BoundedUploadExecutor envios;
+    private StreamUplinkSession uplink;     // criados e usados na AgregacaoThread
+    private SensorStreamChannel canalStream;
+
+    private final TriggerEventListener movimentoSignificativo = new TriggerEventListener() {
+        @Override
+        public void onTrigger(TriggerEvent event) {
+            amostragem.onMovimentoSignificativo(System.currentTimeMillis());
+        }
+    };
 
-    private double ax, ay, az, gx, gy, gz;
-    private double latitude, longitude;
+    // Na SensorThread: alguns HALs não confirmam o flush
+    private final Runnable flushSemResposta = () -> {
+        if (modoPendente == null) return;
+        Log.w(TAG, "⚠️ Flush dos sensores sem resposta; trocando o registro mesmo assim");
+        concluirTroca();
+    };
 
-    private final Handler handler = new Handler();
     private final Runnable envioPeriodico = new Runnable() {
         @Override
         public void run() {
             enviarLeitura();
-            handler.postDelayed(this, INTERVALO_ENVIO_MS);
+            estrategiaLocalizacao.verificar(System.currentTimeMillis());
+            handler.postDelayed(this, intervaloEnvioMs);
         }
     };
 
@@ -62,8 +183,10 @@ public class SensorService extends Service implements SensorEventListener, Locat
     // ===========================================================
     public static void iniciar(Context context) {
         // Verifica permissões de localização
-        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED ||
-                ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED
+                || ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED) {
             ActivityCompat.requestPermissions(
                     (android.app.Activity) context,
                     new String[]{Manifest.permission.ACCESS_FINE_LOCATION, Manifest.permission.ACCESS_COARSE_LOCATION},
@@ -85,6 +208,25 @@ public class SensorService extends Service implements SensorEventListener, Locat
         context.stopService(serviceIntent);
     }
 
+    /**
+     * Chamado pelo {@link GeofenceReceiver} quando o sistema avisa a saída da cerca. Se o
+     * processo tiver morrido o serviço é recriado a partir de um receiver em segundo plano,
+     * o que no Android 8+ só é permitido como serviço em primeiro plano.
+     */
+    public static void notificarSaidaCerca(Context context) {
+        Intent intent = new Intent(context, SensorService.class).setAction(ACAO_SAIDA_CERCA);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(intent);
+        } else {
+            context.startService(intent);
+        }
+    }
+
+    /** Modo de amostragem em uso pelo serviço. */
+    public static ModoAmostragem getModoAmostragem() {
+        return modoAtual;
+    }
+
     // ===========================================================
     // =============== MÉTODOS DO SERVICE =======================
     // ===========================================================
@@ -94,13 +236,59 @@ public class SensorService extends Service implements SensorEventListener, Locat
         Log.i(TAG, "Iniciando SensorService...");
 
         sharedPreferencesService = new SharedPreferencesService(this);
+        localizacoes = LocationRepository.getInstance(this);
+        sequencia = DeviceSequence.getInstance(this);
         apiService = ApiClient.getClientWithAuth(sharedPreferencesService).create(ApiService.class);
+        boolean alertaAtivo = PanicStateStore.get().getAtual().alertaAtivo;
+        agendadorEnvio = new UploadScheduler(ConnectivityMonitor.getInstance(this).getEstado(), alertaAtivo);
+        agendadorEnvio.setBackendDisponivel(ApiClient.getCircuitoBackend().getEstado() == CircuitBreaker.Estado.FECHADO);
+        UploadScheduler.Cadencia cadencia = agendadorEnvio.getCadencia();
+        loteLeituras = new SensorBatchBuffer(cadencia.tamanhoLote, cadencia.latenciaMaximaMs, this::enviarLote);
+        OutboxService.getInstance(this); // retoma o envio de pendências de execuções anteriores
+        TokenRefreshScheduler.getInstance(this).agendar();
+
+        sensorThread = new HandlerThread("SensorThread", Process.THREAD_PRIORITY_MORE_FAVORABLE);
+        sensorThread.start();
+        sensorHandler = new Handler(sensorThread.getLooper());
+
+        agregacaoThread = new HandlerThread("AgregacaoThread", Process.THREAD_PRIORITY_BACKGROUND);
+        agregacaoThread.start();
+        handler = new Handler(agregacaoThread.getLooper());
+
+        envios = new BoundedUploadExecutor("EnvioLeituras", THREADS_ENVIO, FILA_MAXIMA_ENVIO);
+        // Quadros sem ack de uma execução anterior saem aqui mesmo pelo REST. A recuperação lê
+        // o diário do disco: fica na AgregacaoThread, antes de qualquer lote (mesma fila)
+        handler.post(() -> {
+            uplink = new StreamUplinkSession(MAX_QUADROS_PENDENTES, PRAZO_RECONEXAO_STREAM_MS,
+                    OutboxService.getInstance(this).getDiarioStream(), this::enviarPorRest);
+            canalStream = new SensorStreamChannel(ApiClient.getHttpClientWithAuth(sharedPreferencesService),
+                    ApiClient.getBaseUrl(), uplink);
+            canalStream.iniciar();
+        });
 
         sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
         locationManager = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
-
-        registrarSensores();
-        registrarLocalizacao();
+        geofencingClient = LocationServices.getGeofencingClient(this);
+        intentCerca = PendingIntent.getBroadcast(this, 0, new Intent(this, GeofenceReceiver.class),
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+        estrategiaLocalizacao = new LocationStrategy(System.currentTimeMillis(),
+                sharedPreferencesService.carregarLugaresConhecidos(), this::lerCargaBateria,
+                (modo, cerca) -> handler.post(() -> aplicarLocalizacao(modo, cerca)));
+        versaoLugaresSalvos = estrategiaLocalizacao.getVersaoLugares();
+        aplicarLocalizacao(estrategiaLocalizacao.getModoAtual(), estrategiaLocalizacao.getCercaAtual());
+
+        amostragem = new AdaptiveSamplingController(System.currentTimeMillis(),
+                novoModo -> handler.post(() -> aplicarModo(novoModo)));
+        amostragem.setAlertaAtivo(alertaAtivo, System.currentTimeMillis());
+        aplicarCadencia(alertaAtivo);
+        cancelarInscricaoPanico = PanicStateStore.get().inscrever(this::onEstadoDePanico, handler::post);
+        cancelarInscricaoRede = ConnectivityMonitor.getInstance(this)
+                .adicionarOuvinte(estado -> handler.post(() -> onRedeAlterada(estado)));
+        cancelarInscricaoCircuito = ApiClient.getCircuitoBackend()
+                .adicionarOuvinte((anterior, novo) -> handler.post(() -> onCircuitoAlterado(novo)));
+        AlertDispatcher.getInstance(this).setFonteHistorico(this::copiarHistorico);
+        detectorQueda = new FallDetector((timestampMs, picoImpacto) -> handler.post(() -> onQuedaDetectada(picoImpacto)));
+        aplicarModo(amostragem.getModoAtual());
 
         criarCanalDeNotificacao();
         iniciarComoForeground();
@@ -108,27 +296,142 @@ public class SensorService extends Service implements SensorEventListener, Locat
         handler.post(envioPeriodico);
     }
 
-    private void registrarSensores() {
+    private void aplicarModo(ModoAmostragem modo) {
+        if (modo == modoAplicado) return;
+        Log.i(TAG, "🎚️ Modo de amostragem: " + modoAplicado + " → " + modo);
+        modoAplicado = modo;
+        modoAtual = modo;
+
+        registrarSensores(modo);
+        estrategiaLocalizacao.onModoAmostragem(modo, System.currentTimeMillis());
+    }
+
+    private void registrarSensores(ModoAmostragem modo) {
         if (sensorManager == null) return;
+        sensorHandler.post(() -> trocarRegistro(modo));
+    }
+
+    // Roda na SensorThread
+    private void trocarRegistro(ModoAmostragem modo) {
+        boolean aguardandoFlush = modoPendente != null;
+        modoPendente = modo;
+        if (aguardandoFlush) return; // o flush em andamento aplica o modo mais recente
+
+        // Em lote o FIFO do hardware guarda até maxReportLatencyUs de amostras, e desregistrar
+        // as descartaria bem quando uma queda a partir do repouso começa: esvazia antes
+        if (modoRegistrado != null && modoRegistrado.latenciaMaximaUs > 0) {
+            flushesPendentes = contarSensoresRegistrados();
+            if (flushesPendentes > 0 && sensorManager.flush(this)) {
+                sensorHandler.postDelayed(flushSemResposta, ESPERA_FLUSH_MS);
+                return;
+            }
+        }
+        concluirTroca();
+    }
+
+    // Chega na SensorThread depois das amostras que estavam no FIFO, uma vez por sensor
+    @Override
+    public void onFlushCompleted(Sensor sensor) {
+        if (modoPendente == null || --flushesPendentes > 0) return;
+        sensorHandler.removeCallbacks(flushSemResposta);
+        concluirTroca();
+    }
+
+    private int contarSensoresRegistrados() {
+        int n = 0;
+        if (sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER) != null) n++;
+        if (sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE) != null) n++;
+        return n;
+    }
+
+    private void concluirTroca() {
+        ModoAmostragem modo = modoPendente;
+        modoPendente = null;
+        if (sensoresEncerrados) return;
+        sensorManager.unregisterListener(this);
+        modoRegistrado = modo;
 
         Sensor acelerometro = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
         Sensor giroscopio = sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
+        Sensor movimento = sensorManager.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
 
+        // Em repouso os eventos ficam no FIFO do hardware até maxReportLatencyUs; o detector
+        // de quedas recebe o lote inteiro, com os timestamps originais
         if (acelerometro != null)
-            sensorManager.registerListener(this, acelerometro, SensorManager.SENSOR_DELAY_NORMAL);
+            sensorManager.registerListener(this, acelerometro, modo.periodoAcelerometroUs, modo.latenciaMaximaUs, sensorHandler);
 
         if (giroscopio != null)
-            sensorManager.registerListener(this, giroscopio, SensorManager.SENSOR_DELAY_NORMAL);
+            sensorManager.registerListener(this, giroscopio, modo.periodoGiroscopioUs, modo.latenciaMaximaUs, sensorHandler);
+
+        // Movimento significativo acorda o repouso sem esperar o lote do hardware
+        if (movimento != null) {
+            if (modo == ModoAmostragem.REPOUSO) sensorManager.requestTriggerSensor(movimentoSignificativo, movimento);
+            else sensorManager.cancelTriggerSensor(movimentoSignificativo, movimento);
+        }
     }
 
-    private void registrarLocalizacao() {
+    /**
+     * Troca a fonte de localização conforme a {@link LocationStrategy}. Fora do GPS as
+     * posições passivas (de outros apps) continuam chegando e servem de reserva caso a
+     * cerca do sistema demore a disparar.
+     */
+    private void aplicarLocalizacao(ModoLocalizacao modo, @Nullable LocationStrategy.Cerca cerca) {
+        Log.i(TAG, "📡 Modo de localização: " + modo + (cerca != null ? " (raio " + cerca.raioM + " m)" : ""));
+        salvarLugaresSeMudaram();
+        geofencingClient.removeGeofences(intentCerca);
         try {
-            locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 3000, 1, this);
+            locationManager.removeUpdates(this);
+            if (modo.usaGps()) {
+                locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER,
+                        modo.intervaloMs, modo.distanciaMinimaM, this, sensorThread.getLooper());
+                return;
+            }
+            locationManager.requestLocationUpdates(LocationManager.PASSIVE_PROVIDER,
+                    modo.intervaloMs, modo.distanciaMinimaM, this, sensorThread.getLooper());
+            if (modo == ModoLocalizacao.PASSIVO && locationManager.isProviderEnabled(LocationManager.NETWORK_PROVIDER)) {
+                locationManager.requestLocationUpdates(LocationManager.NETWORK_PROVIDER,
+                        modo.intervaloMs, modo.distanciaMinimaM, this, sensorThread.getLooper());
+            }
+            if (modo == ModoLocalizacao.CERCA && cerca != null) registrarCerca(cerca);
         } catch (SecurityException e) {
             Log.e(TAG, "Permissão de localização não concedida.");
         }
     }
 
+    /** Aprender um lugar sempre troca a cerca, então a lista é gravada aqui e não só no onDestroy. */
+    private void salvarLugaresSeMudaram() {
+        int versao = estrategiaLocalizacao.getVersaoLugares();
+        if (versao == versaoLugaresSalvos) return;
+        versaoLugaresSalvos = versao;
+        sharedPreferencesService.salvarLugaresConhecidos(estrategiaLocalizacao.getLugaresConhecidos());
+        Log.i(TAG, "🏠 Lugar conhecido aprendido e salvo");
+    }
+
+    @SuppressLint("MissingPermission")
+    private void registrarCerca(LocationStrategy.Cerca cerca) {
+        Geofence geofence = new Geofence.Builder()
+                .setRequestId(ID_CERCA)
+                .setCircularRegion(cerca.latitude, cerca.longitude, cerca.raioM)
+                .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_EXIT)
+                .build();
+        GeofencingRequest pedido = new GeofencingRequest.Builder()
+                .setInitialTrigger(0)
+                .addGeofences(Collections.singletonList(geofence))
+                .build();
+        // Sem permissão de localização em segundo plano a cerca falha: sobram as posições passivas
+        geofencingClient.addGeofences(pedido, intentCerca)
+                .addOnFailureListener(e -> Log.w(TAG, "⚠️ Cerca não registrada: " + e.getMessage()));
+    }
+
+    /** Carga restante em µAh, ou negativo se o aparelho não informa. */
+    private long lerCargaBateria() {
+        BatteryManager bateria = (BatteryManager) getSystemService(Context.BATTERY_SERVICE);
+        if (bateria == null) return -1L;
+        long carga = bateria.getLongProperty(BatteryManager.BATTERY_PROPERTY_CHARGE_COUNTER);
+        return carga == Long.MIN_VALUE || carga <= 0 ? -1L : carga;
+    }
+
     private void criarCanalDeNotificacao() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel channel = new NotificationChannel(
@@ -152,8 +455,65 @@ public class SensorService extends Service implements SensorEventListener, Locat
         startForeground(1, notification);
     }
 
+    /** Chamado na AgregacaoThread, em lote, quando o estado de pânico muda. */
+    private void onEstadoDePanico(PanicStateStore.Snapshot anterior, PanicStateStore.Snapshot atual) {
+        if (anterior.alertaAtivo == atual.alertaAtivo) return;
+        Log.i(TAG, atual.alertaAtivo ? "🚨 Alerta ativado" : "✅ Alerta encerrado");
+        amostragem.setAlertaAtivo(atual.alertaAtivo, System.currentTimeMillis());
+        aplicarCadencia(atual.alertaAtivo);
+        // Não espera o próximo ciclo: a troca do alerta fecha o lote anterior e envia já
+        handler.removeCallbacks(envioPeriodico);
+        envioPeriodico.run();
+    }
+
+    /** Em alerta cada leitura sai sozinha e com mais frequência; fora dele o lote segue a rede. */
+    private void aplicarCadencia(boolean alertaAtivo) {
+        intervaloEnvioMs = alertaAtivo ? INTERVALO_ENVIO_ALERTA_MS : INTERVALO_ENVIO_MS;
+        UploadScheduler.Cadencia cadencia = agendadorEnvio.setAlertaAtivo(alertaAtivo);
+        loteLeituras.configurar(cadencia.tamanhoLote, cadencia.latenciaMaximaMs);
+    }
+
+    /** Chamado na AgregacaoThread quando a rede padrão muda. */
+    private void onRedeAlterada(EstadoRede rede) {
+        boolean voltou = !agendadorEnvio.getRede().isOnline() && rede.isOnline();
+        UploadScheduler.Cadencia cadencia = agendadorEnvio.setRede(rede);
+        loteLeituras.configurar(cadencia.tamanhoLote, cadencia.latenciaMaximaMs);
+        Log.i(TAG, "📶 Rede " + rede + ": lotes de " + cadencia);
+        // O que juntou enquanto estava offline sai assim que a rede volta
+        if (voltou) loteLeituras.descarregar();
+    }
+
+    /** Chamado na AgregacaoThread quando o disjuntor do backend muda de estado. */
+    private void onCircuitoAlterado(CircuitBreaker.Estado estado) {
+        boolean disponivel = estado == CircuitBreaker.Estado.FECHADO;
+        if (disponivel == agendadorEnvio.isBackendDisponivel()) return;
+        UploadScheduler.Cadencia cadencia = agendadorEnvio.setBackendDisponivel(disponivel);
+        loteLeituras.configurar(cadencia.tamanhoLote, cadencia.latenciaMaximaMs);
+        Log.i(TAG, (disponivel ? "🔌 Backend de volta" : "🔌 Backend indisponível") + ": lotes de " + cadencia);
+        // Enquanto o circuito esteve aberto as leituras foram para o outbox; as novas saem já
+        if (disponivel) loteLeituras.descarregar();
+    }
+
+    /**
+     * Cópia das amostras brutas dos últimos {@code duracaoMs}, para anexar a um alerta.
+     * Pode ser chamada de qualquer thread: os ring buffers aceitam leitores concorrentes.
+     */
+    private SensorHistoryDTO copiarHistorico(long duracaoMs) {
+        // Timestamps dos eventos de sensor usam o relógio desde o boot
+        long agora = SystemClock.elapsedRealtime();
+        long[] tempos = new long[CAPACIDADE_RING];
+        double[] valores = new double[CAPACIDADE_RING * 3];
+
+        int n = acelerometroRing.copiarDesde(agora - duracaoMs, tempos, valores);
+        SensorHistoryDTO.Serie acelerometro = SensorHistoryDTO.Serie.de(tempos, valores, n, agora);
+        n = giroscopioRing.copiarDesde(agora - duracaoMs, tempos, valores);
+        SensorHistoryDTO.Serie giroscopio = SensorHistoryDTO.Serie.de(tempos, valores, n, agora);
+
+        return new SensorHistoryDTO(System.currentTimeMillis(), acelerometro, giroscopio);
+    }
+
     private void enviarLeitura() {
-        boolean isAlertActive = sharedPreferencesService.isAlertActive();
+        boolean isAlertActive = PanicStateStore.get().getAtual().alertaAtivo;
 
         String token = sharedPreferencesService.getJwtToken();
         if (token == null || token.trim().isEmpty()) {
@@ -161,61 +521,181 @@ public class SensorService extends Service implements SensorEventListener, Locat
             return;
         }
 
+        ultimoTsAcelerometro = agregar(acelerometroRing, janelaAcelerometro, ultimoTsAcelerometro);
+        ultimoTsGiroscopio = agregar(giroscopioRing, janelaGiroscopio, ultimoTsGiroscopio);
+        mediaOuUltima(acelerometroRing, janelaAcelerometro, ultimaAceleracao);
+        mediaOuUltima(giroscopioRing, janelaGiroscopio, ultimoGiro);
+
+        LocationFix fix = localizacoes.melhorAgora();
         SensorDTO leitura = new SensorDTO(
-                ax, ay, az,
-                gx, gy, gz,
-                latitude, longitude,
+                ultimaAceleracao[0], ultimaAceleracao[1], ultimaAceleracao[2],
+                ultimoGiro[0], ultimoGiro[1], ultimoGiro[2],
+                fix != null ? fix.latitude : 0.0, fix != null ? fix.longitude : 0.0,
                 System.currentTimeMillis()
         );
+        leitura.setJanelaAcelerometro(janelaAcelerometro.fecharJanela());
+        leitura.setJanelaGiroscopio(janelaGiroscopio.fecharJanela());
 
-        Call<Void> call = apiService.sendReading(leitura, isAlertActive);
-        call.enqueue(new Callback<>() {
-            @Override
-            public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
-                if (response.isSuccessful()) {
-                    Log.i(TAG, "✅ Leitura enviada com sucesso (ativo=" + isAlertActive + ")");
-                } else if (response.code() == 401) {
-                    Log.w(TAG, "🔒 Token expirado ou inválido. Ignorando leitura até novo login.");
-                } else {
-                    Log.w(TAG, "⚠️ Falha no envio: código HTTP " + response.code());
-                }
-            }
+        // Em repouso leituras iguais viram uma contagem na próxima que sair (com heartbeat)
+        if (!deduplicador.filtrar(leitura, isAlertActive)) {
+            loteLeituras.verificarPrazo(System.currentTimeMillis());
+            return;
+        }
+
+        // Numerada só quando sai: as suprimidas não abrem lacunas na sequência
+        sequencia.numerar(leitura);
+
+        // A leitura entra no lote; o envio acontece por tamanho, prazo ou mudança do alerta
+        loteLeituras.adicionar(leitura, isAlertActive, System.currentTimeMillis());
+    }
+
+    /** Alimenta a janela com as amostras novas do ring buffer e devolve o último timestamp lido. */
+    private long agregar(SensorRingBuffer ring, WindowAggregator janela, long ultimoTs) {
+        int n = ring.copiarDesde(ultimoTs + 1, temposJanela, valoresJanela);
+        for (int i = 0; i < n; i++) {
+            janela.adicionar(temposJanela[i], valoresJanela[i * 3], valoresJanela[i * 3 + 1], valoresJanela[i * 3 + 2]);
+        }
+        return n > 0 ? temposJanela[n - 1] : ultimoTs;
+    }
+
+    /** Eixos da leitura: média da janela, ou a última amostra se a janela veio vazia (batching). */
+    private void mediaOuUltima(SensorRingBuffer ring, WindowAggregator janela, double[] destino) {
+        if (janela.getAmostras() == 0) {
+            ring.ultima(destino);
+            return;
+        }
+        for (int i = 0; i < 3; i++) destino[i] = janela.getMedia(i);
+    }
+
+    // Chamado na AgregacaoThread quando o lote fecha
+    private void enviarLote(List<SensorDTO> lote, boolean isAlertActive) {
+        if (!agendadorEnvio.getCadencia().enviarPelaRede) {
+            // Offline: nem tenta; o outbox envia quando a rede voltar
+            OutboxService.getInstance(this).enfileirarLeituras(lote, isAlertActive);
+            return;
+        }
+        uplink.enviarLote(lote, isAlertActive);
+    }
 
-            @Override
-            public void onFailure(@NonNull Call<Void> call, @NonNull Throwable t) {
-                Log.e(TAG, "❌ Erro ao enviar leitura: " + t.getMessage());
+    // Reserva do canal: chamado na AgregacaoThread ou na thread do canal
+    private void enviarPorRest(List<SensorDTO> lote, boolean isAlertActive) {
+        if (!envios.submeter(() -> executarEnvio(lote, isAlertActive))) {
+            // Backpressure: rede atrasada, o lote vai direto para o disco
+            Log.w(TAG, "⏸️ Fila de envio cheia (" + envios.getPendentes() + "). Lote desviado para o outbox.");
+            OutboxService.getInstance(this).enfileirarLeituras(lote, isAlertActive);
+        }
+    }
+
+    // Roda em uma thread do executor de envios
+    private void executarEnvio(List<SensorDTO> lote, boolean isAlertActive) {
+        Response<Void> response;
+        try {
+            response = apiService.sendReadings(lote, isAlertActive).execute();
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "❌ Erro ao enviar lote: " + e.getMessage());
+            OutboxService.getInstance(this).enfileirarLeituras(lote, isAlertActive);
+            return;
+        }
+
+        if (response.isSuccessful()) {
+            Log.i(TAG, "✅ Lote com " + lote.size() + " leituras enviado (ativo=" + isAlertActive + ")");
+        } else if (response.code() == 401) {
+            // O TokenAuthenticator já tentou renovar e refazer; guarda o lote e agenda nova tentativa
+            Log.w(TAG, "🔒 Token expirado ou inválido. Lote guardado; renovando token.");
+            OutboxService.getInstance(this).enfileirarLeituras(lote, isAlertActive);
+            TokenRefreshScheduler.getInstance(this).renovarAgora();
+        } else {
+            Log.w(TAG, "⚠️ Falha no envio do lote: código HTTP " + response.code());
+            if (response.code() >= 500) {
+                OutboxService.getInstance(this).enfileirarLeituras(lote, isAlertActive);
             }
-        });
+        }
     }
 
+    // Roda na SensorThread: sem alocação por evento
     @Override
     public void onSensorChanged(SensorEvent event) {
+        float[] v = event.values;
+        long timestampMs = event.timestamp / 1_000_000L;
+
         if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            ax = event.values[0];
-            ay = event.values[1];
-            az = event.values[2];
+            acelerometroRing.escrever(timestampMs, v[0], v[1], v[2]);
+            amostragem.onAceleracao(v[0], v[1], v[2], System.currentTimeMillis());
+            detectorQueda.onAmostra(v[0], v[1], v[2], timestampMs);
         } else if (event.sensor.getType() == Sensor.TYPE_GYROSCOPE) {
-            gx = event.values[0];
-            gy = event.values[1];
-            gz = event.values[2];
+            giroscopioRing.escrever(timestampMs, v[0], v[1], v[2]);
         }
     }
 
+    private void onQuedaDetectada(float picoImpacto) {
+        Log.w(TAG, "🆘 Queda detectada (pico de " + picoImpacto + " m/s²). Disparando alerta.");
+        if (sharedPreferencesService.isPanicTriggered()) return;
+
+        // Mesmo estado e envio do botão de pânico
+        sharedPreferencesService.setPanicTriggered(true);
+        sharedPreferencesService.setPanicProgress(1f);
+        AlertDispatcher.getInstance(this).disparar("Queda detectada");
+    }
+
     @Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
     @Override public void onLocationChanged(@NonNull Location location) {
-        latitude = location.getLatitude();
-        longitude = location.getLongitude();
+        // Leituras e alertas escolhem a posição no repositório, com idade e precisão
+        LocationFix fix = localizacoes.registrar(location, location.getProvider());
+        estrategiaLocalizacao.onFix(fix, System.currentTimeMillis());
     }
     @Override public void onStatusChanged(String provider, int status, Bundle extras) {}
     @Override public void onProviderEnabled(@NonNull String provider) {}
     @Override public void onProviderDisabled(@NonNull String provider) {}
 
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACAO_SAIDA_CERCA.equals(intent.getAction())) {
+            // Veio de startForegroundService: confirma o primeiro plano mesmo se o serviço já rodava
+            iniciarComoForeground();
+            handler.post(() -> estrategiaLocalizacao.onSaidaCerca(System.currentTimeMillis()));
+        }
+        return START_STICKY;
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
         handler.removeCallbacks(envioPeriodico);
-        if (sensorManager != null) sensorManager.unregisterListener(this);
+        if (cancelarInscricaoPanico != null) cancelarInscricaoPanico.run();
+        if (cancelarInscricaoRede != null) cancelarInscricaoRede.run();
+        if (cancelarInscricaoCircuito != null) cancelarInscricaoCircuito.run();
+        AlertDispatcher.getInstance(this).setFonteHistorico(null);
+        sharedPreferencesService.persistirAgora();
+        // O lote só é tocado pela AgregacaoThread; o último envio sai antes dela encerrar
+        handler.post(() -> {
+            loteLeituras.descarregar();
+            canalStream.encerrar();
+            uplink.encerrar(); // o que o servidor não confirmou vai pelo REST
+            Log.i(TAG, "🔗 Canal de leituras: " + uplink.resumo());
+            Log.i(TAG, "🧮 Leituras repetidas suprimidas: " + deduplicador.getTotalSuprimidas());
+            envios.encerrar();
+        });
+        if (sensorManager != null) {
+            // Uma troca de modo ainda na fila da SensorThread não registra de novo
+            sensoresEncerrados = true;
+            sensorManager.unregisterListener(this);
+            sensorHandler.post(() -> sensorManager.unregisterListener(this));
+            Sensor movimento = sensorManager.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+            if (movimento != null) sensorManager.cancelTriggerSensor(movimentoSignificativo, movimento);
+        }
         if (locationManager != null) locationManager.removeUpdates(this);
+        if (geofencingClient != null) geofencingClient.removeGeofences(intentCerca);
+        if (estrategiaLocalizacao != null) {
+            sharedPreferencesService.salvarLugaresConhecidos(estrategiaLocalizacao.getLugaresConhecidos());
+            Log.i(TAG, "📡 Localização por modo:\n" + estrategiaLocalizacao.resumo(System.currentTimeMillis()));
+        }
+        if (sensorThread != null) sensorThread.quitSafely();
+        if (agregacaoThread != null) agregacaoThread.quitSafely();
+        if (amostragem != null) {
+            Log.i(TAG, "⏱️ Tempo por modo (ms): " + amostragem.getTempoPorModoMs(System.currentTimeMillis()));
+        }
+        Log.i(TAG, "📊 Telemetria de rede:\n" + NetworkTelemetry.get().resumo());
+        Log.i(TAG, "🔌 Disjuntor do backend: " + ApiClient.getCircuitoBackend().resumo(System.currentTimeMillis()));
         Log.i(TAG, "🛑 Serviço de sensores encerrado.");
     }
 
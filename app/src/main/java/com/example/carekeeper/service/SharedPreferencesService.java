@@ -2,21 +2,32 @@ package com.example.carekeeper.service;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
 
 import androidx.annotation.Nullable;
 
+import com.example.carekeeper.service.alert.PanicStateStore;
+import com.example.carekeeper.service.auth.TokenRenewer;
+import com.example.carekeeper.service.location.LocationFix;
+import com.example.carekeeper.service.location.LocationRepository;
+import com.example.carekeeper.service.location.LocationStrategy;
+import com.example.carekeeper.service.prefs.WriteBehindStore;
 import com.example.carekeeper.ui.emergency.EmergencyContactsFragment.EmergencyContact;
+import com.example.carekeeper.utils.JwtUtils;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Serviço centralizado para estado de pânico e SharedPreferences no app CareKeeper.
  * Gerencia:
- *  - Estado do alerta em memória (PanicStateService)
+ *  - Estado do alerta em memória (espelhado no {@link PanicStateStore})
  *  - Progresso e estado do botão de pânico
  *  - Localização atual
  *  - Contatos personalizados
@@ -24,31 +35,19 @@ import java.util.List;
  *  - Token JWT de autenticação
  *  - Preferência de tema (claro/escuro)
  *  - Duração de hold do botão de pânico
+ *
+ * Os valores ficam num {@link WriteBehindStore} único por processo: leituras e escritas
+ * não tocam o XML, e as alterações são gravadas em lote no máximo a cada
+ * {@link #JANELA_GRAVACAO_MS}. Token e estado do alerta são gravados na hora.
  */
-public class SharedPreferencesService {
-
-    // ===========================================================
-    // =============== ESTADO DE PÂNICO EM MEMÓRIA ==============
-    // ===========================================================
-    public static class PanicState {
-        public static boolean triggered = false;
-        public static float progress = 0f;
-        public static double currentLatitude = 0.0;
-        public static double currentLongitude = 0.0;
-
-        public static void reset() {
-            triggered = false;
-            progress = 0f;
-            currentLatitude = 0.0;
-            currentLongitude = 0.0;
-        }
-    }
+public class SharedPreferencesService implements TokenRenewer.Armazenamento {
 
     // ===========================================================
     // =============== SHARED PREFERENCES =======================
     // ===========================================================
     private static final String PREF_NAME = "carekeeper_prefs";
-    private final SharedPreferences prefs;
+    private static final long JANELA_GRAVACAO_MS = 500L;
+    private final WriteBehindStore estado;
     private final Gson gson = new Gson();
 
     private static final String KEY_IS_ALERT_ACTIVE = "isAlertActive";
@@ -62,25 +61,100 @@ public class SharedPreferencesService {
     private static final String KEY_JWT_TOKEN = "jwt_token";
     private static final String KEY_USER_ID = "user_id";
     private static final String KEY_HOLD_DURATION = "holdDurationMs"; // NOVO
+    private static final String KEY_FIX_PRECISAO = "lastFixAccuracyM";
+    private static final String KEY_FIX_TEMPO = "lastFixTimeMs";
+    private static final String KEY_FIX_VELOCIDADE = "lastFixSpeedMps";
+    private static final String KEY_FIX_FONTE = "lastFixProvider";
+    private static final String KEY_LUGARES_CONHECIDOS = "knownPlaces";
+
+    // Estado compartilhado pelo processo todo: várias telas e serviços criam esta classe
+    private static WriteBehindStore estadoCompartilhado;
 
     public SharedPreferencesService(Context context) {
-        this.prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        this.estado = obterEstado(context.getApplicationContext());
+    }
+
+    private static synchronized WriteBehindStore obterEstado(Context context) {
+        if (estadoCompartilhado == null) {
+            SharedPreferences prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+            HandlerThread thread = new HandlerThread("PrefsWriter");
+            thread.start();
+            Handler handler = new Handler(thread.getLooper());
+            estadoCompartilhado = new WriteBehindStore(
+                    new PersistenciaPrefs(prefs), handler::postDelayed, JANELA_GRAVACAO_MS);
+            restaurarEstadoDePanico(estadoCompartilhado);
+        }
+        return estadoCompartilhado;
+    }
+
+    /** O estado de pânico sobrevive ao processo: recarrega o snapshot do que foi persistido. */
+    private static void restaurarEstadoDePanico(WriteBehindStore e) {
+        boolean disparado = e.getBoolean(KEY_PANIC_TRIGGERED, false);
+        boolean alertaAtivo = e.getBoolean(KEY_IS_ALERT_ACTIVE, false);
+        float progresso = e.getFloat(KEY_PANIC_PROGRESS, 0f);
+        double lat = Double.longBitsToDouble(e.getLong(KEY_LATITUDE, 0));
+        double lon = Double.longBitsToDouble(e.getLong(KEY_LONGITUDE, 0));
+        PanicStateStore.get().restaurar(s -> s.comDisparado(disparado).comAlertaAtivo(alertaAtivo)
+                .comProgresso(progresso).comLocalizacao(lat, lon));
+    }
+
+    /** Grava um lote de alterações numa única edição do XML. */
+    private static class PersistenciaPrefs implements WriteBehindStore.Persistencia {
+        private final SharedPreferences prefs;
+
+        PersistenciaPrefs(SharedPreferences prefs) {
+            this.prefs = prefs;
+        }
+
+        @Override
+        public Map<String, ?> carregar() {
+            return prefs.getAll();
+        }
+
+        @Override
+        public void gravar(Map<String, Object> alterados, Set<String> removidos) {
+            SharedPreferences.Editor editor = prefs.edit();
+            for (String chave : removidos) editor.remove(chave);
+            for (Map.Entry<String, Object> e : alterados.entrySet()) {
+                Object v = e.getValue();
+                if (v instanceof Boolean) editor.putBoolean(e.getKey(), (Boolean) v);
+                else if (v instanceof Float) editor.putFloat(e.getKey(), (Float) v);
+                else if (v instanceof Integer) editor.putInt(e.getKey(), (Integer) v);
+                else if (v instanceof Long) editor.putLong(e.getKey(), (Long) v);
+                else if (v instanceof String) editor.putString(e.getKey(), (String) v);
+            }
+            editor.apply();
+        }
+
+        @Override
+        public void limpar() {
+            prefs.edit().clear().apply();
+        }
+    }
+
+    /** Grava já o que estiver pendente (ao sair da tela ou parar o serviço). */
+    public void persistirAgora() {
+        estado.persistirAgora();
     }
 
     // ===========================================================
     // =============== AUTENTICAÇÃO JWT =========================
     // ===========================================================
+    @Override
     public void saveJwtToken(String token) {
-        prefs.edit().putString(KEY_JWT_TOKEN, token).apply();
+        JwtUtils.invalidarCache();
+        estado.put(KEY_JWT_TOKEN, token, true);
     }
 
     @Nullable
+    @Override
     public String getJwtToken() {
-        return prefs.getString(KEY_JWT_TOKEN, null);
+        return estado.getString(KEY_JWT_TOKEN, null);
     }
 
     public void clearJwtToken() {
-        prefs.edit().remove(KEY_JWT_TOKEN).apply();
+        JwtUtils.invalidarCache();
+        estado.remover(KEY_JWT_TOKEN, true);
     }
 
     public boolean isLoggedIn() {
@@ -92,63 +166,97 @@ public class SharedPreferencesService {
     // =============== ESTADO DO ALERTA =========================
     // ===========================================================
     public void setAlertActive(boolean active) {
-        prefs.edit().putBoolean(KEY_IS_ALERT_ACTIVE, active).apply();
+        estado.put(KEY_IS_ALERT_ACTIVE, active, true);
+        PanicStateStore.get().atualizar(s -> s.comAlertaAtivo(active));
     }
 
     public boolean isAlertActive() {
-        return prefs.getBoolean(KEY_IS_ALERT_ACTIVE, false);
+        return PanicStateStore.get().getAtual().alertaAtivo;
     }
 
     // ===========================================================
     // =============== PROGRESSO DO BOTÃO DE PÂNICO ============
     // ===========================================================
     public void setPanicProgress(float progress) {
-        prefs.edit().putFloat(KEY_PANIC_PROGRESS, progress).apply();
-        PanicState.progress = progress;
+        estado.put(KEY_PANIC_PROGRESS, progress);
+        PanicStateStore.get().atualizar(s -> s.comProgresso(progress));
     }
 
     public float getPanicProgress() {
-        return prefs.getFloat(KEY_PANIC_PROGRESS, 0f);
+        return PanicStateStore.get().getAtual().progresso;
     }
 
+    /** Disparar o pânico ativa o alerta; rearmar o botão o encerra. */
     public void setPanicTriggered(boolean triggered) {
-        prefs.edit().putBoolean(KEY_PANIC_TRIGGERED, triggered).apply();
-        PanicState.triggered = triggered;
+        estado.put(KEY_PANIC_TRIGGERED, triggered);
+        estado.put(KEY_IS_ALERT_ACTIVE, triggered, true);
+        PanicStateStore.get().atualizar(s -> s.comDisparado(triggered).comAlertaAtivo(triggered));
     }
 
     public boolean isPanicTriggered() {
-        return prefs.getBoolean(KEY_PANIC_TRIGGERED, false);
+        return PanicStateStore.get().getAtual().disparado;
     }
 
     // ===========================================================
     // =============== LOCALIZAÇÃO ATUAL ========================
     // ===========================================================
     public void setLastLocation(double latitude, double longitude) {
-        prefs.edit()
-                .putLong(KEY_LATITUDE, Double.doubleToRawLongBits(latitude))
-                .putLong(KEY_LONGITUDE, Double.doubleToRawLongBits(longitude))
-                .apply();
-        PanicState.currentLatitude = latitude;
-        PanicState.currentLongitude = longitude;
+        estado.put(KEY_LATITUDE, Double.doubleToRawLongBits(latitude));
+        estado.put(KEY_LONGITUDE, Double.doubleToRawLongBits(longitude));
+        PanicStateStore.get().atualizar(s -> s.comLocalizacao(latitude, longitude));
     }
 
     public double getLastLatitude() {
-        return Double.longBitsToDouble(prefs.getLong(KEY_LATITUDE, 0));
+        return PanicStateStore.get().getAtual().latitude;
     }
 
     public double getLastLongitude() {
-        return Double.longBitsToDouble(prefs.getLong(KEY_LONGITUDE, 0));
+        return PanicStateStore.get().getAtual().longitude;
+    }
+
+    /** Última posição boa com metadados (usada pelo {@link LocationRepository}). */
+    public void salvarUltimoFix(LocationFix fix) {
+        setLastLocation(fix.latitude, fix.longitude);
+        estado.put(KEY_FIX_PRECISAO, fix.precisaoM);
+        estado.put(KEY_FIX_TEMPO, fix.tempoMs);
+        estado.put(KEY_FIX_VELOCIDADE, fix.velocidadeMps);
+        estado.put(KEY_FIX_FONTE, fix.fonte);
+    }
+
+    @Nullable
+    public LocationFix carregarUltimoFix() {
+        double lat = getLastLatitude(), lon = getLastLongitude();
+        if (lat == 0.0 && lon == 0.0) return null;
+        // Instalações antigas só têm latitude/longitude: idade e precisão ficam desconhecidas
+        return new LocationFix(lat, lon,
+                estado.getFloat(KEY_FIX_PRECISAO, LocationFix.PRECISAO_DESCONHECIDA),
+                estado.getLong(KEY_FIX_TEMPO, LocationFix.TEMPO_DESCONHECIDO),
+                estado.getFloat(KEY_FIX_VELOCIDADE, LocationFix.VELOCIDADE_DESCONHECIDA),
+                estado.getString(KEY_FIX_FONTE, "prefs"));
+    }
+
+    public void salvarLugaresConhecidos(List<LocationStrategy.Cerca> lugares) {
+        // Raro e caro de reaprender (horas parado no lugar): grava na hora
+        estado.put(KEY_LUGARES_CONHECIDOS, gson.toJson(lugares), true);
+    }
+
+    public List<LocationStrategy.Cerca> carregarLugaresConhecidos() {
+        String json = estado.getString(KEY_LUGARES_CONHECIDOS, null);
+        if (json == null) return new ArrayList<>();
+        Type listType = new TypeToken<ArrayList<LocationStrategy.Cerca>>() {}.getType();
+        List<LocationStrategy.Cerca> lugares = gson.fromJson(json, listType);
+        return lugares != null ? lugares : new ArrayList<>();
     }
 
     // ===========================================================
     // =============== CONTATOS PERSONALIZADOS ==================
     // ===========================================================
     public void salvarContatosPersonalizados(List<EmergencyContact> contatos) {
-        prefs.edit().putString(KEY_CUSTOM_CONTACTS, gson.toJson(contatos)).apply();
+        estado.put(KEY_CUSTOM_CONTACTS, gson.toJson(contatos));
     }
 
     public List<EmergencyContact> carregarContatosPersonalizados() {
-        String json = prefs.getString(KEY_CUSTOM_CONTACTS, null);
+        String json = estado.getString(KEY_CUSTOM_CONTACTS, null);
         if (json == null) return new ArrayList<>();
         Type listType = new TypeToken<ArrayList<EmergencyContact>>() {}.getType();
         List<EmergencyContact> contatos = gson.fromJson(json, listType);
@@ -156,47 +264,48 @@ public class SharedPreferencesService {
     }
 
     public void limparContatosPersonalizados() {
-        prefs.edit().remove(KEY_CUSTOM_CONTACTS).apply();
+        estado.remover(KEY_CUSTOM_CONTACTS, false);
     }
 
     // ===========================================================
     // =============== CONFIGURAÇÕES GERAIS =====================
     // ===========================================================
     public void setMaxCustomContacts(int max) {
-        prefs.edit().putInt(KEY_MAX_CUSTOM_CONTACTS, max).apply();
+        estado.put(KEY_MAX_CUSTOM_CONTACTS, max);
     }
 
     public int getMaxCustomContacts() {
-        return prefs.getInt(KEY_MAX_CUSTOM_CONTACTS, 3);
+        return estado.getInt(KEY_MAX_CUSTOM_CONTACTS, 3);
     }
 
     // ===========================================================
     // =============== TEMA CLARO / ESCURO ======================
     // ===========================================================
     public void setDarkThemeEnabled(boolean enabled) {
-        prefs.edit().putBoolean(KEY_DARK_THEME, enabled).apply();
+        estado.put(KEY_DARK_THEME, enabled);
     }
 
     public boolean isDarkThemeEnabled() {
-        return prefs.getBoolean(KEY_DARK_THEME, false);
+        return estado.getBoolean(KEY_DARK_THEME, false);
     }
 
     // ===========================================================
     // =============== HOLD DURATION ============================
     // ===========================================================
     public void setHoldDuration(long durationMs) {
-        prefs.edit().putLong(KEY_HOLD_DURATION, durationMs).apply();
+        estado.put(KEY_HOLD_DURATION, durationMs);
     }
 
     public long getHoldDuration() {
-        return prefs.getLong(KEY_HOLD_DURATION, 3000L); // valor padrão 3s
+        return estado.getLong(KEY_HOLD_DURATION, 3000L); // valor padrão 3s
     }
 
     // ===========================================================
     // =============== LIMPEZA GERAL ============================
     // ===========================================================
     public void limparTudo() {
-        prefs.edit().clear().apply();
-        PanicState.reset();
+        estado.limpar();
+        JwtUtils.invalidarCache();
+        PanicStateStore.get().atualizar(s -> PanicStateStore.Snapshot.INICIAL);
     }
 }
@@ -0,0 +1,265 @@
+package com.example.carekeeper.service.alert;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.ActivityCompat;
+
+import com.example.carekeeper.dto.AlertLocationUpdate;
+import com.example.carekeeper.dto.PanicAlertRequest;
+import com.example.carekeeper.dto.SensorHistoryDTO;
+import com.example.carekeeper.network.ApiClient;
+import com.example.carekeeper.network.ApiService;
+import com.example.carekeeper.network.Prioridade;
+import com.example.carekeeper.service.SharedPreferencesService;
+import com.example.carekeeper.service.auth.TokenRefreshScheduler;
+import com.example.carekeeper.service.location.LocationFix;
+import com.example.carekeeper.service.location.LocationRepository;
+import com.example.carekeeper.service.outbox.OutboxService;
+import com.example.carekeeper.service.prefs.DeviceSequence;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.CancellationTokenSource;
+
+import java.util.UUID;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Caminho único de envio de alertas de emergência.
+ * Usado pelo botão de pânico e pela detecção de quedas no {@code SensorService}.
+ *
+ * O alerta sai na hora com a melhor posição do {@link LocationRepository} (com idade e
+ * precisão); uma posição de alta precisão é pedida em paralelo e as seguintes são enviadas
+ * como atualizações do mesmo alerta até ele ser encerrado (ver {@link AlertLocationSession}).
+ *
+ * Enquanto o monitoramento está rodando, o alerta leva os últimos
+ * {@link #HISTORICO_ALERTA_MS} de amostras brutas dos sensores.
+ */
+public class AlertDispatcher {
+
+    private static final String TAG = "AlertDispatcher";
+    private static final long HISTORICO_ALERTA_MS = 5_000L;
+    private static final long INTERVALO_ATUALIZACAO_MS = 5_000L;
+
+    /** Quem guarda as amostras recentes (o {@code SensorService}, enquanto ativo). */
+    public interface FonteHistorico {
+        @Nullable
+        SensorHistoryDTO copiarUltimos(long duracaoMs);
+    }
+
+    private static AlertDispatcher instancia;
+
+    private final Context context;
+    private final SharedPreferencesService prefs;
+    private final ApiService api;
+    private final ApiService apiAtualizacoes;
+    private final FusedLocationProviderClient fusedLocationClient;
+    private final LocationRepository localizacoes;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile FonteHistorico fonteHistorico;
+    private AlertLocationSession sessaoAtual; // protegido por "this"
+
+    public static synchronized AlertDispatcher getInstance(Context context) {
+        if (instancia == null) {
+            instancia = new AlertDispatcher(context.getApplicationContext());
+        }
+        return instancia;
+    }
+
+    private AlertDispatcher(Context context) {
+        this.context = context;
+        this.prefs = new SharedPreferencesService(context);
+        this.api = ApiClient.getClientWithAuth(prefs, Prioridade.CRITICA).create(ApiService.class);
+        // As posições seguintes saem a cada poucos segundos por até 15 min: na faixa crítica
+        // cada uma cancelaria e seguraria o reenvio do outbox (LOTE) durante todo o alerta
+        this.apiAtualizacoes = ApiClient.getClientWithAuth(prefs, Prioridade.NORMAL).create(ApiService.class);
+        this.fusedLocationClient = LocationServices.getFusedLocationProviderClient(context);
+        this.localizacoes = LocationRepository.getInstance(context);
+
+        // Rearmar o botão encerra o acompanhamento de localização do alerta
+        PanicStateStore.get().inscrever((anterior, atual) -> {
+            if (anterior.alertaAtivo && !atual.alertaAtivo) encerrarSessao();
+        }, mainHandler::post);
+        aquecerCache();
+    }
+
+    public void setFonteHistorico(@Nullable FonteHistorico fonte) {
+        this.fonteHistorico = fonte;
+    }
+
+    /**
+     * Envia um alerta imediatamente com a melhor posição disponível e passa a acompanhar
+     * a localização dele.
+     *
+     * @param motivo descrição do que originou o alerta (vai no campo "leitura")
+     */
+    public void disparar(@NonNull String motivo) {
+        String token = prefs.getJwtToken();
+        if (token == null || token.trim().isEmpty()) {
+            Log.w(TAG, "⚠️ Nenhum token JWT encontrado. Ignorando envio do alerta.");
+            return;
+        }
+
+        // Copia já: o ring buffer continua sendo sobrescrito
+        FonteHistorico fonte = fonteHistorico;
+        SensorHistoryDTO historico = fonte != null ? fonte.copiarUltimos(HISTORICO_ALERTA_MS) : null;
+
+        PanicAlertRequest alertDTO = new PanicAlertRequest();
+        alertDTO.setAlertaId(UUID.randomUUID().toString());
+        alertDTO.setLeitura(motivo);
+        alertDTO.setHistorico(historico);
+        DeviceSequence.getInstance(context).numerar(alertDTO);
+
+        AlertLocationSession sessao = new AlertLocationSession(
+                new ProvedorFused(), new CanalRetrofit(motivo), System::currentTimeMillis);
+        AlertLocationSession anterior;
+        synchronized (this) {
+            anterior = sessaoAtual;
+            sessaoAtual = sessao;
+        }
+        if (anterior != null) anterior.encerrar();
+        sessao.iniciar(alertDTO);
+    }
+
+    private void encerrarSessao() {
+        AlertLocationSession sessao;
+        synchronized (this) {
+            sessao = sessaoAtual;
+            sessaoAtual = null;
+        }
+        if (sessao != null) sessao.encerrar();
+    }
+
+    private boolean temPermissao() {
+        return ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /** Deixa a última posição do fused provider pronta antes de qualquer alerta. */
+    @SuppressLint("MissingPermission")
+    private void aquecerCache() {
+        if (!temPermissao()) return;
+        fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
+            if (location != null) localizacoes.registrar(location, "fused-cache");
+        });
+    }
+
+    // ===========================================================
+    // =============== LOCALIZAÇÃO (FUSED) ======================
+    // ===========================================================
+    private class ProvedorFused implements AlertLocationSession.ProvedorLocalizacao {
+        private final CancellationTokenSource cancelamento = new CancellationTokenSource();
+        private LocationCallback callback;
+
+        @Nullable
+        @Override
+        public LocationFix melhorEmCache() {
+            // Inclui a última posição boa persistida, caso o app tenha acabado de abrir
+            return localizacoes.melhorAgora();
+        }
+
+        @SuppressLint("MissingPermission")
+        @Override
+        public void iniciarAtualizacoes(AlertLocationSession.Ouvinte ouvinte) {
+            if (!temPermissao()) return;
+
+            fusedLocationClient.getCurrentLocation(Priority.PRIORITY_HIGH_ACCURACY, cancelamento.getToken())
+                    .addOnSuccessListener(location -> {
+                        if (location != null) ouvinte.onLocalizacao(localizacoes.registrar(location, "fused-atual"));
+                    });
+
+            LocationRequest pedido = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, INTERVALO_ATUALIZACAO_MS)
+                    .setMinUpdateIntervalMillis(INTERVALO_ATUALIZACAO_MS / 2)
+                    .build();
+            callback = new LocationCallback() {
+                @Override
+                public void onLocationResult(@NonNull LocationResult resultado) {
+                    Location location = resultado.getLastLocation();
+                    if (location != null) ouvinte.onLocalizacao(localizacoes.registrar(location, "fused"));
+                }
+            };
+            fusedLocationClient.requestLocationUpdates(pedido, callback, Looper.getMainLooper());
+        }
+
+        @Override
+        public void pararAtualizacoes() {
+            cancelamento.cancel();
+            if (callback != null) fusedLocationClient.removeLocationUpdates(callback);
+        }
+    }
+
+    // ===========================================================
+    // =============== ENVIO ====================================
+    // ===========================================================
+    private class CanalRetrofit implements AlertLocationSession.Canal {
+        private final String motivo;
+
+        CanalRetrofit(String motivo) {
+            this.motivo = motivo;
+        }
+
+        @Override
+        public void enviarAlerta(PanicAlertRequest alertDTO, Runnable aoConfirmar) {
+            api.triggerPanicButton(alertDTO).enqueue(new Callback<>() {
+                @Override
+                public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
+                    if (response.isSuccessful()) {
+                        Log.i(TAG, "🚨 Alerta enviado: " + motivo);
+                        aoConfirmar.run();
+                        return;
+                    }
+                    int codigo = response.code();
+                    if (codigo == 401) {
+                        // O TokenAuthenticator já tentou renovar e refazer; o outbox tenta de novo
+                        Log.w(TAG, "🔒 Token expirado ou inválido. Alerta guardado; renovando token.");
+                        TokenRefreshScheduler.getInstance(context).renovarAgora();
+                    } else {
+                        Log.w(TAG, "⚠️ Falha ao enviar alerta: " + codigo);
+                    }
+                    // Mesma regra do outbox: só rejeições definitivas descartam o alerta
+                    if (OutboxService.deveTentarDeNovo(codigo)) {
+                        OutboxService.getInstance(context).enfileirarAlerta(alertDTO);
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<Void> call, @NonNull Throwable t) {
+                    Log.e(TAG, "❌ Erro ao enviar alerta: " + t.getMessage());
+                    OutboxService.getInstance(context).enfileirarAlerta(alertDTO);
+                }
+            });
+        }
+
+        @Override
+        public void enviarLocalizacao(String alertaId, AlertLocationUpdate atualizacao) {
+            apiAtualizacoes.updateAlertLocation(alertaId, atualizacao).enqueue(new Callback<>() {
+                @Override
+                public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
+                    if (response.isSuccessful()) Log.i(TAG, "📍 Localização do alerta atualizada");
+                    else Log.w(TAG, "⚠️ Falha ao atualizar localização do alerta: " + response.code());
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<Void> call, @NonNull Throwable t) {
+                    // A próxima posição substitui esta; não vale guardar na outbox
+                    Log.e(TAG, "❌ Erro ao atualizar localização do alerta: " + t.getMessage());
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.carekeeper.service.alert;
+
+import androidx.annotation.Nullable;
+
+import com.example.carekeeper.dto.AlertLocationUpdate;
+import com.example.carekeeper.dto.PanicAlertRequest;
+import com.example.carekeeper.service.location.LocationFix;
+
+/**
+ * Localização de um alerta: envia na hora com a melhor posição em cache e, em paralelo,
+ * acompanha posições novas de alta precisão, enviadas como atualizações do mesmo alerta.
+ *
+ * Atualizações só saem depois que o alerta foi confirmado pelo backend; enquanto isso fica
+ * guardada apenas a melhor posição recebida.
+ */
+public class AlertLocationSession {
+
+    /** Origem das posições (fused location no app). */
+    public interface ProvedorLocalizacao {
+        @Nullable
+        LocationFix melhorEmCache();
+
+        /** Pede a posição atual em alta precisão e continua entregando as seguintes. */
+        void iniciarAtualizacoes(Ouvinte ouvinte);
+
+        void pararAtualizacoes();
+    }
+
+    public interface Ouvinte {
+        void onLocalizacao(LocationFix fix);
+    }
+
+    /** Envio para o backend. */
+    public interface Canal {
+        /** @param aoConfirmar chamado quando o backend aceitou o alerta */
+        void enviarAlerta(PanicAlertRequest alerta, Runnable aoConfirmar);
+
+        void enviarLocalizacao(String alertaId, AlertLocationUpdate atualizacao);
+    }
+
+    public interface Relogio {
+        long agoraMs();
+    }
+
+    // Atualização mais nova só vale o envio se passou esse tempo desde a última enviada
+    static final long INTERVALO_MINIMO_ATUALIZACAO_MS = 5_000L;
+    static final long DURACAO_MAXIMA_MS = 15 * 60_000L;
+
+    private final ProvedorLocalizacao provedor;
+    private final Canal canal;
+    private final Relogio relogio;
+
+    private String alertaId;
+    private long inicioMs;
+    private boolean confirmado = false;
+    private boolean encerrada = false;
+    private LocationFix ultimaEnviada;
+    private LocationFix pendente;
+
+    public AlertLocationSession(ProvedorLocalizacao provedor, Canal canal, Relogio relogio) {
+        this.provedor = provedor;
+        this.canal = canal;
+        this.relogio = relogio;
+    }
+
+    /** Preenche a posição do alerta com o cache, envia e começa a acompanhar. */
+    public void iniciar(PanicAlertRequest alerta) {
+        long agora = relogio.agoraMs();
+        LocationFix cache = provedor.melhorEmCache();
+        preencher(alerta, cache, agora);
+
+        synchronized (this) {
+            alertaId = alerta.getAlertaId();
+            inicioMs = agora;
+            ultimaEnviada = cache;
+        }
+        canal.enviarAlerta(alerta, this::onConfirmado);
+        provedor.iniciarAtualizacoes(this::onLocalizacao);
+    }
+
+    public void encerrar() {
+        synchronized (this) {
+            if (encerrada) return;
+            encerrada = true;
+        }
+        provedor.pararAtualizacoes();
+    }
+
+    public synchronized boolean isEncerrada() {
+        return encerrada;
+    }
+
+    private void onConfirmado() {
+        LocationFix enviar;
+        synchronized (this) {
+            confirmado = true;
+            enviar = pendente;
+            pendente = null;
+            if (enviar != null) ultimaEnviada = enviar;
+        }
+        if (enviar != null) enviarAtualizacao(enviar);
+    }
+
+    private void onLocalizacao(LocationFix fix) {
+        long agora = relogio.agoraMs();
+        boolean expirou;
+        synchronized (this) {
+            expirou = agora - inicioMs > DURACAO_MAXIMA_MS;
+        }
+        if (expirou) {
+            encerrar();
+            return;
+        }
+
+        LocationFix enviar = null;
+        synchronized (this) {
+            if (encerrada) return;
+            LocationFix referencia = pendente != null ? pendente : ultimaEnviada;
+            if (!valeEnviar(fix, referencia, agora)) return;
+            if (confirmado) {
+                ultimaEnviada = fix;
+                enviar = fix;
+            } else {
+                pendente = fix;
+            }
+        }
+        if (enviar != null) enviarAtualizacao(enviar);
+    }
+
+    /** Posição mais precisa que a anterior, ou anterior já velha o bastante. */
+    private static boolean valeEnviar(LocationFix novo, @Nullable LocationFix anterior, long agoraMs) {
+        if (anterior == null) return true;
+        if (novo.erroEstimadoM(agoraMs) < anterior.erroEstimadoM(agoraMs)
+                && novo.tempoMs >= anterior.tempoMs) return true;
+        return anterior.temTempo() && novo.tempoMs - anterior.tempoMs >= INTERVALO_MINIMO_ATUALIZACAO_MS;
+    }
+
+    private void enviarAtualizacao(LocationFix fix) {
+        canal.enviarLocalizacao(alertaId, new AlertLocationUpdate(fix.latitude, fix.longitude,
+                fix.temPrecisao() ? fix.precisaoM : null, fix.tempoMs));
+    }
+
+    private static void preencher(PanicAlertRequest alerta, @Nullable LocationFix fix, long agoraMs) {
+        if (fix == null) return; // segue sem posição; a primeira atualização chega depois
+        alerta.setLatitude(fix.latitude);
+        alerta.setLongitude(fix.longitude);
+        alerta.setPrecisaoM(fix.temPrecisao() ? fix.precisaoM : null);
+        alerta.setIdadeLocalizacaoMs(fix.temTempo() ? fix.idadeMs(agoraMs) : null);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.carekeeper.service.alert;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Estado do pânico/alerta compartilhado pelo processo, sem locks.
+ *
+ * O estado é um {@link Snapshot} imutável trocado por compare-and-set; cada troca incrementa
+ * a versão. Observadores recebem as mudanças no executor que escolheram, em lote: se várias
+ * versões acontecem antes da entrega, o observador recebe só a última, junto com a última
+ * que ele já tinha visto.
+ */
+public class PanicStateStore {
+
+    // ===========================================================
+    // =============== SNAPSHOT =================================
+    // ===========================================================
+    public static final class Snapshot {
+        public static final Snapshot INICIAL = new Snapshot(0, false, false, 0f, 0.0, 0.0);
+
+        public final long versao;
+        public final boolean disparado;
+        public final boolean alertaAtivo;
+        public final float progresso;
+        public final double latitude;
+        public final double longitude;
+
+        private Snapshot(long versao, boolean disparado, boolean alertaAtivo,
+                         float progresso, double latitude, double longitude) {
+            this.versao = versao;
+            this.disparado = disparado;
+            this.alertaAtivo = alertaAtivo;
+            this.progresso = progresso;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public Snapshot comDisparado(boolean valor) {
+            return new Snapshot(versao, valor, alertaAtivo, progresso, latitude, longitude);
+        }
+
+        public Snapshot comAlertaAtivo(boolean valor) {
+            return new Snapshot(versao, disparado, valor, progresso, latitude, longitude);
+        }
+
+        public Snapshot comProgresso(float valor) {
+            return new Snapshot(versao, disparado, alertaAtivo, valor, latitude, longitude);
+        }
+
+        public Snapshot comLocalizacao(double lat, double lon) {
+            return new Snapshot(versao, disparado, alertaAtivo, progresso, lat, lon);
+        }
+
+        private Snapshot comVersao(long v) {
+            return new Snapshot(v, disparado, alertaAtivo, progresso, latitude, longitude);
+        }
+
+        private boolean mesmoConteudo(Snapshot o) {
+            return disparado == o.disparado && alertaAtivo == o.alertaAtivo
+                    && progresso == o.progresso && latitude == o.latitude && longitude == o.longitude;
+        }
+    }
+
+    public interface Alteracao {
+        Snapshot aplicar(Snapshot atual);
+    }
+
+    public interface Observador {
+        /** @param anterior último snapshot entregue a este observador */
+        void onMudanca(Snapshot anterior, Snapshot atual);
+    }
+
+    private static final PanicStateStore INSTANCIA = new PanicStateStore();
+
+    private final AtomicReference<Snapshot> estado = new AtomicReference<>(Snapshot.INICIAL);
+    private final List<Inscricao> inscricoes = new CopyOnWriteArrayList<>();
+
+    public static PanicStateStore get() {
+        return INSTANCIA;
+    }
+
+    PanicStateStore() {}
+
+    public Snapshot getAtual() {
+        return estado.get();
+    }
+
+    /**
+     * Aplica a alteração com CAS, repetindo se outra thread mudou o estado no meio.
+     * Alterações que não mudam nada não geram versão nova nem notificação.
+     */
+    public Snapshot atualizar(Alteracao alteracao) {
+        while (true) {
+            Snapshot atual = estado.get();
+            Snapshot novo = alteracao.aplicar(atual);
+            if (novo.mesmoConteudo(atual)) return atual;
+            novo = novo.comVersao(atual.versao + 1);
+            if (estado.compareAndSet(atual, novo)) {
+                for (Inscricao i : inscricoes) i.sinalizar();
+                return novo;
+            }
+        }
+    }
+
+    /** Restaura o estado persistido (início do processo) sem notificar. */
+    public void restaurar(Alteracao alteracao) {
+        estado.updateAndGet(alteracao::aplicar);
+    }
+
+    /** Inscreve um observador; {@code executor} define a thread da entrega. */
+    public Runnable inscrever(Observador observador, Executor executor) {
+        Inscricao inscricao = new Inscricao(observador, executor, estado.get());
+        inscricoes.add(inscricao);
+        return () -> inscricoes.remove(inscricao);
+    }
+
+    // ===========================================================
+    // =============== ENTREGA EM LOTE ==========================
+    // ===========================================================
+    private final class Inscricao implements Runnable {
+        private final Observador observador;
+        private final Executor executor;
+        private final AtomicBoolean agendada = new AtomicBoolean(false);
+        private Snapshot entregue; // só tocado no executor
+
+        Inscricao(Observador observador, Executor executor, Snapshot inicial) {
+            this.observador = observador;
+            this.executor = executor;
+            this.entregue = inicial;
+        }
+
+        void sinalizar() {
+            // Uma entrega pendente por vez: mudanças em rajada viram uma notificação só
+            if (agendada.compareAndSet(false, true)) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            agendada.set(false);
+            Snapshot atual = estado.get();
+            if (atual.versao <= entregue.versao) return;
+            Snapshot anterior = entregue;
+            entregue = atual;
+            observador.onMudanca(anterior, atual);
+        }
+    }
+}
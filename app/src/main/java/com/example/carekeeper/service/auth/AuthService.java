@@ -6,7 +6,8 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.navigation.NavController;
 
-import com.example.carekeeper.dto.auth.LoginResponseDTO;
+import com.example.carekeeper.dto.auth.LoginRequest;
+import com.example.carekeeper.dto.auth.LoginResponse;
 import com.example.carekeeper.network.ApiClient;
 import com.example.carekeeper.network.ApiService;
 import com.example.carekeeper.service.SensorService;
@@ -47,7 +48,8 @@ public class AuthService {
      */
     public void logout(NavController navController) {
         prefs.clearJwtToken();
-        SensorService.stopService(context);
+        TokenRefreshScheduler.getInstance(context).cancelar();
+        SensorService.parar(context);
 
         Toast.makeText(context, "Logout realizado com sucesso!", Toast.LENGTH_SHORT).show();
 
@@ -59,6 +61,7 @@ public class AuthService {
     /** Salva token JWT */
     public void saveToken(@NonNull String token) {
         prefs.saveJwtToken(token);
+        TokenRefreshScheduler.getInstance(context).agendar();
     }
 
     /** Interface de callback para login */
@@ -69,11 +72,11 @@ public class AuthService {
 
     /** Realiza login via API */
     public void login(@NonNull String email, @NonNull String password, @NonNull LoginCallback callback) {
-        api.login(new com.example.carekeeper.dto.auth.LoginRequestDTO(email, password))
+        api.login(new LoginRequest(email, password))
                 .enqueue(new Callback<>() {
                     @Override
-                    public void onResponse(@NonNull Call<LoginResponseDTO> call,
-                                           @NonNull Response<LoginResponseDTO> response) {
+                    public void onResponse(@NonNull Call<LoginResponse> call,
+                                           @NonNull Response<LoginResponse> response) {
                         if (response.isSuccessful() && response.body() != null) {
                             String token = response.body().getToken();
                             if (token != null && !token.isEmpty()) {
@@ -88,7 +91,7 @@ public class AuthService {
                     }
 
                     @Override
-                    public void onFailure(@NonNull Call<LoginResponseDTO> call,
+                    public void onFailure(@NonNull Call<LoginResponse> call,
                                           @NonNull Throwable t) {
                         callback.onFailure("Falha ao conectar ao servidor");
                     }
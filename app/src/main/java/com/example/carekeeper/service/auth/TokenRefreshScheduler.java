@@ -0,0 +1,94 @@
+package com.example.carekeeper.service.auth;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import com.example.carekeeper.service.SharedPreferencesService;
+import com.example.carekeeper.utils.JwtUtils;
+
+/**
+ * Renova o JWT antes que ele expire.
+ *
+ * A renovação é agendada para {@link #ANTECEDENCIA_MS} antes do exp do token atual.
+ * Se falhar, tenta de novo a cada {@link #INTERVALO_NOVA_TENTATIVA_MS} enquanto o token
+ * ainda for válido. Depois de expirado, só um novo login resolve.
+ *
+ * A chamada em si é feita pelo {@link TokenRenewer}, o mesmo usado no tratamento de 401,
+ * então agendador e requisições recusadas nunca renovam o token em paralelo.
+ */
+public class TokenRefreshScheduler {
+
+    private static final String TAG = "TokenRefresh";
+    private static final long ANTECEDENCIA_MS = 5 * 60_000L;
+    private static final long INTERVALO_NOVA_TENTATIVA_MS = 60_000L;
+
+    private static TokenRefreshScheduler instancia;
+
+    private final SharedPreferencesService prefs;
+    private final TokenRenewer renewer;
+    private final Handler handler;
+    private final Runnable renovacao = this::renovar;
+
+    public static synchronized TokenRefreshScheduler getInstance(Context context) {
+        if (instancia == null) {
+            instancia = new TokenRefreshScheduler(context.getApplicationContext());
+        }
+        return instancia;
+    }
+
+    private TokenRefreshScheduler(Context context) {
+        this.prefs = new SharedPreferencesService(context);
+        this.renewer = TokenRenewer.getInstance(prefs);
+        // A renovação é síncrona: roda fora da main thread
+        HandlerThread thread = new HandlerThread("TokenRefresh");
+        thread.start();
+        this.handler = new Handler(thread.getLooper());
+    }
+
+    /** (Re)agenda a renovação a partir do exp do token salvo. */
+    public void agendar() {
+        handler.post(() -> {
+            handler.removeCallbacks(renovacao);
+            String token = prefs.getJwtToken();
+            long exp = JwtUtils.getExpiracao(token);
+            if (exp < 0 || JwtUtils.isTokenExpired(token)) return;
+
+            long atraso = Math.max(0L, exp * 1000L - ANTECEDENCIA_MS - System.currentTimeMillis());
+            handler.postDelayed(renovacao, atraso);
+            Log.i(TAG, "🔑 Renovação do token agendada em " + atraso / 1000 + " s");
+        });
+    }
+
+    /** Renova agora, por exemplo após um 401 inesperado. */
+    public void renovarAgora() {
+        handler.post(() -> {
+            handler.removeCallbacks(renovacao);
+            renovar();
+        });
+    }
+
+    public void cancelar() {
+        handler.removeCallbacks(renovacao);
+    }
+
+    private void renovar() {
+        String token = prefs.getJwtToken();
+        if (token == null || token.isEmpty() || JwtUtils.isTokenExpired(token)) {
+            Log.w(TAG, "🔒 Token ausente ou expirado; é necessário novo login.");
+            return;
+        }
+
+        if (renewer.renovar(token) != null) {
+            agendar();
+        } else {
+            tentarDeNovo();
+        }
+    }
+
+    private void tentarDeNovo() {
+        handler.removeCallbacks(renovacao);
+        handler.postDelayed(renovacao, INTERVALO_NOVA_TENTATIVA_MS);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.carekeeper.service.auth;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.carekeeper.dto.auth.LoginResponse;
+import com.example.carekeeper.network.ApiClient;
+import com.example.carekeeper.network.ApiService;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import retrofit2.Response;
+
+/**
+ * Renovação do JWT em voo único (single-flight).
+ *
+ * Várias threads podem pedir a renovação ao mesmo tempo (401 simultâneos, agendador):
+ * só a primeira chama o backend; as outras esperam no lock, em ordem de chegada,
+ * e recebem o token novo sem nova chamada.
+ */
+public class TokenRenewer {
+
+    /** Onde o JWT fica guardado; no app, o {@link com.example.carekeeper.service.SharedPreferencesService}. */
+    public interface Armazenamento {
+        @Nullable
+        String getJwtToken();
+
+        void saveJwtToken(String token);
+    }
+
+    private static final String TAG = "TokenRenewer";
+    // Evita martelar o backend se a renovação do mesmo token acabou de falhar
+    private static final long ESPERA_APOS_FALHA_MS = 30_000L;
+
+    private static TokenRenewer instancia;
+
+    private final Armazenamento tokens;
+    @Nullable
+    private final ApiService api; // null: cliente sem autenticação do ApiClient
+    private final ReentrantLock lock = new ReentrantLock(true); // justo: libera na ordem de chegada
+
+    private String ultimoTokenComFalha;
+    private long ultimaFalhaMs;
+
+    public static synchronized TokenRenewer getInstance(Armazenamento tokens) {
+        if (instancia == null) {
+            instancia = new TokenRenewer(tokens, null);
+        }
+        return instancia;
+    }
+
+    /** @param api onde chamar {@code auth/refresh}; {@code null} usa o {@link ApiClient#getClient()} */
+    TokenRenewer(Armazenamento tokens, @Nullable ApiService api) {
+        this.tokens = tokens;
+        this.api = api;
+    }
+
+    /**
+     * Garante um token mais novo que {@code tokenUsado}. Bloqueia a thread chamadora.
+     *
+     * @param tokenUsado token que recebeu 401 (ou que está para expirar)
+     * @return token atual a usar, ou null se não foi possível renovar
+     */
+    @Nullable
+    @WorkerThread
+    public String renovar(@Nullable String tokenUsado) {
+        lock.lock();
+        try {
+            String atual = tokens.getJwtToken();
+            if (atual == null || atual.isEmpty()) return null;
+
+            // Outra thread já renovou enquanto esperávamos
+            if (!atual.equals(tokenUsado)) return atual;
+
+            if (atual.equals(ultimoTokenComFalha)
+                    && System.currentTimeMillis() - ultimaFalhaMs < ESPERA_APOS_FALHA_MS) {
+                return null;
+            }
+
+            String novo = chamarBackend(atual);
+            if (novo == null) {
+                ultimoTokenComFalha = atual;
+                ultimaFalhaMs = System.currentTimeMillis();
+                return null;
+            }
+
+            tokens.saveJwtToken(novo);
+            Log.i(TAG, "✅ Token renovado");
+            return novo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Nullable
+    private String chamarBackend(String token) {
+        // Cliente sem autenticação automática: a renovação não pode passar pelo Authenticator
+        ApiService api = this.api != null ? this.api : ApiClient.getClient().create(ApiService.class);
+        try {
+            Response<LoginResponse> response = api.refreshToken("Bearer " + token).execute();
+            if (response.isSuccessful() && response.body() != null) {
+                String novo = response.body().getToken();
+                if (novo != null && !novo.isEmpty()) return novo;
+            }
+            Log.w(TAG, "⚠️ Falha ao renovar token: código HTTP " + response.code());
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Erro ao renovar token: " + e.getMessage());
+        }
+        return null;
+    }
+}
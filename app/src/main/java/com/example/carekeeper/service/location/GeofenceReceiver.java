@@ -0,0 +1,33 @@
+package com.example.carekeeper.service.location;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.example.carekeeper.service.SensorService;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingEvent;
+
+/**
+ * Recebe do sistema a saída da cerca registrada pelo {@link SensorService} e o acorda
+ * para religar o GPS.
+ */
+public class GeofenceReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "GeofenceReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        GeofencingEvent evento = GeofencingEvent.fromIntent(intent);
+        if (evento == null) return;
+        if (evento.hasError()) {
+            Log.w(TAG, "⚠️ Erro da cerca: " + evento.getErrorCode());
+            return;
+        }
+        if (evento.getGeofenceTransition() == Geofence.GEOFENCE_TRANSITION_EXIT) {
+            Log.i(TAG, "🚪 Saída da cerca");
+            SensorService.notificarSaidaCerca(context);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.carekeeper.service.location;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Uma posição conhecida com os metadados necessários para decidir se ainda serve:
+ * quando foi obtida, com que precisão, a velocidade medida e de onde veio.
+ */
+public final class LocationFix {
+
+    public static final float PRECISAO_DESCONHECIDA = -1f;
+    public static final long TEMPO_DESCONHECIDO = 0L;
+    public static final float VELOCIDADE_DESCONHECIDA = -1f;
+
+    // Deslocamento assumido enquanto a posição envelhece (caminhada rápida)
+    private static final double VELOCIDADE_ASSUMIDA_M_S = 1.5;
+    private static final double ERRO_SEM_PRECISAO_M = 1_000.0;
+    private static final double ERRO_SEM_TEMPO_M = 100_000.0;
+    private static final double RAIO_TERRA_M = 6_371_000.0;
+
+    public final double latitude;
+    public final double longitude;
+    public final float precisaoM;
+    public final long tempoMs; // epoch ms
+    public final float velocidadeMps;
+    public final String fonte;
+
+    public LocationFix(double latitude, double longitude, float precisaoM, long tempoMs,
+                       float velocidadeMps, String fonte) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.precisaoM = precisaoM;
+        this.tempoMs = tempoMs;
+        this.velocidadeMps = velocidadeMps;
+        this.fonte = fonte;
+    }
+
+    public boolean temPrecisao() {
+        return precisaoM >= 0f;
+    }
+
+    public boolean temTempo() {
+        return tempoMs != TEMPO_DESCONHECIDO;
+    }
+
+    public long idadeMs(long agoraMs) {
+        return temTempo() ? Math.max(0L, agoraMs - tempoMs) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Raio de erro provável agora: precisão informada mais o quanto a pessoa pode ter andado
+     * (na velocidade medida, se maior que a de caminhada).
+     */
+    public double erroEstimadoM(long agoraMs) {
+        if (!temTempo()) return ERRO_SEM_TEMPO_M;
+        double base = temPrecisao() ? precisaoM : ERRO_SEM_PRECISAO_M;
+        double velocidade = Math.max(VELOCIDADE_ASSUMIDA_M_S, velocidadeMps);
+        return base + velocidade * idadeMs(agoraMs) / 1000.0;
+    }
+
+    /** Distância em metros (aproximação equirretangular, boa para poucos quilômetros). */
+    public static double distanciaM(double lat1, double lon1, double lat2, double lon2) {
+        double latMedia = Math.toRadians((lat1 + lat2) / 2);
+        double dx = Math.toRadians(lon2 - lon1) * Math.cos(latMedia);
+        double dy = Math.toRadians(lat2 - lat1);
+        return RAIO_TERRA_M * Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /** O melhor dos dois para usar agora (nulos são ignorados). */
+    @Nullable
+    public static LocationFix melhor(@Nullable LocationFix a, @Nullable LocationFix b, long agoraMs) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return b.erroEstimadoM(agoraMs) < a.erroEstimadoM(agoraMs) ? b : a;
+    }
+
+    @Override
+    public String toString() {
+        return "LocationFix{" + latitude + ", " + longitude + ", ±" + precisaoM + " m, t=" + tempoMs + ", " + fonte + "}";
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.carekeeper.service.location;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Histórico curto de posições com seleção por idade e precisão.
+ *
+ * Guarda as últimas {@code capacidade} posições recebidas de qualquer origem. A última
+ * posição boa (precisão conhecida e dentro de {@link #PRECISAO_BOA_M}) é entregue à
+ * persistência para sobreviver a um cold start.
+ */
+public class LocationHistory {
+
+    /** Onde a última posição boa sobrevive entre execuções. */
+    public interface Persistencia {
+        @Nullable
+        LocationFix carregar();
+
+        void salvar(LocationFix fix);
+    }
+
+    static final float PRECISAO_BOA_M = 100f;
+
+    private final int capacidade;
+    private final Persistencia persistencia;
+
+    // Protegidos por "this"
+    private final ArrayDeque<LocationFix> fixes;
+    private LocationFix ultimaBoa;
+
+    public LocationHistory(int capacidade, Persistencia persistencia) {
+        this.capacidade = capacidade;
+        this.persistencia = persistencia;
+        this.fixes = new ArrayDeque<>(capacidade);
+        LocationFix salva = persistencia.carregar();
+        if (salva != null) {
+            fixes.addLast(salva);
+            ultimaBoa = salva;
+        }
+    }
+
+    public void registrar(LocationFix fix) {
+        boolean salvar;
+        synchronized (this) {
+            if (fixes.size() == capacidade) fixes.removeFirst();
+            fixes.addLast(fix);
+            salvar = ehBoa(fix) && (ultimaBoa == null || fix.tempoMs >= ultimaBoa.tempoMs);
+            if (salvar) ultimaBoa = fix;
+        }
+        if (salvar) persistencia.salvar(fix);
+    }
+
+    /** A posição com menor erro estimado agora, sem restrições. */
+    @Nullable
+    public LocationFix melhorAgora(long agoraMs) {
+        return melhor(Long.MAX_VALUE, Float.MAX_VALUE, agoraMs);
+    }
+
+    /**
+     * A posição com menor erro estimado entre as que têm no máximo {@code idadeMaximaMs}
+     * e precisão conhecida de até {@code precisaoMaximaM}; null se nenhuma serve.
+     * Com {@code precisaoMaximaM = Float.MAX_VALUE} a precisão não é exigida.
+     */
+    @Nullable
+    public synchronized LocationFix melhor(long idadeMaximaMs, float precisaoMaximaM, long agoraMs) {
+        boolean exigePrecisao = precisaoMaximaM != Float.MAX_VALUE;
+        LocationFix melhor = null;
+        double menorErro = Double.MAX_VALUE;
+        for (LocationFix fix : fixes) {
+            if (fix.idadeMs(agoraMs) > idadeMaximaMs) continue;
+            if (exigePrecisao && (!fix.temPrecisao() || fix.precisaoM > precisaoMaximaM)) continue;
+            double erro = fix.erroEstimadoM(agoraMs);
+            if (erro < menorErro) {
+                menorErro = erro;
+                melhor = fix;
+            }
+        }
+        return melhor;
+    }
+
+    /** A mais recente recebida, qualquer que seja a qualidade. */
+    @Nullable
+    public synchronized LocationFix ultima() {
+        return fixes.peekLast();
+    }
+
+    public synchronized List<LocationFix> historico() {
+        return new ArrayList<>(fixes);
+    }
+
+    private static boolean ehBoa(LocationFix fix) {
+        return fix.temTempo() && fix.temPrecisao() && fix.precisaoM <= PRECISAO_BOA_M;
+    }
+}
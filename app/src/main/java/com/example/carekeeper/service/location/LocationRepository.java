@@ -0,0 +1,89 @@
+package com.example.carekeeper.service.location;
+
+import android.content.Context;
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.carekeeper.service.SharedPreferencesService;
+
+import java.util.List;
+
+/**
+ * Repositório de localização do processo.
+ *
+ * Todas as posições obtidas pelo app (GPS do {@code SensorService}, fused provider dos
+ * alertas) passam por aqui com precisão, horário, velocidade e origem. Cada consumidor
+ * escolhe a que serve pelos próprios critérios de idade e precisão, sem pedir uma nova
+ * posição ao provedor. A última posição boa é persistida pelo
+ * {@link SharedPreferencesService} (gravação adiada) para o próximo início do app.
+ */
+public class LocationRepository {
+
+    private static final int CAPACIDADE_HISTORICO = 20;
+
+    private static LocationRepository instancia;
+
+    private final LocationHistory historico;
+
+    public static synchronized LocationRepository getInstance(Context context) {
+        if (instancia == null) {
+            instancia = new LocationRepository(context.getApplicationContext());
+        }
+        return instancia;
+    }
+
+    private LocationRepository(Context context) {
+        SharedPreferencesService prefs = new SharedPreferencesService(context);
+        this.historico = new LocationHistory(CAPACIDADE_HISTORICO, new LocationHistory.Persistencia() {
+            @Nullable
+            @Override
+            public LocationFix carregar() {
+                return prefs.carregarUltimoFix();
+            }
+
+            @Override
+            public void salvar(LocationFix fix) {
+                prefs.salvarUltimoFix(fix);
+            }
+        });
+    }
+
+    public static LocationFix paraFix(@NonNull Location location, @NonNull String fonte) {
+        return new LocationFix(location.getLatitude(), location.getLongitude(),
+                location.hasAccuracy() ? location.getAccuracy() : LocationFix.PRECISAO_DESCONHECIDA,
+                location.getTime(),
+                location.hasSpeed() ? location.getSpeed() : LocationFix.VELOCIDADE_DESCONHECIDA,
+                fonte);
+    }
+
+    public LocationFix registrar(@NonNull Location location, @NonNull String fonte) {
+        LocationFix fix = paraFix(location, fonte);
+        historico.registrar(fix);
+        return fix;
+    }
+
+    public void registrar(@NonNull LocationFix fix) {
+        historico.registrar(fix);
+    }
+
+    @Nullable
+    public LocationFix melhorAgora() {
+        return historico.melhorAgora(System.currentTimeMillis());
+    }
+
+    @Nullable
+    public LocationFix melhor(long idadeMaximaMs, float precisaoMaximaM) {
+        return historico.melhor(idadeMaximaMs, precisaoMaximaM, System.currentTimeMillis());
+    }
+
+    @Nullable
+    public LocationFix ultima() {
+        return historico.ultima();
+    }
+
+    public List<LocationFix> getHistorico() {
+        return historico.historico();
+    }
+}
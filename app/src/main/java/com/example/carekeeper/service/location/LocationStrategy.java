@@ -0,0 +1,312 @@
+package com.example.carekeeper.service.location;
+
+import androidx.annotation.Nullable;
+
+import com.example.carekeeper.service.monitor.ModoAmostragem;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Decide como obter localização a partir do modo de amostragem e das posições recebidas.
+ *
+ *  - GPS_ALERTA com o alerta ativo
+ *  - GPS em movimento, ou logo depois de sair de uma cerca
+ *  - CERCA parado com uma posição boa e recente: cerca em volta dela (ou do lugar conhecido
+ *    onde ela está), e o GPS só volta quando a pessoa sai
+ *  - PASSIVO parado sem posição boa
+ *
+ * Lugares onde a pessoa fica parada por {@link #PERMANENCIA_LUGAR_CONHECIDO_MS} viram lugares
+ * conhecidos, com cerca fixa. Para cada modo acumula tempo, quantidade e precisão das
+ * posições e, se o aparelho informar, a carga de bateria consumida.
+ */
+public class LocationStrategy {
+
+    /** Notificado quando o modo ou a cerca mudam. */
+    public interface Listener {
+        void onModoAlterado(ModoLocalizacao modo, @Nullable Cerca cerca);
+    }
+
+    /** Contador de carga da bateria em µAh; negativo quando o aparelho não informa. */
+    public interface LeitorBateria {
+        long cargaMicroAh();
+    }
+
+    public static final class Cerca {
+        public final double latitude;
+        public final double longitude;
+        public final float raioM;
+
+        public Cerca(double latitude, double longitude, float raioM) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.raioM = raioM;
+        }
+
+        /** Dentro, dando à posição o benefício da própria imprecisão. */
+        boolean contem(LocationFix fix) {
+            double margem = fix.temPrecisao() ? fix.precisaoM : 0.0;
+            return LocationFix.distanciaM(latitude, longitude, fix.latitude, fix.longitude) - margem <= raioM;
+        }
+    }
+
+    public static final class Metricas {
+        public long tempoMs;
+        public int fixes;
+        public int fixesComPrecisao;
+        public double somaPrecisaoM;
+        public long consumoMicroAh;
+
+        public double getPrecisaoMediaM() {
+            return fixesComPrecisao > 0 ? somaPrecisaoM / fixesComPrecisao : Double.NaN;
+        }
+
+        Metricas copia() {
+            Metricas m = new Metricas();
+            m.tempoMs = tempoMs;
+            m.fixes = fixes;
+            m.fixesComPrecisao = fixesComPrecisao;
+            m.somaPrecisaoM = somaPrecisaoM;
+            m.consumoMicroAh = consumoMicroAh;
+            return m;
+        }
+    }
+
+    static final float PRECISAO_PARA_CERCA_M = 50f;
+    static final float PRECISAO_LUGAR_CONHECIDO_M = 100f;
+    static final long IDADE_MAXIMA_PARA_CERCA_MS = 120_000L;
+    static final float RAIO_CERCA_M = 150f;
+    static final float RAIO_LUGAR_CONHECIDO_M = 200f;
+    static final long PERMANENCIA_LUGAR_CONHECIDO_MS = 30 * 60_000L;
+    static final int MAXIMO_LUGARES_CONHECIDOS = 5;
+    // Depois de sair da cerca, considera parado quando duas posições boas assim ficam próximas
+    static final long TEMPO_PARA_PARADA_MS = 30_000L;
+    static final double DISTANCIA_PARADA_M = 50.0;
+
+    private final Listener listener;
+    private final LeitorBateria bateria;
+    private final Map<ModoLocalizacao, Metricas> metricas = new EnumMap<>(ModoLocalizacao.class);
+    private final List<Cerca> lugaresConhecidos = new ArrayList<>();
+    private int versaoLugares = 0;
+
+    private ModoAmostragem amostragem = ModoAmostragem.MOVIMENTO;
+    private ModoLocalizacao modoAtual;
+    private Cerca cercaAtual;
+    private long modoDesdeMs;
+    private long cargaNoInicioDoModo;
+    private long cercaDesdeMs;
+    private LocationFix ultimaBoa;
+    private boolean saiuDaCerca = false;
+    private LocationFix candidataParada;
+
+    public LocationStrategy(long agoraMs, List<Cerca> lugaresConhecidos, LeitorBateria bateria, Listener listener) {
+        this.listener = listener;
+        this.bateria = bateria;
+        this.lugaresConhecidos.addAll(lugaresConhecidos);
+        for (ModoLocalizacao modo : ModoLocalizacao.values()) metricas.put(modo, new Metricas());
+        this.modoAtual = ModoLocalizacao.GPS;
+        this.modoDesdeMs = agoraMs;
+        this.cargaNoInicioDoModo = bateria.cargaMicroAh();
+    }
+
+    // ===========================================================
+    // =============== ENTRADAS =================================
+    // ===========================================================
+    public void onModoAmostragem(ModoAmostragem modo, long agoraMs) {
+        Runnable notificacao;
+        synchronized (this) {
+            amostragem = modo;
+            if (modo != ModoAmostragem.REPOUSO) saiuDaCerca = false;
+            notificacao = avaliar(agoraMs);
+        }
+        if (notificacao != null) notificacao.run();
+    }
+
+    public void onFix(LocationFix fix, long agoraMs) {
+        Runnable notificacao;
+        synchronized (this) {
+            Metricas m = metricas.get(modoAtual);
+            m.fixes++;
+            if (fix.temPrecisao()) {
+                m.fixesComPrecisao++;
+                m.somaPrecisaoM += fix.precisaoM;
+            }
+
+            // Sem cerca do sistema (ou antes dela disparar), uma posição fora já basta
+            if (cercaAtual != null && !cercaAtual.contem(fix)) sair();
+            else if (saiuDaCerca && ehBoa(fix)) verificarParada(fix);
+
+            if (ehBoa(fix) || ehBoaParaLugarConhecido(fix)) ultimaBoa = fix;
+            notificacao = avaliar(agoraMs);
+        }
+        if (notificacao != null) notificacao.run();
+    }
+
+    /** Evento de saída da cerca entregue pelo sistema. */
+    public void onSaidaCerca(long agoraMs) {
+        Runnable notificacao;
+        synchronized (this) {
+            if (cercaAtual == null) return;
+            sair();
+            notificacao = avaliar(agoraMs);
+        }
+        if (notificacao != null) notificacao.run();
+    }
+
+    /** Reavalia por tempo (posição envelhecendo, permanência em lugar). */
+    public void verificar(long agoraMs) {
+        Runnable notificacao;
+        synchronized (this) {
+            notificacao = avaliar(agoraMs);
+        }
+        if (notificacao != null) notificacao.run();
+    }
+
+    // ===========================================================
+    // =============== SAÍDAS ===================================
+    // ===========================================================
+    public synchronized ModoLocalizacao getModoAtual() {
+        return modoAtual;
+    }
+
+    @Nullable
+    public synchronized Cerca getCercaAtual() {
+        return cercaAtual;
+    }
+
+    public synchronized List<Cerca> getLugaresConhecidos() {
+        return new ArrayList<>(lugaresConhecidos);
+    }
+
+    /** Muda a cada lugar aprendido; quem grava a lista compara para saber se precisa regravar. */
+    public synchronized int getVersaoLugares() {
+        return versaoLugares;
+    }
+
+    /** Cópia das métricas, incluindo o trecho em andamento do modo atual. */
+    public synchronized Map<ModoLocalizacao, Metricas> getMetricas(long agoraMs) {
+        Map<ModoLocalizacao, Metricas> copia = new EnumMap<>(ModoLocalizacao.class);
+        for (Map.Entry<ModoLocalizacao, Metricas> e : metricas.entrySet()) copia.put(e.getKey(), e.getValue().copia());
+        Metricas atual = copia.get(modoAtual);
+        atual.tempoMs += agoraMs - modoDesdeMs;
+        atual.consumoMicroAh += consumoDesde(cargaNoInicioDoModo);
+        return copia;
+    }
+
+    public String resumo(long agoraMs) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<ModoLocalizacao, Metricas> e : getMetricas(agoraMs).entrySet()) {
+            Metricas m = e.getValue();
+            sb.append(String.format(Locale.US, "%s: %d s, %d fixes, precisão média %.1f m, %d µAh%n",
+                    e.getKey(), m.tempoMs / 1000, m.fixes, m.getPrecisaoMediaM(), m.consumoMicroAh));
+        }
+        return sb.toString();
+    }
+
+    // ===========================================================
+    // =============== DECISÃO ==================================
+    // ===========================================================
+    private void sair() {
+        saiuDaCerca = true;
+        candidataParada = null;
+    }
+
+    /** Depois de sair, só volta a cercar quando a pessoa parou de novo (evita GPS↔CERCA em trânsito). */
+    private void verificarParada(LocationFix fix) {
+        if (candidataParada == null
+                || LocationFix.distanciaM(candidataParada.latitude, candidataParada.longitude,
+                fix.latitude, fix.longitude) > DISTANCIA_PARADA_M) {
+            candidataParada = fix;
+        } else if (fix.tempoMs - candidataParada.tempoMs >= TEMPO_PARA_PARADA_MS) {
+            saiuDaCerca = false;
+            candidataParada = null;
+        }
+    }
+
+    /** Chamado com o lock; devolve a notificação a fazer fora dele, se algo mudou. */
+    @Nullable
+    private Runnable avaliar(long agoraMs) {
+        ModoLocalizacao novoModo;
+        Cerca novaCerca = null;
+
+        if (amostragem == ModoAmostragem.ALERTA) {
+            novoModo = ModoLocalizacao.GPS_ALERTA;
+        } else if (amostragem == ModoAmostragem.MOVIMENTO || saiuDaCerca) {
+            novoModo = ModoLocalizacao.GPS;
+        } else if (ultimaBoa != null && ultimaBoa.idadeMs(agoraMs) <= IDADE_MAXIMA_PARA_CERCA_MS) {
+            novoModo = ModoLocalizacao.CERCA;
+            novaCerca = cercaAtual != null && cercaAtual.contem(ultimaBoa) ? cercaAtual : cercaPara(ultimaBoa);
+            novaCerca = aprenderLugar(novaCerca, agoraMs);
+        } else if (cercaAtual != null) {
+            // Parado dentro da cerca: a posição envelhece, mas a cerca continua valendo
+            novoModo = ModoLocalizacao.CERCA;
+            novaCerca = aprenderLugar(cercaAtual, agoraMs);
+        } else {
+            novoModo = ModoLocalizacao.PASSIVO;
+        }
+
+        if (novoModo == modoAtual && novaCerca == cercaAtual) return null;
+
+        trocar(novoModo, novaCerca, agoraMs);
+        final ModoLocalizacao modo = novoModo;
+        final Cerca cerca = novaCerca;
+        return () -> listener.onModoAlterado(modo, cerca);
+    }
+
+    private void trocar(ModoLocalizacao novoModo, @Nullable Cerca novaCerca, long agoraMs) {
+        long carga = bateria.cargaMicroAh();
+        Metricas m = metricas.get(modoAtual);
+        m.tempoMs += agoraMs - modoDesdeMs;
+        m.consumoMicroAh += consumoDesde(cargaNoInicioDoModo, carga);
+
+        if (novaCerca != cercaAtual) cercaDesdeMs = agoraMs;
+        modoAtual = novoModo;
+        cercaAtual = novaCerca;
+        modoDesdeMs = agoraMs;
+        cargaNoInicioDoModo = carga;
+    }
+
+    private long consumoDesde(long cargaInicial) {
+        return consumoDesde(cargaInicial, bateria.cargaMicroAh());
+    }
+
+    /** Carga gasta entre as leituras; zero se desconhecida ou se o aparelho estava carregando. */
+    private static long consumoDesde(long cargaInicial, long cargaFinal) {
+        if (cargaInicial < 0 || cargaFinal < 0) return 0L;
+        return Math.max(0L, cargaInicial - cargaFinal);
+    }
+
+    private Cerca cercaPara(LocationFix fix) {
+        for (Cerca lugar : lugaresConhecidos) {
+            if (lugar.contem(fix)) return lugar;
+        }
+        return new Cerca(fix.latitude, fix.longitude, RAIO_CERCA_M);
+    }
+
+    /** Uma cerca que durou o bastante vira lugar conhecido (casa, trabalho...) e passa a ser usada. */
+    private Cerca aprenderLugar(Cerca cerca, long agoraMs) {
+        if (cerca != cercaAtual || lugaresConhecidos.contains(cerca)) return cerca;
+        if (agoraMs - cercaDesdeMs < PERMANENCIA_LUGAR_CONHECIDO_MS) return cerca;
+
+        Cerca lugar = new Cerca(cerca.latitude, cerca.longitude, RAIO_LUGAR_CONHECIDO_M);
+        if (lugaresConhecidos.size() == MAXIMO_LUGARES_CONHECIDOS) lugaresConhecidos.remove(0);
+        lugaresConhecidos.add(lugar);
+        versaoLugares++;
+        return lugar;
+    }
+
+    private static boolean ehBoa(LocationFix fix) {
+        return fix.temPrecisao() && fix.precisaoM <= PRECISAO_PARA_CERCA_M;
+    }
+
+    private boolean ehBoaParaLugarConhecido(LocationFix fix) {
+        if (!fix.temPrecisao() || fix.precisaoM > PRECISAO_LUGAR_CONHECIDO_M) return false;
+        for (Cerca lugar : lugaresConhecidos) {
+            if (lugar.contem(fix)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.carekeeper.service.location;
+
+/**
+ * Modos de obtenção de localização, do mais econômico ao mais caro.
+ * Intervalo e distância mínima seguem a API de {@code LocationManager.requestLocationUpdates}.
+ */
+public enum ModoLocalizacao {
+
+    /** Parado sem posição boa: só posições de outros apps (passive) e rede em baixa taxa. */
+    PASSIVO(300_000L, 50f),
+
+    /** Parado com posição boa: cerca virtual em volta dela; o GPS só volta ao sair. */
+    CERCA(300_000L, 50f),
+
+    /** Em movimento. */
+    GPS(3_000L, 1f),
+
+    /** Alerta ativo: GPS contínuo. */
+    GPS_ALERTA(1_000L, 0f);
+
+    public final long intervaloMs;
+    public final float distanciaMinimaM;
+
+    ModoLocalizacao(long intervaloMs, float distanciaMinimaM) {
+        this.intervaloMs = intervaloMs;
+        this.distanciaMinimaM = distanciaMinimaM;
+    }
+
+    public boolean usaGps() {
+        return this == GPS || this == GPS_ALERTA;
+    }
+}
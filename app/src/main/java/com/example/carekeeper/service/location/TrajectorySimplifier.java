@@ -0,0 +1,126 @@
+package com.example.carekeeper.service.location;
+
+/**
+ * Simplificação de trajetória em fluxo: recebe as posições em ordem e devolve só as que
+ * precisam ser enviadas. Quem recebe reconstrói as descartadas por interpolação linear no
+ * tempo entre as mantidas, com erro de no máximo {@code toleranciaM} metros.
+ *
+ * É um Douglas-Peucker online (janela que se abre a partir da última posição mantida):
+ * enquanto o segmento âncora → posição nova cobre todas as posições da janela, a janela
+ * cresce; quando deixa de cobrir, a posição anterior é mantida e vira a nova âncora.
+ * A distância usada é a sincronizada no tempo, a mesma da reconstrução.
+ *
+ * Parado, as posições ficam dentro de uma zona morta de {@code toleranciaM / 2} em volta
+ * da âncora e nem chegam a ser comparadas com o segmento.
+ */
+public final class TrajectorySimplifier {
+
+    /** Recebe o índice (ordem de chegada, a partir de 0) de cada posição mantida. */
+    public interface Saida {
+        void onMantida(int indice);
+    }
+
+    private final double toleranciaM;
+    private final double zonaMortaM;
+    private final int janelaMaxima;
+    private final Saida saida;
+
+    // Âncora: última posição mantida
+    private boolean temAncora = false;
+    private double latAncora, lonAncora;
+    private long tempoAncora;
+
+    // Posições depois da âncora ainda não decididas (a última é a candidata a manter)
+    private final double[] lat;
+    private final double[] lon;
+    private final long[] tempo;
+    private final int[] indice;
+    private int tamanho = 0;
+    private boolean janelaNaZonaMorta = true;
+    private final double[] interpolada = new double[2];
+
+    private int proximoIndice = 0;
+
+    public TrajectorySimplifier(double toleranciaM, int janelaMaxima, Saida saida) {
+        if (toleranciaM < 0) throw new IllegalArgumentException("toleranciaM deve ser >= 0");
+        if (janelaMaxima < 1) throw new IllegalArgumentException("janelaMaxima deve ser >= 1");
+        this.toleranciaM = toleranciaM;
+        this.zonaMortaM = toleranciaM / 2;
+        this.janelaMaxima = janelaMaxima;
+        this.saida = saida;
+        this.lat = new double[janelaMaxima];
+        this.lon = new double[janelaMaxima];
+        this.tempo = new long[janelaMaxima];
+        this.indice = new int[janelaMaxima];
+    }
+
+    public void adicionar(double latitude, double longitude, long tempoMs) {
+        int i = proximoIndice++;
+
+        if (!temAncora) {
+            ancorar(latitude, longitude, tempoMs);
+            saida.onMantida(i);
+            return;
+        }
+
+        boolean naZonaMorta = LocationFix.distanciaM(latAncora, lonAncora, latitude, longitude) <= zonaMortaM;
+        // Âncora, janela e posição nova a menos de tol/2 da âncora: o segmento fica a menos de tol de tudo
+        boolean cobre = tamanho == 0
+                || (janelaNaZonaMorta && naZonaMorta)
+                || segmentoCobreJanela(latitude, longitude, tempoMs);
+
+        if (!cobre || tamanho == janelaMaxima) {
+            int ultima = tamanho - 1;
+            ancorar(lat[ultima], lon[ultima], tempo[ultima]);
+            saida.onMantida(indice[ultima]);
+            tamanho = 0;
+            janelaNaZonaMorta = true;
+            naZonaMorta = LocationFix.distanciaM(latAncora, lonAncora, latitude, longitude) <= zonaMortaM;
+        }
+
+        lat[tamanho] = latitude;
+        lon[tamanho] = longitude;
+        tempo[tamanho] = tempoMs;
+        indice[tamanho] = i;
+        tamanho++;
+        janelaNaZonaMorta &= naZonaMorta;
+    }
+
+    /** Mantém a posição pendente e recomeça: a próxima posição abre um trecho novo. */
+    public void fechar() {
+        if (tamanho > 0) saida.onMantida(indice[tamanho - 1]);
+        tamanho = 0;
+        temAncora = false;
+        janelaNaZonaMorta = true;
+    }
+
+    public double getToleranciaM() {
+        return toleranciaM;
+    }
+
+    /**
+     * Posição no instante {@code t} do segmento (t1 → t2), como o receptor reconstrói.
+     * Grava latitude e longitude em {@code destino}.
+     */
+    public static void interpolar(double lat1, double lon1, long t1, double lat2, double lon2, long t2,
+                                  long t, double[] destino) {
+        double r = t2 == t1 ? 0.0 : (double) (t - t1) / (t2 - t1);
+        destino[0] = lat1 + (lat2 - lat1) * r;
+        destino[1] = lon1 + (lon2 - lon1) * r;
+    }
+
+    private boolean segmentoCobreJanela(double latitude, double longitude, long tempoMs) {
+        for (int k = 0; k < tamanho; k++) {
+            interpolar(latAncora, lonAncora, tempoAncora, latitude, longitude, tempoMs, tempo[k], interpolada);
+            if (LocationFix.distanciaM(interpolada[0], interpolada[1], lat[k], lon[k]) > toleranciaM) return false;
+        }
+        return true;
+    }
+
+    private void ancorar(double latitude, double longitude, long tempoMs) {
+        temAncora = true;
+        latAncora = latitude;
+        lonAncora = longitude;
+        tempoAncora = tempoMs;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.carekeeper.service.monitor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decide o modo de amostragem a partir do movimento do aparelho e do estado do alerta.
+ *
+ *  - ALERTA sempre que o alerta estiver ativo
+ *  - MOVIMENTO enquanto houver aceleração fora da gravidade nos últimos segundos
+ *  - REPOUSO depois de um período sem movimento
+ *
+ * Também acumula o tempo gasto em cada modo para medir o efeito em bateria e CPU.
+ */
+public class AdaptiveSamplingController {
+
+    /** Notificado sempre que o modo muda. */
+    public interface Listener {
+        void onModoAlterado(ModoAmostragem novoModo);
+    }
+
+    private static final double GRAVIDADE = 9.80665;
+    private static final double LIMIAR_MOVIMENTO = 1.5;      // m/s² de desvio da gravidade
+    private static final long TEMPO_PARA_REPOUSO_MS = 60_000L;
+
+    private final Listener listener;
+    private final Map<ModoAmostragem, Long> tempoPorModoMs = new EnumMap<>(ModoAmostragem.class);
+
+    private ModoAmostragem modoAtual = ModoAmostragem.MOVIMENTO;
+    private long modoDesdeMs;
+    private long ultimoMovimentoMs;
+    private boolean alertaAtivo = false;
+
+    public AdaptiveSamplingController(long agoraMs, Listener listener) {
+        this.listener = listener;
+        this.modoDesdeMs = agoraMs;
+        this.ultimoMovimentoMs = agoraMs;
+        for (ModoAmostragem modo : ModoAmostragem.values()) tempoPorModoMs.put(modo, 0L);
+    }
+
+    // ===========================================================
+    // =============== ENTRADAS =================================
+    // ===========================================================
+    public void onAceleracao(double x, double y, double z, long agoraMs) {
+        double desvio = Math.abs(Math.sqrt(x * x + y * y + z * z) - GRAVIDADE);
+        ModoAmostragem novoModo;
+        synchronized (this) {
+            if (desvio > LIMIAR_MOVIMENTO) ultimoMovimentoMs = agoraMs;
+            novoModo = avaliar(agoraMs);
+        }
+        if (novoModo != null) listener.onModoAlterado(novoModo);
+    }
+
+    /** Evento do sensor de movimento significativo (acorda o modo REPOUSO na hora). */
+    public void onMovimentoSignificativo(long agoraMs) {
+        ModoAmostragem novoModo;
+        synchronized (this) {
+            ultimoMovimentoMs = agoraMs;
+            novoModo = avaliar(agoraMs);
+        }
+        if (novoModo != null) listener.onModoAlterado(novoModo);
+    }
+
+    public void setAlertaAtivo(boolean ativo, long agoraMs) {
+        ModoAmostragem novoModo;
+        synchronized (this) {
+            alertaAtivo = ativo;
+            novoModo = avaliar(agoraMs);
+        }
+        if (novoModo != null) listener.onModoAlterado(novoModo);
+    }
+
+    /** Reavalia o modo sem nova amostra (ex.: tick periódico). */
+    public void verificar(long agoraMs) {
+        ModoAmostragem novoModo;
+        synchronized (this) {
+            novoModo = avaliar(agoraMs);
+        }
+        if (novoModo != null) listener.onModoAlterado(novoModo);
+    }
+
+    // ===========================================================
+    // =============== ESTADO ===================================
+    // ===========================================================
+    public synchronized ModoAmostragem getModoAtual() {
+        return modoAtual;
+    }
+
+    /** Tempo acumulado em cada modo, incluindo o período em andamento. */
+    public synchronized Map<ModoAmostragem, Long> getTempoPorModoMs(long agoraMs) {
+        Map<ModoAmostragem, Long> copia = new EnumMap<>(tempoPorModoMs);
+        copia.put(modoAtual, copia.get(modoAtual) + (agoraMs - modoDesdeMs));
+        return copia;
+    }
+
+    /** Retorna o novo modo quando houve mudança, ou null. */
+    private ModoAmostragem avaliar(long agoraMs) {
+        ModoAmostragem novo;
+        if (alertaAtivo) novo = ModoAmostragem.ALERTA;
+        else if (agoraMs - ultimoMovimentoMs < TEMPO_PARA_REPOUSO_MS) novo = ModoAmostragem.MOVIMENTO;
+        else novo = ModoAmostragem.REPOUSO;
+
+        if (novo == modoAtual) return null;
+
+        tempoPorModoMs.put(modoAtual, tempoPorModoMs.get(modoAtual) + (agoraMs - modoDesdeMs));
+        modoAtual = novo;
+        modoDesdeMs = agoraMs;
+        return novo;
+    }
+}
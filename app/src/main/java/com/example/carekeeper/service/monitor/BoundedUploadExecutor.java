@@ -0,0 +1,58 @@
+package com.example.carekeeper.service.monitor;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor de envios com fila limitada.
+ *
+ * Quando a rede fica para trás e a fila enche, {@link #submeter} devolve false na hora em vez
+ * de bloquear quem produz as leituras; o chamador decide o que fazer com o excedente.
+ */
+public class BoundedUploadExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger rejeitadas = new AtomicInteger();
+
+    public BoundedUploadExecutor(String nome, int threads, int filaMaxima) {
+        AtomicInteger contador = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(filaMaxima),
+                r -> {
+                    Thread t = new Thread(r, nome + "-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /** @return false se a fila estiver cheia (backpressure) ou o executor encerrado */
+    public boolean submeter(Runnable tarefa) {
+        try {
+            executor.execute(tarefa);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejeitadas.incrementAndGet();
+            return false;
+        }
+    }
+
+    /** Tarefas aguardando ou em execução. */
+    public int getPendentes() {
+        return executor.getQueue().size() + executor.getActiveCount();
+    }
+
+    public int getRejeitadas() {
+        return rejeitadas.get();
+    }
+
+    public void encerrar() {
+        executor.shutdown();
+    }
+}
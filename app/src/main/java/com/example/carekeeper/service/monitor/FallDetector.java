@@ -0,0 +1,112 @@
+package com.example.carekeeper.service.monitor;
+
+/**
+ * Detector de quedas em streaming sobre as amostras do acelerômetro.
+ *
+ * Uma queda é confirmada pela sequência:
+ *  1. queda livre: módulo da aceleração abaixo de ~0,5 g por um tempo mínimo
+ *  2. impacto: pico acima de ~2,5 g logo após a queda livre
+ *  3. imobilidade: pouca variação em torno de 1 g na janela após o impacto
+ *
+ * As amostras recentes ficam em um ring buffer de primitivos pré-alocado;
+ * {@link #onAmostra} não aloca memória.
+ */
+public class FallDetector {
+
+    /** Notificado quando uma queda é confirmada. */
+    public interface Listener {
+        void onQuedaDetectada(long timestampMs, float picoImpacto);
+    }
+
+    private static final float GRAVIDADE = 9.80665f;
+    private static final float LIMIAR_QUEDA_LIVRE = 0.5f * GRAVIDADE;
+    private static final float LIMIAR_IMPACTO = 2.5f * GRAVIDADE;
+    private static final float TOLERANCIA_IMOBILIDADE = 1.5f;     // m/s² em torno da gravidade
+
+    private static final long QUEDA_LIVRE_MINIMA_MS = 60L;
+    private static final long JANELA_IMPACTO_MS = 1_000L;
+    private static final long ACOMODACAO_MS = 500L;
+    private static final long JANELA_IMOBILIDADE_MS = 2_000L;
+
+    private static final int CAPACIDADE = 512; // ~10 s a 50 Hz
+
+    private enum Estado { NORMAL, QUEDA_LIVRE, IMPACTO }
+
+    private final Listener listener;
+
+    // Ring buffer de primitivos
+    private final float[] modulos = new float[CAPACIDADE];
+    private final long[] tempos = new long[CAPACIDADE];
+    private int proximo = 0;
+    private int tamanho = 0;
+
+    private Estado estado = Estado.NORMAL;
+    private long inicioQuedaLivreMs = -1L;
+    private long impactoMs;
+    private float picoImpacto;
+
+    public FallDetector(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Processa uma amostra do acelerômetro (m/s²) com timestamp em milissegundos. */
+    public void onAmostra(float x, float y, float z, long timestampMs) {
+        float modulo = (float) Math.sqrt(x * x + y * y + z * z);
+        modulos[proximo] = modulo;
+        tempos[proximo] = timestampMs;
+        proximo = (proximo + 1) % CAPACIDADE;
+        if (tamanho < CAPACIDADE) tamanho++;
+
+        switch (estado) {
+            case NORMAL:
+                if (modulo < LIMIAR_QUEDA_LIVRE) {
+                    if (inicioQuedaLivreMs < 0) inicioQuedaLivreMs = timestampMs;
+                    if (timestampMs - inicioQuedaLivreMs >= QUEDA_LIVRE_MINIMA_MS) estado = Estado.QUEDA_LIVRE;
+                } else {
+                    inicioQuedaLivreMs = -1L;
+                }
+                break;
+
+            case QUEDA_LIVRE:
+                if (modulo > LIMIAR_IMPACTO) {
+                    estado = Estado.IMPACTO;
+                    impactoMs = timestampMs;
+                    picoImpacto = modulo;
+                } else if (timestampMs - inicioQuedaLivreMs > JANELA_IMPACTO_MS) {
+                    reiniciar();
+                }
+                break;
+
+            case IMPACTO:
+                if (timestampMs - impactoMs <= ACOMODACAO_MS) {
+                    if (modulo > picoImpacto) picoImpacto = modulo;
+                } else if (timestampMs - impactoMs >= ACOMODACAO_MS + JANELA_IMOBILIDADE_MS) {
+                    if (imovelDesde(impactoMs + ACOMODACAO_MS)) {
+                        listener.onQuedaDetectada(timestampMs, picoImpacto);
+                    }
+                    reiniciar();
+                } else if (Math.abs(modulo - GRAVIDADE) > TOLERANCIA_IMOBILIDADE * 3) {
+                    // Movimento forte após o impacto: a pessoa se levantou ou o aparelho foi pego
+                    reiniciar();
+                }
+                break;
+        }
+    }
+
+    private boolean imovelDesde(long desdeMs) {
+        int amostras = 0;
+        for (int i = 1; i <= tamanho; i++) {
+            int indice = (proximo - i + CAPACIDADE) % CAPACIDADE;
+            if (tempos[indice] < desdeMs) break;
+            if (Math.abs(modulos[indice] - GRAVIDADE) > TOLERANCIA_IMOBILIDADE) return false;
+            amostras++;
+        }
+        return amostras > 0;
+    }
+
+    private void reiniciar() {
+        estado = Estado.NORMAL;
+        inicioQuedaLivreMs = -1L;
+        picoImpacto = 0f;
+    }
+}
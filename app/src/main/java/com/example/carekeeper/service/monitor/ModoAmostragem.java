@@ -0,0 +1,34 @@
+package com.example.carekeeper.service.monitor;
+
+/**
+ * Perfis de amostragem dos sensores.
+ * Períodos em microssegundos seguem a API de {@code SensorManager.registerListener}.
+ * A localização tem seus próprios modos ({@code ModoLocalizacao}), derivados deste.
+ *
+ * O acelerômetro nunca fica abaixo de 50 Hz: é o mínimo para o {@link FallDetector} ver a
+ * queda livre (>= 60 ms) e o pico do impacto, e uma queda pode começar com o aparelho parado.
+ */
+public enum ModoAmostragem {
+
+    /**
+     * Aparelho parado: giroscópio em taxa baixa; acelerômetro a 50 Hz, mas com os eventos
+     * acumulados no FIFO do hardware (batching) para o processador continuar dormindo.
+     */
+    REPOUSO(20_000, 1_000_000, 5_000_000),
+
+    /** Uso normal com movimento detectado. */
+    MOVIMENTO(20_000, 20_000, 0),
+
+    /** Alerta ativo: taxa máxima. */
+    ALERTA(10_000, 10_000, 0);
+
+    public final int periodoAcelerometroUs;
+    public final int periodoGiroscopioUs;
+    public final int latenciaMaximaUs;
+
+    ModoAmostragem(int periodoAcelerometroUs, int periodoGiroscopioUs, int latenciaMaximaUs) {
+        this.periodoAcelerometroUs = periodoAcelerometroUs;
+        this.periodoGiroscopioUs = periodoGiroscopioUs;
+        this.latenciaMaximaUs = latenciaMaximaUs;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.dto.SensorWindowDTO;
+import com.example.carekeeper.service.location.LocationFix;
+
+/**
+ * Suprime leituras que não mudaram em relação à última enviada (celular em repouso).
+ *
+ * A leitura seguinte que sair leva em {@code repeticoes} quantas foram suprimidas antes
+ * dela; o servidor as reconstrói repetindo a anterior (RLE). Mesmo sem mudança, uma leitura
+ * sai a cada {@code heartbeatMs}, para o servidor distinguir "parado" de "sem sinal".
+ *
+ * Compara sempre com a última enviada, não com a anterior, para mudanças lentas não
+ * passarem despercebidas. Além das médias entram as janelas: mínimo, máximo e desvio
+ * padrão por eixo e o pico de jerk. Um pico curto ou um tremor quase não mexem na média,
+ * mas mudam os extremos da janela, e essa leitura precisa chegar ao servidor.
+ * Usado só pela AgregacaoThread.
+ */
+public class ReadingDeduplicator {
+
+    private final double limiarAceleracao;
+    private final double limiarGiro;
+    private final double limiarPosicaoM;
+    private final double limiarJerkAceleracao;
+    private final double limiarJerkGiro;
+    private final long heartbeatMs;
+
+    private SensorDTO ultimaEnviada;
+    private int suprimidas = 0;
+    private long totalSuprimidas = 0;
+
+    public ReadingDeduplicator(double limiarAceleracao, double limiarGiro, double limiarPosicaoM,
+                               double limiarJerkAceleracao, double limiarJerkGiro, long heartbeatMs) {
+        this.limiarAceleracao = limiarAceleracao;
+        this.limiarGiro = limiarGiro;
+        this.limiarPosicaoM = limiarPosicaoM;
+        this.limiarJerkAceleracao = limiarJerkAceleracao;
+        this.limiarJerkGiro = limiarJerkGiro;
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    /**
+     * @param sempreEnviar alerta ativo: nada é suprimido
+     * @return true se a leitura deve ser enviada (com {@code repeticoes} preenchido se houve supressão)
+     */
+    public boolean filtrar(SensorDTO leitura, boolean sempreEnviar) {
+        if (!sempreEnviar && ultimaEnviada != null
+                && leitura.getTimestamp() - ultimaEnviada.getTimestamp() < heartbeatMs
+                && semMudanca(ultimaEnviada, leitura)) {
+            suprimidas++;
+            totalSuprimidas++;
+            return false;
+        }
+        if (suprimidas > 0) leitura.setRepeticoes(suprimidas);
+        suprimidas = 0;
+        ultimaEnviada = leitura;
+        return true;
+    }
+
+    public long getTotalSuprimidas() {
+        return totalSuprimidas;
+    }
+
+    private boolean semMudanca(SensorDTO a, SensorDTO b) {
+        return Math.abs(a.getAccelerometerX() - b.getAccelerometerX()) <= limiarAceleracao
+                && Math.abs(a.getAccelerometerY() - b.getAccelerometerY()) <= limiarAceleracao
+                && Math.abs(a.getAccelerometerZ() - b.getAccelerometerZ()) <= limiarAceleracao
+                && Math.abs(a.getGyroscopeX() - b.getGyroscopeX()) <= limiarGiro
+                && Math.abs(a.getGyroscopeY() - b.getGyroscopeY()) <= limiarGiro
+                && Math.abs(a.getGyroscopeZ() - b.getGyroscopeZ()) <= limiarGiro
+                && LocationFix.distanciaM(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude()) <= limiarPosicaoM
+                && janelaSemMudanca(a.getJanelaAcelerometro(), b.getJanelaAcelerometro(), limiarAceleracao, limiarJerkAceleracao)
+                && janelaSemMudanca(a.getJanelaGiroscopio(), b.getJanelaGiroscopio(), limiarGiro, limiarJerkGiro);
+    }
+
+    private static boolean janelaSemMudanca(SensorWindowDTO a, SensorWindowDTO b, double limiar, double limiarJerk) {
+        if (a == null || b == null) return a == b;
+        for (int eixo = 0; eixo < 3; eixo++) {
+            if (Math.abs(a.getMinimo()[eixo] - b.getMinimo()[eixo]) > limiar
+                    || Math.abs(a.getMaximo()[eixo] - b.getMaximo()[eixo]) > limiar
+                    || Math.abs(Math.sqrt(a.getVariancia()[eixo]) - Math.sqrt(b.getVariancia()[eixo])) > limiar) {
+                return false;
+            }
+        }
+        return Math.abs(a.getPicoJerk() - b.getPicoJerk()) <= limiarJerk;
+    }
+}
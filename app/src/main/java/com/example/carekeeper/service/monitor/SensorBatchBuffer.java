@@ -0,0 +1,107 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buffer em memória que agrupa leituras de sensores em lotes.
+ * O lote é descarregado quando:
+ *  - atinge o tamanho máximo
+ *  - a leitura mais antiga ultrapassa a latência máxima
+ *  - o estado do alerta muda (o lote anterior sai na hora)
+ */
+public class SensorBatchBuffer {
+
+    /** Recebe cada lote pronto para envio. */
+    public interface FlushListener {
+        void onFlush(List<SensorDTO> lote, boolean isAlertActive);
+    }
+
+    private final FlushListener listener;
+    private int tamanhoMaximo;
+    private long latenciaMaximaMs;
+
+    private final List<SensorDTO> pendentes = new ArrayList<>();
+    private long primeiraLeituraEmMs = -1L;
+    private boolean alertaAtual = false;
+
+    public SensorBatchBuffer(int tamanhoMaximo, long latenciaMaximaMs, FlushListener listener) {
+        if (tamanhoMaximo < 1) throw new IllegalArgumentException("tamanhoMaximo deve ser >= 1");
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.latenciaMaximaMs = latenciaMaximaMs;
+        this.listener = listener;
+    }
+
+    /**
+     * Adiciona uma leitura ao lote atual.
+     * Se o alerta mudou de estado, o lote pendente é enviado antes e a nova leitura sai imediatamente.
+     */
+    public void adicionar(SensorDTO leitura, boolean isAlertActive, long agoraMs) {
+        List<SensorDTO> loteAnterior = null;
+        boolean alertaAnterior;
+        List<SensorDTO> lote = null;
+
+        synchronized (this) {
+            alertaAnterior = alertaAtual;
+            boolean mudouAlerta = isAlertActive != alertaAtual;
+            if (mudouAlerta && !pendentes.isEmpty()) loteAnterior = drenar();
+            alertaAtual = isAlertActive;
+
+            if (pendentes.isEmpty()) primeiraLeituraEmMs = agoraMs;
+            pendentes.add(leitura);
+
+            if (mudouAlerta || pendentes.size() >= tamanhoMaximo
+                    || agoraMs - primeiraLeituraEmMs >= latenciaMaximaMs) {
+                lote = drenar();
+            }
+        }
+
+        // Listener é chamado fora do lock para não bloquear o produtor durante o envio
+        if (loteAnterior != null) listener.onFlush(loteAnterior, alertaAnterior);
+        if (lote != null) listener.onFlush(lote, isAlertActive);
+    }
+
+    /** Verifica o prazo de latência máxima sem adicionar leitura. */
+    public void verificarPrazo(long agoraMs) {
+        List<SensorDTO> lote = null;
+        boolean alertaDoLote;
+        synchronized (this) {
+            if (!pendentes.isEmpty() && agoraMs - primeiraLeituraEmMs >= latenciaMaximaMs) {
+                lote = drenar();
+            }
+            alertaDoLote = alertaAtual;
+        }
+        if (lote != null) listener.onFlush(lote, alertaDoLote);
+    }
+
+    /** Envia imediatamente tudo o que estiver pendente. */
+    public void descarregar() {
+        List<SensorDTO> lote = null;
+        boolean alertaDoLote;
+        synchronized (this) {
+            if (!pendentes.isEmpty()) lote = drenar();
+            alertaDoLote = alertaAtual;
+        }
+        if (lote != null) listener.onFlush(lote, alertaDoLote);
+    }
+
+    /** Ajusta os limites do lote em tempo de execução. */
+    public synchronized void configurar(int tamanhoMaximo, long latenciaMaximaMs) {
+        if (tamanhoMaximo < 1) throw new IllegalArgumentException("tamanhoMaximo deve ser >= 1");
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.latenciaMaximaMs = latenciaMaximaMs;
+    }
+
+    public synchronized int getPendentes() {
+        return pendentes.size();
+    }
+
+    private List<SensorDTO> drenar() {
+        List<SensorDTO> lote = new ArrayList<>(pendentes);
+        pendentes.clear();
+        primeiraLeituraEmMs = -1L;
+        return lote;
+    }
+}
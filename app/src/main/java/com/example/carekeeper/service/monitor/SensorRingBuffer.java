@@ -0,0 +1,104 @@
+package com.example.carekeeper.service.monitor;
+
+/**
+ * Ring buffer pré-alocado de amostras de um sensor de três eixos.
+ *
+ * Um único escritor (a thread do sensor) grava sem locks nem alocação. Leitores de outras
+ * threads tiram snapshots para arrays fornecidos por eles: o contador volátil de escritas
+ * publica cada amostra, e o leitor descarta o que foi sobrescrito durante a cópia.
+ */
+public class SensorRingBuffer {
+
+    private static final int EIXOS = 3;
+
+    private final int capacidade;
+    private final long[] tempos;
+    private final double[] valores;
+
+    /** Total de amostras já publicadas. Só o escritor incrementa. */
+    private volatile long escritas = 0L;
+
+    public SensorRingBuffer(int capacidade) {
+        if (capacidade < 2) throw new IllegalArgumentException("capacidade deve ser >= 2");
+        this.capacidade = capacidade;
+        this.tempos = new long[capacidade];
+        this.valores = new double[capacidade * EIXOS];
+    }
+
+    // ===========================================================
+    // =============== ESCRITA (thread única) ===================
+    // ===========================================================
+    public void escrever(long timestampMs, float x, float y, float z) {
+        long n = escritas;
+        int slot = (int) (n % capacidade);
+        tempos[slot] = timestampMs;
+        int base = slot * EIXOS;
+        valores[base] = x;
+        valores[base + 1] = y;
+        valores[base + 2] = z;
+        escritas = n + 1; // publica a amostra
+    }
+
+    // ===========================================================
+    // =============== LEITURA (qualquer thread) ================
+    // ===========================================================
+    /**
+     * Copia a amostra mais recente para {@code destino[0..2]}.
+     *
+     * @return timestamp da amostra, ou -1 se ainda não houver nenhuma
+     */
+    public long ultima(double[] destino) {
+        while (true) {
+            long n = escritas;
+            if (n == 0) return -1L;
+            int slot = (int) ((n - 1) % capacidade);
+            int base = slot * EIXOS;
+            long ts = tempos[slot];
+            destino[0] = valores[base];
+            destino[1] = valores[base + 1];
+            destino[2] = valores[base + 2];
+            // Se o escritor deu a volta no buffer durante a cópia, tenta de novo
+            if (escritas - n < capacidade - 1) return ts;
+        }
+    }
+
+    /**
+     * Copia as amostras com timestamp &gt;= {@code desdeMs}, da mais antiga para a mais recente.
+     * {@code valoresDestino} recebe três posições por amostra.
+     *
+     * @return quantidade de amostras copiadas
+     */
+    public int copiarDesde(long desdeMs, long[] temposDestino, double[] valoresDestino) {
+        int maximo = Math.min(temposDestino.length, valoresDestino.length / EIXOS);
+        long fim = escritas;
+        long inicio = Math.max(0L, fim - (capacidade - 1));
+
+        // Procura a primeira amostra dentro da janela, de trás para frente
+        long primeira = fim;
+        while (primeira > inicio && primeira > fim - maximo && tempos[(int) ((primeira - 1) % capacidade)] >= desdeMs) {
+            primeira--;
+        }
+
+        int copiadas = 0;
+        for (long i = primeira; i < fim; i++) {
+            int slot = (int) (i % capacidade);
+            temposDestino[copiadas] = tempos[slot];
+            System.arraycopy(valores, slot * EIXOS, valoresDestino, copiadas * EIXOS, EIXOS);
+            copiadas++;
+        }
+
+        // Amostras sobrescritas durante a cópia são descartadas do início
+        long sobrescritas = (escritas - (capacidade - 1)) - primeira;
+        if (sobrescritas > 0) {
+            int descartar = (int) Math.min(sobrescritas, copiadas);
+            System.arraycopy(temposDestino, descartar, temposDestino, 0, copiadas - descartar);
+            System.arraycopy(valoresDestino, descartar * EIXOS, valoresDestino, 0, (copiadas - descartar) * EIXOS);
+            copiadas -= descartar;
+        }
+        return copiadas;
+    }
+
+    public long getEscritas() {
+        return escritas;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorDTO;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Estado do envio de lotes por uma conexão persistente (o canal em si é o
+ * {@code SensorStreamChannel}).
+ *
+ * Cada lote recebe um número de sequência e fica pendente até o servidor confirmar (ack
+ * cumulativo). Ao reconectar, o servidor informa a última sequência que recebeu e o resto
+ * é reenviado em ordem. Sem conexão por mais de {@code prazoReconexaoMs}, ou com pendentes
+ * demais, os lotes seguem pela {@link Reserva} (o REST de sempre) até o canal voltar.
+ *
+ * Os pendentes também vão para um {@link Diario} durável antes do socket, e o ack o trunca.
+ * Se o processo morrer com quadros sem ack, a próxima sessão os manda pela reserva ao ser
+ * criada; o que o servidor já tinha recebido é descartado lá pela chave de idempotência.
+ */
+public class StreamUplinkSession {
+
+    /** Conexão aberta; só enfileira o quadro, sem bloquear. */
+    public interface Conexao {
+        void enviar(long seq, List<SensorDTO> lote, boolean isAlertActive);
+    }
+
+    /** Caminho alternativo para lotes que não vão pelo canal. */
+    public interface Reserva {
+        void enviar(List<SensorDTO> lote, boolean isAlertActive);
+    }
+
+    /** Cópia em disco dos quadros ainda sem ack. */
+    public interface Diario {
+        /** Precisa estar no disco quando retorna: o quadro só vai para o socket depois. */
+        void gravar(Quadro quadro) throws IOException;
+
+        /** Quadros até {@code seq}, inclusive, não precisam mais ser guardados. */
+        void confirmar(long seq) throws IOException;
+
+        /** Quadros gravados e não confirmados por uma execução anterior, em ordem. */
+        List<Quadro> recuperar() throws IOException;
+    }
+
+    public static final class Quadro {
+        public final long seq;
+        public final List<SensorDTO> lote;
+        public final boolean ativo;
+
+        public Quadro(long seq, List<SensorDTO> lote, boolean ativo) {
+            this.seq = seq;
+            this.lote = lote;
+            this.ativo = ativo;
+        }
+    }
+
+    private final int maxPendentes;
+    private final long prazoReconexaoMs;
+    private final Diario diario;
+    private final Reserva reserva;
+
+    private final ArrayDeque<Quadro> pendentes = new ArrayDeque<>();
+    private Conexao conexao;             // null = desconectado
+    private boolean retomado = false;    // servidor já informou de onde continuar
+    private boolean usandoReserva = true;
+    private long desconectadoDesdeMs = -1L;
+    private long proximaSeq = 1;
+
+    private long quadrosEnviados, quadrosReenviados, quadrosConfirmados, lotesPelaReserva;
+    private long quadrosRecuperados, falhasDiario;
+
+    public StreamUplinkSession(int maxPendentes, long prazoReconexaoMs, Diario diario, Reserva reserva) {
+        if (maxPendentes < 1) throw new IllegalArgumentException("maxPendentes deve ser >= 1");
+        this.maxPendentes = maxPendentes;
+        this.prazoReconexaoMs = prazoReconexaoMs;
+        this.diario = diario;
+        this.reserva = reserva;
+
+        // Antes de qualquer quadro novo: o confirmar cumulativo abaixo não pode alcançá-los
+        List<Quadro> anteriores;
+        try {
+            anteriores = diario.recuperar();
+        } catch (IOException e) {
+            falhasDiario++;
+            anteriores = Collections.emptyList();
+        }
+        quadrosRecuperados = anteriores.size();
+        lotesPelaReserva += anteriores.size();
+        desviar(anteriores);
+    }
+
+    // ===========================================================
+    // =============== ENVIO ====================================
+    // ===========================================================
+    public void enviarLote(List<SensorDTO> lote, boolean isAlertActive) {
+        List<Quadro> desviados = new ArrayList<>();
+        boolean pelaReserva;
+        synchronized (this) {
+            pelaReserva = usandoReserva;
+            if (!pelaReserva) {
+                Quadro quadro = new Quadro(proximaSeq++, lote, isAlertActive);
+                gravar(quadro);
+                pendentes.addLast(quadro);
+                if (conexao != null && retomado) {
+                    conexao.enviar(quadro.seq, quadro.lote, quadro.ativo);
+                    quadrosEnviados++;
+                }
+                // Servidor não confirma: os mais antigos saem pelo REST
+                while (pendentes.size() > maxPendentes) desviados.add(pendentes.removeFirst());
+                lotesPelaReserva += desviados.size();
+            } else {
+                lotesPelaReserva++;
+            }
+        }
+        if (pelaReserva) reserva.enviar(lote, isAlertActive);
+        desviar(desviados);
+    }
+
+    // ===========================================================
+    // =============== EVENTOS DO CANAL =========================
+    // ===========================================================
+    /** Conexão aberta; os envios esperam o {@link #onRetomar}. */
+    public synchronized void onConectado(Conexao conexao) {
+        this.conexao = conexao;
+        this.retomado = false;
+    }
+
+    /** O servidor recebeu tudo até {@code ultimaSeqRecebida}; o resto é reenviado em ordem. */
+    public void onRetomar(long ultimaSeqRecebida) {
+        synchronized (this) {
+            if (conexao == null) return;
+            confirmar(ultimaSeqRecebida);
+            for (Quadro quadro : pendentes) {
+                conexao.enviar(quadro.seq, quadro.lote, quadro.ativo);
+                quadrosReenviados++;
+            }
+            retomado = true;
+            usandoReserva = false;
+            desconectadoDesdeMs = -1L;
+        }
+        truncarDiario(ultimaSeqRecebida);
+    }
+
+    /** Ack cumulativo: tudo até {@code seq} pode ser descartado, da memória e do disco. */
+    public void onAck(long seq) {
+        synchronized (this) {
+            confirmar(seq);
+        }
+        truncarDiario(seq);
+    }
+
+    /** Só vale para a conexão atual: o fechamento tardio de uma anterior é ignorado. */
+    public synchronized void onDesconectado(Conexao fechada, long agoraMs) {
+        if (fechada == null || fechada != conexao) return;
+        conexao = null;
+        retomado = false;
+        desconectadoDesdeMs = agoraMs;
+    }
+
+    /** Passado o prazo sem reconectar, os pendentes vão pelo REST e os próximos também. */
+    public void verificar(long agoraMs) {
+        List<Quadro> desviados = new ArrayList<>();
+        synchronized (this) {
+            if (usandoReserva || conexao != null || desconectadoDesdeMs < 0) return;
+            if (agoraMs - desconectadoDesdeMs < prazoReconexaoMs) return;
+            usandoReserva = true;
+            drenarPendentes(desviados);
+        }
+        desviar(desviados);
+    }
+
+    /** Encerramento do serviço: o que não foi confirmado segue pelo REST. */
+    public void encerrar() {
+        List<Quadro> desviados = new ArrayList<>();
+        synchronized (this) {
+            conexao = null;
+            retomado = false;
+            usandoReserva = true;
+            drenarPendentes(desviados);
+        }
+        desviar(desviados);
+    }
+
+    // ===========================================================
+    // =============== CONSULTA =================================
+    // ===========================================================
+    public synchronized boolean isUsandoReserva() {
+        return usandoReserva;
+    }
+
+    public synchronized int getPendentes() {
+        return pendentes.size();
+    }
+
+    public synchronized String resumo() {
+        return "enviados=" + quadrosEnviados + " reenviados=" + quadrosReenviados
+                + " confirmados=" + quadrosConfirmados + " pelo REST=" + lotesPelaReserva
+                + " pendentes=" + pendentes.size() + " recuperados=" + quadrosRecuperados
+                + " falhas do diário=" + falhasDiario;
+    }
+
+    private void confirmar(long seq) {
+        while (!pendentes.isEmpty() && pendentes.peekFirst().seq <= seq) {
+            pendentes.removeFirst();
+            quadrosConfirmados++;
+        }
+    }
+
+    private void drenarPendentes(List<Quadro> destino) {
+        destino.addAll(pendentes);
+        lotesPelaReserva += pendentes.size();
+        pendentes.clear();
+    }
+
+    /** Chamado com o lock: o quadro entra no disco antes de ir para o socket. */
+    private void gravar(Quadro quadro) {
+        try {
+            diario.gravar(quadro);
+        } catch (IOException e) {
+            falhasDiario++; // segue só em memória, como antes do diário
+        }
+    }
+
+    private void truncarDiario(long seq) {
+        try {
+            diario.confirmar(seq);
+        } catch (IOException e) {
+            synchronized (this) {
+                falhasDiario++;
+            }
+        }
+    }
+
+    // Fora do lock: a reserva pode fazer I/O. Os desviados são sempre os mais antigos, então
+    // o diário é truncado até o último; daqui em diante o REST (e o outbox dele) responde por eles
+    private void desviar(List<Quadro> quadros) {
+        for (Quadro quadro : quadros) reserva.enviar(quadro.lote, quadro.ativo);
+        if (!quadros.isEmpty()) truncarDiario(quadros.get(quadros.size() - 1).seq);
+    }
+}
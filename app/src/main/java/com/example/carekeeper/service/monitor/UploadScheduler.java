@@ -0,0 +1,94 @@
+package com.example.carekeeper.service.monitor;
+
+import androidx.annotation.NonNull;
+
+import com.example.carekeeper.network.EstadoRede;
+
+/**
+ * Decide como as leituras saem conforme a rede e o alerta:
+ *  - alerta ativo: cada leitura sai sozinha, na hora, com qualquer rede
+ *  - offline ou backend fora do ar (circuito aberto): lotes grandes vão direto para o
+ *    outbox, sem tentar a rede
+ *  - rede fraca: lotes ainda maiores, para pagar o custo de conexão poucas vezes
+ *  - rede tarifada: lotes grandes
+ *  - rede sem tarifa: lotes pequenos e frequentes
+ *
+ * Sem sincronização: usado só pela AgregacaoThread do {@code SensorService}.
+ */
+public class UploadScheduler {
+
+    /** Como o {@link SensorBatchBuffer} deve fechar os lotes e para onde eles vão. */
+    public static final class Cadencia {
+        public final int tamanhoLote;
+        public final long latenciaMaximaMs;
+        /** false: o lote vai direto para o outbox. */
+        public final boolean enviarPelaRede;
+
+        Cadencia(int tamanhoLote, long latenciaMaximaMs, boolean enviarPelaRede) {
+            this.tamanhoLote = tamanhoLote;
+            this.latenciaMaximaMs = latenciaMaximaMs;
+            this.enviarPelaRede = enviarPelaRede;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return tamanhoLote + " leituras/" + latenciaMaximaMs / 1000 + " s" + (enviarPelaRede ? "" : " (outbox)");
+        }
+    }
+
+    static final Cadencia ALERTA = new Cadencia(1, 0L, true);
+    static final Cadencia OFFLINE = new Cadencia(60, 60_000L, false);
+    static final Cadencia FRACA = new Cadencia(120, 300_000L, true);
+    static final Cadencia LIMITADA = new Cadencia(60, 120_000L, true);
+    static final Cadencia LIVRE = new Cadencia(10, 10_000L, true);
+
+    private EstadoRede rede;
+    private boolean alertaAtivo;
+    private boolean backendDisponivel = true;
+    private Cadencia atual;
+
+    public UploadScheduler(EstadoRede rede, boolean alertaAtivo) {
+        this.rede = rede;
+        this.alertaAtivo = alertaAtivo;
+        this.atual = calcular();
+    }
+
+    /** Atualiza o estado do alerta e devolve a cadência resultante. */
+    public Cadencia setAlertaAtivo(boolean alertaAtivo) {
+        this.alertaAtivo = alertaAtivo;
+        return atual = calcular();
+    }
+
+    /** Atualiza a rede e devolve a cadência resultante. */
+    public Cadencia setRede(EstadoRede rede) {
+        this.rede = rede;
+        return atual = calcular();
+    }
+
+    /** Atualiza a disponibilidade do backend (circuito fechado) e devolve a cadência resultante. */
+    public Cadencia setBackendDisponivel(boolean disponivel) {
+        this.backendDisponivel = disponivel;
+        return atual = calcular();
+    }
+
+    public boolean isBackendDisponivel() {
+        return backendDisponivel;
+    }
+
+    public Cadencia getCadencia() {
+        return atual;
+    }
+
+    public EstadoRede getRede() {
+        return rede;
+    }
+
+    private Cadencia calcular() {
+        if (alertaAtivo) return ALERTA;
+        if (!rede.isOnline() || !backendDisponivel) return OFFLINE;
+        if (rede.fraca) return FRACA;
+        if (rede.limitada) return LIMITADA;
+        return LIVRE;
+    }
+}
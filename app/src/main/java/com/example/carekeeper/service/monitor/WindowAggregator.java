@@ -0,0 +1,93 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorWindowDTO;
+
+/**
+ * Agregação incremental das amostras de um sensor de três eixos em janelas.
+ *
+ * Usa o algoritmo de Welford para média e variância, então a memória é constante
+ * independentemente da taxa de amostragem. A última amostra é mantida entre janelas
+ * para que o jerk da primeira amostra da janela seguinte também seja calculado.
+ */
+public class WindowAggregator {
+
+    private static final int EIXOS = 3;
+
+    private final double[] minimo = new double[EIXOS];
+    private final double[] maximo = new double[EIXOS];
+    private final double[] media = new double[EIXOS];
+    private final double[] m2 = new double[EIXOS];
+    private int amostras;
+    private double somaMagnitudes;
+    private double picoJerk;
+
+    private final double[] anterior = new double[EIXOS];
+    private long anteriorMs = -1L;
+
+    public WindowAggregator() {
+        reiniciar();
+    }
+
+    public void adicionar(long timestampMs, double x, double y, double z) {
+        amostras++;
+        acumularEixo(0, x);
+        acumularEixo(1, y);
+        acumularEixo(2, z);
+        somaMagnitudes += Math.abs(x) + Math.abs(y) + Math.abs(z);
+
+        if (anteriorMs >= 0 && timestampMs > anteriorMs) {
+            double dx = x - anterior[0], dy = y - anterior[1], dz = z - anterior[2];
+            double jerk = Math.sqrt(dx * dx + dy * dy + dz * dz) / ((timestampMs - anteriorMs) / 1000.0);
+            if (jerk > picoJerk) picoJerk = jerk;
+        }
+        anterior[0] = x;
+        anterior[1] = y;
+        anterior[2] = z;
+        anteriorMs = timestampMs;
+    }
+
+    public int getAmostras() {
+        return amostras;
+    }
+
+    /** Média de um eixo na janela atual (0 se vazia). */
+    public double getMedia(int eixo) {
+        return media[eixo];
+    }
+
+    /** Fecha a janela atual e começa outra. Retorna null se não houve amostras. */
+    public SensorWindowDTO fecharJanela() {
+        if (amostras == 0) return null;
+
+        double[] variancia = new double[EIXOS];
+        for (int i = 0; i < EIXOS; i++) variancia[i] = amostras > 1 ? m2[i] / (amostras - 1) : 0.0;
+
+        SensorWindowDTO resumo = new SensorWindowDTO(
+                amostras,
+                minimo.clone(), maximo.clone(), media.clone(), variancia,
+                somaMagnitudes / amostras,
+                picoJerk);
+        reiniciar();
+        return resumo;
+    }
+
+    private void acumularEixo(int eixo, double valor) {
+        if (valor < minimo[eixo]) minimo[eixo] = valor;
+        if (valor > maximo[eixo]) maximo[eixo] = valor;
+        double delta = valor - media[eixo];
+        media[eixo] += delta / amostras;
+        m2[eixo] += delta * (valor - media[eixo]);
+    }
+
+    private void reiniciar() {
+        for (int i = 0; i < EIXOS; i++) {
+            minimo[i] = Double.POSITIVE_INFINITY;
+            maximo[i] = Double.NEGATIVE_INFINITY;
+            media[i] = 0.0;
+            m2[i] = 0.0;
+        }
+        amostras = 0;
+        somaMagnitudes = 0.0;
+        picoJerk = 0.0;
+    }
+}
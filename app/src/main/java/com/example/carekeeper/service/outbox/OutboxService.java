@@ -0,0 +1,303 @@
+package com.example.carekeeper.service.outbox;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import com.example.carekeeper.dto.PanicAlertRequest;
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.network.ApiClient;
+import com.example.carekeeper.network.ApiService;
+import com.example.carekeeper.network.CircuitBreaker;
+import com.example.carekeeper.network.ConnectivityMonitor;
+import com.example.carekeeper.network.Prioridade;
+import com.example.carekeeper.service.SharedPreferencesService;
+import com.example.carekeeper.service.outbox.OutboxStore.Fila;
+import com.example.carekeeper.service.outbox.OutboxStore.Registro;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Outbox durável para leituras e alertas que não puderam ser enviados.
+ *
+ * Os registros ficam no {@link OutboxStore} até serem aceitos pelo backend. Uma thread
+ * dedicada drena as filas em ordem, sempre esvaziando os alertas de pânico antes das
+ * leituras de rotina, e aplica backoff exponencial com jitter quando o envio falha.
+ * Offline a drenagem fica parada e recomeça, sem backoff, quando a rede volta. Com o
+ * {@link CircuitBreaker} do backend aberto, as leituras esperam a hora da sonda (o
+ * primeiro lote reenviado é a sonda) e voltam a sair assim que o circuito fecha.
+ */
+public class OutboxService {
+
+    private static final String TAG = "OutboxService";
+    private static final String DIRETORIO = "outbox";
+    private static final long TAMANHO_MAXIMO_SEGMENTO = 256 * 1024L;
+    private static final int LEITURAS_POR_LOTE = 50;
+    private static final long BACKOFF_INICIAL_MS = 2_000L;
+    private static final long BACKOFF_MAXIMO_MS = 5 * 60_000L;
+
+    private static OutboxService instancia;
+
+    private final OutboxStore store;
+    private final StreamJournal diarioStream;
+    private final ConnectivityMonitor rede;
+    private final CircuitBreaker circuito;
+    private final ApiService apiAlertas;
+    private final ApiService apiLeituras;
+    private final Gson gson = new Gson();
+    private final Handler handler;
+    private final Random random = new Random();
+
+    private int falhasSeguidas = 0;
+    private boolean aguardandoBackoff = false;
+    private boolean preemptado = false; // a última chamada foi cancelada pelo LaneScheduler
+
+    private final Runnable drenagem = this::drenar;
+
+    /** Leitura armazenada junto com o estado do alerta no momento da captura. */
+    private static class LeituraPendente {
+        SensorDTO leitura;
+        boolean ativo;
+
+        LeituraPendente(SensorDTO leitura, boolean ativo) {
+            this.leitura = leitura;
+            this.ativo = ativo;
+        }
+    }
+
+    public static synchronized OutboxService getInstance(Context context) {
+        if (instancia == null) {
+            instancia = new OutboxService(context.getApplicationContext());
+        }
+        return instancia;
+    }
+
+    private OutboxService(Context context) {
+        store = new OutboxStore(new File(context.getFilesDir(), DIRETORIO), TAMANHO_MAXIMO_SEGMENTO);
+        diarioStream = new StreamJournal(store);
+        SharedPreferencesService prefs = new SharedPreferencesService(context);
+        // Alertas pendentes continuam críticos; o reenvio de leituras cede a vez a eles
+        apiAlertas = ApiClient.getClientWithAuth(prefs, Prioridade.CRITICA).create(ApiService.class);
+        apiLeituras = ApiClient.getClientWithAuth(prefs, Prioridade.LOTE).create(ApiService.class);
+
+        HandlerThread thread = new HandlerThread("OutboxDrainer");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+
+        rede = ConnectivityMonitor.getInstance(context);
+        rede.adicionarOuvinte(estado -> {
+            if (estado.isOnline()) tentarAgora();
+        });
+
+        circuito = ApiClient.getCircuitoBackend();
+        circuito.adicionarOuvinte((anterior, novo) -> {
+            if (novo == CircuitBreaker.Estado.FECHADO) tentarAgora();
+        });
+
+        // Pode haver registros de uma execução anterior
+        handler.post(drenagem);
+    }
+
+    // ===========================================================
+    // =============== ENFILEIRAMENTO ===========================
+    // ===========================================================
+    public void enfileirarLeituras(List<SensorDTO> leituras, boolean isAlertActive) {
+        handler.post(() -> {
+            try {
+                for (SensorDTO leitura : leituras) {
+                    store.anexar(Fila.LEITURA, gson.toJson(new LeituraPendente(leitura, isAlertActive)));
+                }
+                Log.i(TAG, "📦 " + leituras.size() + " leituras guardadas no outbox");
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Falha ao gravar leituras no outbox: " + e.getMessage());
+            }
+            acordar(false);
+        });
+    }
+
+    public void enfileirarAlerta(PanicAlertRequest alerta) {
+        handler.post(() -> {
+            try {
+                store.anexar(Fila.ALERTA, gson.toJson(alerta));
+                Log.i(TAG, "📦 Alerta guardado no outbox");
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Falha ao gravar alerta no outbox: " + e.getMessage());
+            }
+            // Alertas não esperam o backoff das leituras
+            acordar(true);
+        });
+    }
+
+    /** Diário do canal de leituras, no mesmo store; a fila dele não é drenada aqui. */
+    public StreamJournal getDiarioStream() {
+        return diarioStream;
+    }
+
+    /** Força uma nova tentativa imediata, por exemplo quando a rede volta. */
+    public void tentarAgora() {
+        handler.post(() -> acordar(true));
+    }
+
+    private void acordar(boolean ignorarBackoff) {
+        if (aguardandoBackoff && !ignorarBackoff) return;
+        handler.removeCallbacks(drenagem);
+        handler.post(drenagem);
+    }
+
+    // ===========================================================
+    // =============== DRENAGEM =================================
+    // ===========================================================
+    private void drenar() {
+        aguardandoBackoff = false;
+        preemptado = false;
+        if (!rede.getEstado().isOnline()) {
+            Log.i(TAG, "📴 Offline: outbox aguardando a rede voltar");
+            return;
+        }
+        try {
+            while (true) {
+                List<Registro> alertas = store.ler(Fila.ALERTA, 1);
+                if (!alertas.isEmpty()) {
+                    if (!enviarAlerta(alertas.get(0))) break;
+                    continue;
+                }
+
+                List<Registro> leituras = store.ler(Fila.LEITURA, LEITURAS_POR_LOTE);
+                if (leituras.isEmpty()) {
+                    falhasSeguidas = 0;
+                    return;
+                }
+                // Alertas passam com o circuito aberto; leituras esperam a sonda
+                long espera = circuito.getEsperaMs(System.currentTimeMillis());
+                if (espera > 0) {
+                    aguardarCircuito(espera);
+                    return;
+                }
+                if (!enviarLeituras(leituras)) break;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Erro ao ler outbox: " + e.getMessage());
+        }
+        if (preemptado) {
+            // Cedeu a vez a um alerta: não é falha; volta para a fila da faixa e espera lá
+            Log.i(TAG, "⏸️ Reenvio do outbox preemptado por uma requisição crítica");
+            handler.post(drenagem);
+            return;
+        }
+        agendarNovaTentativa();
+    }
+
+    private boolean enviarAlerta(Registro registro) throws IOException {
+        PanicAlertRequest alerta = decodificar(registro, PanicAlertRequest.class);
+        if (alerta == null) return descartar(registro);
+        Response<Void> response = executar(apiAlertas.triggerPanicButton(alerta));
+        if (!processarResposta(response)) return false;
+
+        store.confirmar(registro);
+        Log.i(TAG, "🚨 Alerta pendente enviado pelo outbox");
+        return true;
+    }
+
+    private boolean enviarLeituras(List<Registro> registros) throws IOException {
+        // Envia apenas o trecho inicial com o mesmo estado de alerta, preservando a ordem
+        LeituraPendente primeira = decodificar(registros.get(0), LeituraPendente.class);
+        if (primeira == null || primeira.leitura == null) return descartar(registros.get(0));
+        boolean ativo = primeira.ativo;
+        List<SensorDTO> lote = new ArrayList<>();
+        Registro ultimo = null;
+        for (Registro registro : registros) {
+            LeituraPendente pendente = decodificar(registro, LeituraPendente.class);
+            // Registro inválido no meio: o trecho anterior sai e ele é descartado na próxima volta
+            if (pendente == null || pendente.leitura == null || pendente.ativo != ativo) break;
+            lote.add(pendente.leitura);
+            ultimo = registro;
+        }
+
+        Response<Void> response = executar(apiLeituras.sendReadings(lote, ativo));
+        if (!processarResposta(response)) return false;
+
+        store.confirmar(ultimo);
+        Log.i(TAG, "✅ " + lote.size() + " leituras pendentes enviadas pelo outbox");
+        return true;
+    }
+
+    /** null se o registro não decodifica (linha corrompida por uma escrita interrompida, por exemplo). */
+    private <T> T decodificar(Registro registro, Class<T> tipo) {
+        try {
+            return gson.fromJson(registro.payload, tipo);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Confirma um registro que não pode ser enviado, para não travar a fila; devolve true para seguir. */
+    private boolean descartar(Registro registro) throws IOException {
+        Log.w(TAG, "⚠️ Registro inválido descartado do outbox (" + registro.fila + "): " + registro.payload);
+        store.confirmar(registro);
+        return true;
+    }
+
+    /**
+     * Retorna true quando o registro pode sair do outbox: sucesso ou rejeição definitiva.
+     * Falhas de rede, 401, 408, 429 e 5xx mantêm o registro para nova tentativa.
+     */
+    private boolean processarResposta(Response<Void> response) {
+        if (response == null) return false;
+        int codigo = response.code();
+        if (response.isSuccessful()) {
+            falhasSeguidas = 0;
+            return true;
+        }
+        if (deveTentarDeNovo(codigo)) {
+            Log.w(TAG, "⚠️ Envio do outbox falhou: código HTTP " + codigo);
+            return false;
+        }
+        Log.w(TAG, "⚠️ Registro rejeitado pelo servidor (HTTP " + codigo + "), descartando");
+        return true;
+    }
+
+    /** Códigos de erro que valem nova tentativa: 401 (token a renovar), 408, 429 e 5xx. */
+    public static boolean deveTentarDeNovo(int codigo) {
+        return codigo == 401 || codigo == 408 || codigo == 429 || codigo >= 500;
+    }
+
+    private Response<Void> executar(Call<Void> chamada) {
+        try {
+            return chamada.execute();
+        } catch (IOException | RuntimeException e) {
+            if (chamada.isCanceled()) {
+                preemptado = true;
+            } else {
+                Log.e(TAG, "❌ Erro de rede no outbox: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /** Não conta como falha: o backoff do outbox não cresce enquanto o circuito espera. */
+    private void aguardarCircuito(long esperaMs) {
+        aguardandoBackoff = true;
+        handler.removeCallbacks(drenagem);
+        handler.postDelayed(drenagem, esperaMs);
+        Log.i(TAG, "🔌 Backend indisponível: leituras do outbox aguardam " + esperaMs + " ms");
+    }
+
+    private void agendarNovaTentativa() {
+        falhasSeguidas++;
+        long atraso = Math.min(BACKOFF_MAXIMO_MS, BACKOFF_INICIAL_MS << Math.min(falhasSeguidas - 1, 16));
+        atraso = atraso / 2 + (long) (random.nextDouble() * (atraso / 2)); // jitter
+        aguardandoBackoff = true;
+        handler.removeCallbacks(drenagem);
+        handler.postDelayed(drenagem, atraso);
+        Log.i(TAG, "⏳ Nova tentativa do outbox em " + atraso + " ms");
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.carekeeper.service.outbox;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Log append-only em arquivos segmentados para registros pendentes de envio.
+ *
+ * Cada fila tem seu próprio diretório com segmentos numerados ("00000001.seg") e um
+ * arquivo "cursor" com a posição do último registro confirmado. Registros são linhas
+ * UTF-8 terminadas em '\n'. Uma linha incompleta no fim do segmento (escrita interrompida)
+ * é cortada ao abrir o store, para que o próximo registro não seja colado nela.
+ * Segmentos totalmente confirmados são apagados (compactação).
+ */
+public class OutboxStore {
+
+    /**
+     * Filas do outbox. ALERTA e LEITURA são drenadas pelo {@link OutboxService}, nessa ordem;
+     * STREAM guarda os quadros do canal de leituras até o ack do servidor ({@link StreamJournal}).
+     */
+    public enum Fila { ALERTA, LEITURA, STREAM }
+
+    /** Registro lido do outbox, com a posição necessária para confirmá-lo. */
+    public static class Registro {
+        public final Fila fila;
+        public final String payload;
+        final long segmento;
+        final long fimOffset;
+
+        Registro(Fila fila, String payload, long segmento, long fimOffset) {
+            this.fila = fila;
+            this.payload = payload;
+            this.segmento = segmento;
+            this.fimOffset = fimOffset;
+        }
+    }
+
+    private static final String EXTENSAO = ".seg";
+    private static final String ARQUIVO_CURSOR = "cursor";
+
+    private final File diretorio;
+    private final long tamanhoMaximoSegmento;
+    private final Map<Fila, long[]> cursores = new EnumMap<>(Fila.class); // {segmento, offset}
+
+    public OutboxStore(File diretorio, long tamanhoMaximoSegmento) {
+        this.diretorio = diretorio;
+        this.tamanhoMaximoSegmento = tamanhoMaximoSegmento;
+        for (Fila fila : Fila.values()) {
+            File dirFila = dirDaFila(fila);
+            if (!dirFila.exists() && !dirFila.mkdirs()) {
+                throw new IllegalStateException("Não foi possível criar " + dirFila);
+            }
+            cursores.put(fila, carregarCursor(fila));
+            long[] segmentos = listarSegmentos(fila);
+            if (segmentos.length > 0) cortarLinhaIncompleta(arquivoSegmento(fila, segmentos[segmentos.length - 1]));
+        }
+    }
+
+    // ===========================================================
+    // =============== ESCRITA ==================================
+    // ===========================================================
+    public synchronized void anexar(Fila fila, String payload) throws IOException {
+        long[] segmentos = listarSegmentos(fila);
+        long ativo = segmentos.length == 0 ? cursores.get(fila)[0] : segmentos[segmentos.length - 1];
+        File arquivo = arquivoSegmento(fila, ativo);
+        if (arquivo.length() >= tamanhoMaximoSegmento) {
+            arquivo = arquivoSegmento(fila, ativo + 1);
+        }
+
+        byte[] linha = (payload + "\n").getBytes(StandardCharsets.UTF_8);
+        long tamanhoAnterior = arquivo.length();
+        try (FileOutputStream out = new FileOutputStream(arquivo, true)) {
+            out.write(linha);
+            out.getFD().sync();
+        } catch (IOException e) {
+            // Não deixa meia linha para o próximo registro
+            try (RandomAccessFile raf = new RandomAccessFile(arquivo, "rw")) {
+                raf.setLength(tamanhoAnterior);
+            } catch (IOException ignorada) {
+                // Se nem isso der, a abertura seguinte corta a linha
+            }
+            throw e;
+        }
+    }
+
+    // ===========================================================
+    // =============== LEITURA ==================================
+    // ===========================================================
+    /** Lê até {@code max} registros ainda não confirmados, em ordem de inserção. */
+    public synchronized List<Registro> ler(Fila fila, int max) throws IOException {
+        List<Registro> registros = new ArrayList<>();
+        long[] cursor = cursores.get(fila);
+
+        for (long segmento : listarSegmentos(fila)) {
+            if (segmento < cursor[0]) continue;
+            long inicio = segmento == cursor[0] ? cursor[1] : 0L;
+            lerSegmento(fila, segmento, inicio, max, registros);
+            if (registros.size() >= max) break;
+        }
+        return registros;
+    }
+
+    public synchronized boolean isVazia(Fila fila) throws IOException {
+        return ler(fila, 1).isEmpty();
+    }
+
+    // ===========================================================
+    // =============== CONFIRMAÇÃO E COMPACTAÇÃO ================
+    // ===========================================================
+    /** Confirma todos os registros da fila até {@code ultimo}, inclusive. */
+    public synchronized void confirmar(Registro ultimo) throws IOException {
+        long[] cursor = {ultimo.segmento, ultimo.fimOffset};
+        cursores.put(ultimo.fila, cursor);
+        salvarCursor(ultimo.fila, cursor);
+        compactar(ultimo.fila);
+    }
+
+    private void compactar(Fila fila) throws IOException {
+        long[] cursor = cursores.get(fila);
+        long[] segmentos = listarSegmentos(fila);
+        long ativo = segmentos.length == 0 ? cursor[0] : segmentos[segmentos.length - 1];
+
+        // Segmento do cursor lido até o fim e já substituído por outro: avança o cursor
+        if (cursor[0] < ativo && cursor[1] >= arquivoSegmento(fila, cursor[0]).length()) {
+            cursor = new long[]{cursor[0] + 1, 0L};
+            cursores.put(fila, cursor);
+            salvarCursor(fila, cursor);
+        }
+
+        for (long segmento : segmentos) {
+            if (segmento < cursor[0]) {
+                //noinspection ResultOfMethodCallIgnored
+                arquivoSegmento(fila, segmento).delete();
+            }
+        }
+    }
+
+    // ===========================================================
+    // =============== ARQUIVOS =================================
+    // ===========================================================
+    private void lerSegmento(Fila fila, long segmento, long inicio, int max,
+                             List<Registro> destino) throws IOException {
+        File arquivo = arquivoSegmento(fila, segmento);
+        if (!arquivo.exists() || arquivo.length() <= inicio) return;
+
+        byte[] dados;
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) {
+            dados = new byte[(int) (raf.length() - inicio)];
+            raf.seek(inicio);
+            raf.readFully(dados);
+        }
+
+        int linhaInicio = 0;
+        for (int i = 0; i < dados.length && destino.size() < max; i++) {
+            if (dados[i] != '\n') continue;
+            String payload = new String(dados, linhaInicio, i - linhaInicio, StandardCharsets.UTF_8);
+            destino.add(new Registro(fila, payload, segmento, inicio + i + 1));
+            linhaInicio = i + 1;
+        }
+    }
+
+    /** Descarta o que vier depois do último '\n' (linha de uma escrita interrompida). */
+    private static void cortarLinhaIncompleta(File arquivo) {
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "rw")) {
+            long fim = raf.length();
+            while (fim > 0) {
+                raf.seek(fim - 1);
+                if (raf.read() == '\n') break;
+                fim--;
+            }
+            if (fim < raf.length()) raf.setLength(fim);
+        } catch (IOException e) {
+            // Sem reparo a linha incompleta vira um registro inválido, descartado na drenagem
+        }
+    }
+
+    private long[] listarSegmentos(Fila fila) {
+        String[] nomes = dirDaFila(fila).list((dir, nome) -> nome.endsWith(EXTENSAO));
+        if (nomes == null) return new long[0];
+        long[] ids = new long[nomes.length];
+        for (int i = 0; i < nomes.length; i++) {
+            ids[i] = Long.parseLong(nomes[i].substring(0, nomes[i].length() - EXTENSAO.length()));
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private long[] carregarCursor(Fila fila) {
+        File arquivo = new File(dirDaFila(fila), ARQUIVO_CURSOR);
+        if (!arquivo.exists()) return new long[]{1L, 0L};
+        try (RandomAccessFile raf = new RandomAccessFile(arquivo, "r")) {
+            return new long[]{raf.readLong(), raf.readLong()};
+        } catch (IOException e) {
+            return new long[]{1L, 0L};
+        }
+    }
+
+    private void salvarCursor(Fila fila, long[] cursor) throws IOException {
+        File tmp = new File(dirDaFila(fila), ARQUIVO_CURSOR + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.setLength(0);
+            raf.writeLong(cursor[0]);
+            raf.writeLong(cursor[1]);
+            raf.getFD().sync();
+        }
+        if (!tmp.renameTo(new File(dirDaFila(fila), ARQUIVO_CURSOR))) {
+            throw new IOException("Falha ao gravar cursor da fila " + fila);
+        }
+    }
+
+    private File dirDaFila(Fila fila) {
+        return new File(diretorio, fila.name().toLowerCase());
+    }
+
+    private File arquivoSegmento(Fila fila, long segmento) {
+        return new File(dirDaFila(fila), String.format(Locale.US, "%08d%s", segmento, EXTENSAO));
+    }
+}
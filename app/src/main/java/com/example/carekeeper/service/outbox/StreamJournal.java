@@ -0,0 +1,85 @@
+package com.example.carekeeper.service.outbox;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.service.monitor.StreamUplinkSession;
+import com.example.carekeeper.service.monitor.StreamUplinkSession.Quadro;
+import com.example.carekeeper.service.outbox.OutboxStore.Fila;
+import com.example.carekeeper.service.outbox.OutboxStore.Registro;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diário do canal de leituras na fila {@link Fila#STREAM} do {@link OutboxStore}.
+ *
+ * Cada quadro é uma linha "{@code <seq> <json>}": o ack cumulativo acha até onde confirmar
+ * lendo só a sequência, sem decodificar os lotes. Linhas ilegíveis (escrita interrompida)
+ * são ignoradas na recuperação e confirmadas junto com as vizinhas.
+ */
+public class StreamJournal implements StreamUplinkSession.Diario {
+
+    // Bem acima dos pendentes da sessão: os mais antigos já foram desviados e confirmados
+    private static final int MAXIMO_POR_LEITURA = 1_000;
+
+    /** Parte da linha depois da sequência. */
+    private static class Corpo {
+        List<SensorDTO> leituras;
+        boolean ativo;
+    }
+
+    private final OutboxStore store;
+    private final Gson gson = new Gson();
+
+    public StreamJournal(OutboxStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void gravar(Quadro quadro) throws IOException {
+        Corpo corpo = new Corpo();
+        corpo.leituras = quadro.lote;
+        corpo.ativo = quadro.ativo;
+        store.anexar(Fila.STREAM, quadro.seq + " " + gson.toJson(corpo));
+    }
+
+    @Override
+    public void confirmar(long seq) throws IOException {
+        Registro ultimo = null;
+        for (Registro registro : store.ler(Fila.STREAM, MAXIMO_POR_LEITURA)) {
+            if (sequencia(registro) > seq) break;
+            ultimo = registro;
+        }
+        if (ultimo != null) store.confirmar(ultimo);
+    }
+
+    @Override
+    public List<Quadro> recuperar() throws IOException {
+        List<Quadro> quadros = new ArrayList<>();
+        for (Registro registro : store.ler(Fila.STREAM, Integer.MAX_VALUE)) {
+            long seq = sequencia(registro);
+            if (seq < 0) continue;
+            Corpo corpo;
+            try {
+                corpo = gson.fromJson(registro.payload.substring(registro.payload.indexOf(' ') + 1), Corpo.class);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (corpo == null || corpo.leituras == null) continue;
+            quadros.add(new Quadro(seq, corpo.leituras, corpo.ativo));
+        }
+        return quadros;
+    }
+
+    /** -1 se a linha não começa com uma sequência. */
+    private static long sequencia(Registro registro) {
+        int espaco = registro.payload.indexOf(' ');
+        if (espaco <= 0) return -1L;
+        try {
+            return Long.parseLong(registro.payload.substring(0, espaco));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
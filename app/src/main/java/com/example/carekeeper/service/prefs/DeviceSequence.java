@@ -0,0 +1,113 @@
+package com.example.carekeeper.service.prefs;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import com.example.carekeeper.dto.PanicAlertRequest;
+import com.example.carekeeper.dto.SensorDTO;
+
+import java.util.UUID;
+
+/**
+ * Sequências do dispositivo, uma para leituras e outra para alertas, e a chave de
+ * idempotência derivada delas ({@code <dispositivo>:<seq>} e
+ * {@code <dispositivo>:alerta:<seq>}). Com a chave o servidor descarta reenvios (outbox,
+ * desvio do canal para o REST, novas tentativas) e a sequência dá a ordem entre envios
+ * paralelos do mesmo fluxo.
+ *
+ * Os números são reservados em blocos ({@link SequenceAllocator}): depois de um reinício o
+ * resto do bloco anterior não é usado. Por isso o primeiro número de cada bloco vai marcado
+ * ({@code inicioBloco}); uma lacuna que termina numa leitura marcada pode ser só reserva,
+ * as outras são leituras perdidas.
+ *
+ * Fica num arquivo de preferências próprio, gravado com {@code commit()}: o write-behind do
+ * {@link WriteBehindStore} poderia perder uma reserva e repetir números, e o logout limpa as
+ * preferências comuns, mas a sequência do aparelho não pode recomeçar. O identificador e as
+ * reservas são lidos e gravados numa thread própria, adiantados ao uso: o alerta do botão de
+ * pânico é numerado na thread principal.
+ */
+public class DeviceSequence {
+
+    private static final String PREF_NAME = "carekeeper_sequencia";
+    private static final String KEY_DISPOSITIVO = "deviceId";
+    private static final String KEY_LIMITE = "sequenceLimit";
+    private static final String KEY_LIMITE_ALERTAS = "alertSequenceLimit";
+    // Uma gravação a cada ~17 min com uma leitura por segundo
+    private static final int TAMANHO_BLOCO = 1000;
+    // Alertas são raros: bloco pequeno para não pular muitos números a cada reinício
+    private static final int TAMANHO_BLOCO_ALERTAS = 10;
+
+    private static DeviceSequence instancia;
+
+    private final SharedPreferences prefs;
+    private final SequenceAllocator leituras;
+    private final SequenceAllocator alertas;
+    private String dispositivo; // protegido por "this"
+
+    public static synchronized DeviceSequence getInstance(Context context) {
+        if (instancia == null) {
+            instancia = new DeviceSequence(context.getApplicationContext());
+        }
+        return instancia;
+    }
+
+    private DeviceSequence(Context context) {
+        prefs = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        HandlerThread thread = new HandlerThread("DeviceSequence");
+        thread.start();
+        Handler handler = new Handler(thread.getLooper());
+
+        handler.post(this::dispositivo);
+        leituras = new SequenceAllocator(new PersistenciaPrefs(KEY_LIMITE), TAMANHO_BLOCO, handler::post);
+        alertas = new SequenceAllocator(new PersistenciaPrefs(KEY_LIMITE_ALERTAS), TAMANHO_BLOCO_ALERTAS, handler::post);
+    }
+
+    /** Atribui sequência e chave à leitura, se ainda não tiver (reenvios mantêm as originais). */
+    public void numerar(SensorDTO leitura) {
+        if (leitura.getSeq() != null) return;
+        SequenceAllocator.Numero numero = leituras.proximoNumero();
+        leitura.setSeq(numero.seq);
+        leitura.setChaveIdempotencia(dispositivo() + ":" + numero.seq);
+        leitura.setInicioBloco(numero.inicioBloco ? Boolean.TRUE : null);
+    }
+
+    public void numerar(PanicAlertRequest alerta) {
+        if (alerta.getSeq() != null) return;
+        SequenceAllocator.Numero numero = alertas.proximoNumero();
+        alerta.setSeq(numero.seq);
+        alerta.setChaveIdempotencia(dispositivo() + ":alerta:" + numero.seq);
+        alerta.setInicioBloco(numero.inicioBloco ? Boolean.TRUE : null);
+    }
+
+    private synchronized String dispositivo() {
+        if (dispositivo == null) {
+            String id = prefs.getString(KEY_DISPOSITIVO, null);
+            if (id == null) {
+                id = UUID.randomUUID().toString();
+                prefs.edit().putString(KEY_DISPOSITIVO, id).commit();
+            }
+            dispositivo = id;
+        }
+        return dispositivo;
+    }
+
+    private class PersistenciaPrefs implements SequenceAllocator.Persistencia {
+        private final String chave;
+
+        PersistenciaPrefs(String chave) {
+            this.chave = chave;
+        }
+
+        @Override
+        public long carregarLimite() {
+            return prefs.getLong(chave, 0L);
+        }
+
+        @Override
+        public void gravarLimite(long limite) {
+            prefs.edit().putLong(chave, limite).commit();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.carekeeper.service.prefs;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Números de sequência monotônicos que sobrevivem ao processo, com uma gravação por bloco.
+ *
+ * Só o limite do que já foi reservado vai para o disco: um número só é entregue depois que
+ * um limite acima dele foi gravado. Depois de reiniciar, a contagem recomeça no limite
+ * gravado; os números não usados do processo anterior viram uma lacuna, mas nenhum é
+ * repetido. Por isso cada número diz se é o primeiro de um bloco
+ * ({@link Numero#inicioBloco}): uma lacuna que termina num início de bloco pode ser só
+ * reserva não usada; qualquer outra é perda.
+ *
+ * Com um {@link Executor} de fundo, a carga do limite e as reservas saem de quem pede
+ * números: o primeiro bloco é reservado logo na criação e o seguinte quando resta um
+ * décimo do atual, então {@link #proxima} só toca o disco se o fundo ainda não tiver
+ * terminado. Sem executor, tudo acontece na chamada.
+ *
+ * Classe sem dependências do Android: a gravação vem de fora e precisa ser durável
+ * quando {@link Persistencia#gravarLimite} retorna.
+ */
+public class SequenceAllocator {
+
+    public interface Persistencia {
+        /** Limite gravado por último (0 se nunca houve reserva). */
+        long carregarLimite();
+
+        void gravarLimite(long limite);
+    }
+
+    /** Número entregue e se ele abre um bloco reservado. */
+    public static final class Numero {
+        public final long seq;
+        public final boolean inicioBloco;
+
+        Numero(long seq, boolean inicioBloco) {
+            this.seq = seq;
+            this.inicioBloco = inicioBloco;
+        }
+    }
+
+    private final Persistencia persistencia;
+    private final int tamanhoBloco;
+    private final int limiarAntecipacao;
+    private final Executor reservaAntecipada;
+    // Serializa carga e gravações: o limite em disco nunca pode voltar
+    private final Object gravacao = new Object();
+
+    // Protegidos por "this"; limite só muda segurando também "gravacao"
+    private boolean carregado = false;
+    private long proxima;
+    private long limite;
+    private long inicioUltimoBloco = -1L;
+    private boolean antecipacaoAgendada = false;
+    private long reservas = 0;
+
+    public SequenceAllocator(Persistencia persistencia, int tamanhoBloco) {
+        this(persistencia, tamanhoBloco, null);
+    }
+
+    /** @param reservaAntecipada onde carregar e reservar blocos; {@code null} para fazer na chamada */
+    public SequenceAllocator(Persistencia persistencia, int tamanhoBloco, Executor reservaAntecipada) {
+        if (tamanhoBloco < 1) throw new IllegalArgumentException("tamanhoBloco deve ser >= 1");
+        this.persistencia = persistencia;
+        this.tamanhoBloco = tamanhoBloco;
+        // Menor que o bloco: uma antecipação nunca reserva outra antes de o bloco novo começar
+        this.limiarAntecipacao = Math.min(tamanhoBloco - 1, Math.max(1, tamanhoBloco / 10));
+        this.reservaAntecipada = reservaAntecipada;
+
+        if (reservaAntecipada == null) {
+            carregar();
+        } else {
+            synchronized (this) {
+                antecipacaoAgendada = true;
+            }
+            reservaAntecipada.execute(this::antecipar);
+        }
+    }
+
+    public long proxima() {
+        return proximoNumero().seq;
+    }
+
+    public Numero proximoNumero() {
+        while (true) {
+            synchronized (this) {
+                if (carregado && proxima < limite) {
+                    long seq = proxima++;
+                    agendarAntecipacaoSePreciso();
+                    return new Numero(seq, seq == inicioUltimoBloco);
+                }
+            }
+            // Fundo atrasado (ou ausente): reserva aqui mesmo
+            reservar(false);
+        }
+    }
+
+    /** Blocos reservados desde a criação, isto é, gravações em disco. */
+    public synchronized long getReservas() {
+        return reservas;
+    }
+
+    private void agendarAntecipacaoSePreciso() {
+        if (reservaAntecipada == null || antecipacaoAgendada) return;
+        if (limite - proxima > limiarAntecipacao) return;
+        antecipacaoAgendada = true;
+        reservaAntecipada.execute(this::antecipar);
+    }
+
+    private void antecipar() {
+        try {
+            reservar(true);
+        } finally {
+            synchronized (this) {
+                antecipacaoAgendada = false;
+            }
+        }
+    }
+
+    private void carregar() {
+        synchronized (gravacao) {
+            synchronized (this) {
+                if (carregado) return;
+            }
+            // Começa em 1: 0 fica livre para "sem sequência"
+            long gravado = Math.max(1L, persistencia.carregarLimite());
+            synchronized (this) {
+                proxima = gravado;
+                limite = gravado;
+                carregado = true;
+            }
+        }
+    }
+
+    /**
+     * Grava o limite do bloco seguinte, fora do lock de quem pede números.
+     * Antecipada, só reserva se restarem poucos; na chamada, só se não restar nenhum.
+     */
+    private void reservar(boolean antecipada) {
+        synchronized (gravacao) {
+            carregar();
+            long inicio;
+            synchronized (this) {
+                long restantes = limite - proxima;
+                if (restantes > (antecipada ? limiarAntecipacao : 0)) return;
+                inicio = limite;
+            }
+            long novoLimite = inicio + tamanhoBloco;
+            // Grava antes de entregar: se o processo morrer, o próximo começa depois do bloco
+            persistencia.gravarLimite(novoLimite);
+            synchronized (this) {
+                limite = novoLimite;
+                inicioUltimoBloco = inicio;
+                reservas++;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.carekeeper.service.prefs;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estado tipado em memória com persistência adiada (write-behind).
+ *
+ * Leituras e escritas acontecem só no mapa em memória. As chaves alteradas ficam marcadas
+ * e são gravadas juntas, numa única escrita, depois de uma janela de {@code janelaMs}
+ * contada a partir da primeira alteração pendente. Uma sequência contínua de escritas
+ * (o progresso do botão de pânico a 60 fps, por exemplo) vira uma gravação por janela,
+ * e não uma por quadro.
+ *
+ * Classe sem dependências do Android: a gravação e o agendamento vêm de fora.
+ */
+public class WriteBehindStore {
+
+    /** Destino das gravações (SharedPreferences no app). */
+    public interface Persistencia {
+        Map<String, ?> carregar();
+
+        /** Grava de uma vez as chaves alteradas e removidas desde a última gravação. */
+        void gravar(Map<String, Object> alterados, Set<String> removidos);
+
+        void limpar();
+    }
+
+    /** Executa a gravação depois de um atraso, fora da thread de quem escreveu. */
+    public interface Agendador {
+        void agendar(Runnable tarefa, long atrasoMs);
+    }
+
+    private static final Object REMOVIDO = new Object();
+
+    private final Map<String, Object> valores = new ConcurrentHashMap<>();
+    private final Persistencia persistencia;
+    private final Agendador agendador;
+    private final long janelaMs;
+    private final Runnable gravacao = this::persistirAgora;
+    // Serializa as gravações para que um lote antigo nunca sobrescreva um mais novo
+    private final Object lockGravacao = new Object();
+
+    // Protegidos por "this"
+    private final Map<String, Object> pendentes = new HashMap<>();
+    private boolean gravacaoAgendada = false;
+
+    public WriteBehindStore(Persistencia persistencia, Agendador agendador, long janelaMs) {
+        this.persistencia = persistencia;
+        this.agendador = agendador;
+        this.janelaMs = janelaMs;
+        Map<String, ?> iniciais = persistencia.carregar();
+        if (iniciais != null) {
+            for (Map.Entry<String, ?> e : iniciais.entrySet()) {
+                if (e.getValue() != null) valores.put(e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    // ===========================================================
+    // =============== LEITURA ==================================
+    // ===========================================================
+    public boolean getBoolean(String chave, boolean padrao) {
+        Object v = valores.get(chave);
+        return v instanceof Boolean ? (Boolean) v : padrao;
+    }
+
+    public float getFloat(String chave, float padrao) {
+        Object v = valores.get(chave);
+        return v instanceof Float ? (Float) v : padrao;
+    }
+
+    public int getInt(String chave, int padrao) {
+        Object v = valores.get(chave);
+        return v instanceof Integer ? (Integer) v : padrao;
+    }
+
+    public long getLong(String chave, long padrao) {
+        Object v = valores.get(chave);
+        return v instanceof Long ? (Long) v : padrao;
+    }
+
+    public String getString(String chave, String padrao) {
+        Object v = valores.get(chave);
+        return v instanceof String ? (String) v : padrao;
+    }
+
+    // ===========================================================
+    // =============== ESCRITA ==================================
+    // ===========================================================
+    public void put(String chave, Object valor) {
+        put(chave, valor, false);
+    }
+
+    /**
+     * @param imediato grava sem esperar a janela (token, alerta), junto com o que estiver pendente
+     */
+    public void put(String chave, Object valor, boolean imediato) {
+        if (valor == null) {
+            remover(chave, imediato);
+            return;
+        }
+        boolean agendar;
+        // Mapa e pendentes juntos: com escritores concorrentes, o valor gravado é o último escrito
+        synchronized (this) {
+            Object anterior = valores.put(chave, valor);
+            if (Objects.equals(anterior, valor) && !imediato) return; // nada mudou
+            agendar = marcar(chave, valor, imediato);
+        }
+        gravar(imediato, agendar);
+    }
+
+    public void remover(String chave, boolean imediato) {
+        boolean agendar;
+        synchronized (this) {
+            Object anterior = valores.remove(chave);
+            if (anterior == null && !imediato) return;
+            agendar = marcar(chave, REMOVIDO, imediato);
+        }
+        gravar(imediato, agendar);
+    }
+
+    /** Esvazia memória e disco. */
+    public void limpar() {
+        synchronized (lockGravacao) {
+            synchronized (this) {
+                valores.clear();
+                pendentes.clear();
+            }
+            persistencia.limpar();
+        }
+    }
+
+    /** Chamado com "this" travado; diz se cabe a quem escreveu agendar a gravação. */
+    private boolean marcar(String chave, Object valor, boolean imediato) {
+        pendentes.put(chave, valor);
+        boolean agendar = !imediato && !gravacaoAgendada;
+        if (agendar) gravacaoAgendada = true;
+        return agendar;
+    }
+
+    /** Fora do lock: a gravação imediata toma lockGravacao, que vem antes de "this". */
+    private void gravar(boolean imediato, boolean agendar) {
+        if (imediato) {
+            persistirAgora();
+        } else if (agendar) {
+            // Janela fixa desde a primeira alteração: escritas contínuas não adiam para sempre
+            agendador.agendar(gravacao, janelaMs);
+        }
+    }
+
+    /** Grava tudo o que está pendente (por exemplo ao sair da tela ou parar o serviço). */
+    public void persistirAgora() {
+        synchronized (lockGravacao) {
+            Map<String, Object> alterados = new HashMap<>();
+            Set<String> removidos = new HashSet<>();
+            synchronized (this) {
+                gravacaoAgendada = false;
+                if (pendentes.isEmpty()) return;
+                for (Map.Entry<String, Object> e : pendentes.entrySet()) {
+                    if (e.getValue() == REMOVIDO) removidos.add(e.getKey());
+                    else alterados.put(e.getKey(), e.getValue());
+                }
+                pendentes.clear();
+            }
+            persistencia.gravar(alterados, removidos);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.example.carekeeper.network.ApiClient;
 import com.example.carekeeper.network.ApiService;
 import com.example.carekeeper.service.SensorService;
 import com.example.carekeeper.service.SharedPreferencesService;
+import com.example.carekeeper.service.auth.TokenRefreshScheduler;
 import com.example.carekeeper.utils.JwtUtils;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
@@ -100,6 +101,7 @@ public class LoginFragment extends Fragment {
 
                     if (token != null && !token.isEmpty()) {
                         prefs.saveJwtToken(token);
+                        TokenRefreshScheduler.getInstance(requireContext()).agendar();
                         Toast.makeText(getContext(), "Login realizado com sucesso!", Toast.LENGTH_SHORT).show();
 
                         // Inicia o serviço de sensores
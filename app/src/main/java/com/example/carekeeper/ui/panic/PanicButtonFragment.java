@@ -12,7 +12,6 @@ import android.os.Handler;
 import android.os.Looper;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
@@ -26,16 +25,9 @@ import androidx.core.app.ActivityCompat;
 import androidx.fragment.app.Fragment;
 
 import com.example.carekeeper.R;
-import com.example.carekeeper.dto.PanicAlertRequest;
-import com.example.carekeeper.network.ApiClient;
-import com.example.carekeeper.network.ApiService;
 import com.example.carekeeper.service.SharedPreferencesService;
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationServices;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.example.carekeeper.service.alert.AlertDispatcher;
+import com.example.carekeeper.service.prefs.DeviceSequence;
 
 public class PanicButtonFragment extends Fragment {
 
@@ -53,8 +45,6 @@ public class PanicButtonFragment extends Fragment {
     private ValueAnimator progressAnimator;
     private ValueAnimator flashAnimator;
     private MediaPlayer alertSound;
-    private ApiService api;
-    private FusedLocationProviderClient fusedLocationClient;
     private SharedPreferencesService prefs;
 
     @Nullable
@@ -74,9 +64,8 @@ public class PanicButtonFragment extends Fragment {
 
         prefs = new SharedPreferencesService(requireContext());
         holdDurationMs = prefs.getHoldDuration(); // pega do shared preferences
-
-        api = ApiClient.getClientWithAuth(prefs).create(ApiService.class);
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(requireContext());
+        // Reserva a sequência dos alertas em segundo plano antes de qualquer toque
+        DeviceSequence.getInstance(requireContext());
 
         // 🔹 Carrega estado persistido
         if (prefs.isPanicTriggered()) {
@@ -297,39 +286,7 @@ public class PanicButtonFragment extends Fragment {
             return;
         }
 
-        String token = prefs.getJwtToken();
-        if (token == null || token.trim().isEmpty()) {
-            Log.w("PanicButton", "⚠️ Nenhum token JWT encontrado. Ignorando envio do alerta.");
-            return;
-        }
-
-        fusedLocationClient.getLastLocation().addOnSuccessListener(location -> {
-            double lat = 0, lon = 0;
-            if (location != null) {
-                lat = location.getLatitude();
-                lon = location.getLongitude();
-                prefs.setLastLocation(lat, lon);
-            }
-
-            PanicAlertRequest alertDTO = new PanicAlertRequest();
-            alertDTO.setLeitura("Botão de pânico acionado");
-            alertDTO.setLatitude(lat);
-            alertDTO.setLongitude(lon);
-
-            api.triggerPanicButton(alertDTO).enqueue(new Callback<>() {
-                @Override
-                public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
-                    if (response.isSuccessful()) Log.i("PanicButton", "🚨 Alerta de pânico enviado!");
-                    else if (response.code() == 401) Log.w("PanicButton", "🔒 Token expirado ou inválido.");
-                    else Log.w("PanicButton", "⚠️ Falha ao enviar alerta: " + response.code());
-                }
-
-                @Override
-                public void onFailure(@NonNull Call<Void> call, @NonNull Throwable t) {
-                    Log.e("PanicButton", "❌ Erro ao enviar alerta: " + t.getMessage());
-                }
-            });
-        });
+        AlertDispatcher.getInstance(requireContext()).disparar("Botão de pânico acionado");
     }
 
     @Override
@@ -338,6 +295,7 @@ public class PanicButtonFragment extends Fragment {
         cancelHold();
         stopRippleLoop();
         stopButtonFlashing();
+        prefs.persistirAgora(); // não espera a janela de gravação ao sair da tela
     }
 
     @Override
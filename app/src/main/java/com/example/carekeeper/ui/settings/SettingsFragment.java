@@ -21,6 +21,7 @@ import com.example.carekeeper.network.ApiClient;
 import com.example.carekeeper.network.ApiService;
 import com.example.carekeeper.service.SensorService;
 import com.example.carekeeper.service.SharedPreferencesService;
+import com.example.carekeeper.service.auth.TokenRefreshScheduler;
 import com.example.carekeeper.ui.emergency.EmergencyContactsFragment;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
@@ -88,6 +89,7 @@ public class SettingsFragment extends Fragment {
             public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
                 if (response.isSuccessful()) {
                     prefsService.clearJwtToken();
+                    TokenRefreshScheduler.getInstance(requireContext()).cancelar();
                     SensorService.parar(requireContext());
 
                     Toast.makeText(getContext(), "Logout realizado com sucesso!", Toast.LENGTH_SHORT).show();
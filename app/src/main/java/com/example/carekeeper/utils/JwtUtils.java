@@ -10,9 +10,28 @@ import java.nio.charset.StandardCharsets;
 /**
  * Utilitário para trabalhar com JWT no lado do cliente.
  * Permite decodificar o payload e verificar expiração.
+ *
+ * O último token decodificado fica em cache: chamadas repetidas com o mesmo token
+ * não refazem split, Base64 nem parse do JSON. {@link #invalidarCache()} é chamado
+ * sempre que um novo token é salvo.
  */
 public class JwtUtils {
 
+    /** Token já decodificado. exp em segundos desde epoch, ou -1 se ausente. */
+    private static final class TokenDecodificado {
+        final String token;
+        final JSONObject payload;
+        final long exp;
+
+        TokenDecodificado(String token, JSONObject payload, long exp) {
+            this.token = token;
+            this.payload = payload;
+            this.exp = exp;
+        }
+    }
+
+    private static volatile TokenDecodificado cache;
+
     /**
      * Verifica se o JWT está expirado.
      *
@@ -20,47 +39,62 @@ public class JwtUtils {
      * @return true se expirado ou token inválido; false se ainda válido
      */
     public static boolean isTokenExpired(String token) {
-        if (token == null || token.isEmpty()) return true;
-
-        try {
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) return true; // token malformado
+        long exp = getExpiracao(token);
+        if (exp < 0) return true; // inválido ou sem exp, considera expirado
 
-            String payload = parts[1];
-            byte[] decodedBytes = Base64.decode(payload, Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
-            String decodedPayload = new String(decodedBytes, StandardCharsets.UTF_8);
-
-            JSONObject jsonObject = new JSONObject(decodedPayload);
-            if (!jsonObject.has("exp")) return true; // sem exp, considera expirado
-
-            long exp = jsonObject.getLong("exp"); // exp em segundos desde epoch
-            long now = System.currentTimeMillis() / 1000L;
-
-            return now >= exp;
+        long now = System.currentTimeMillis() / 1000L;
+        return now >= exp;
+    }
 
-        } catch (JSONException | IllegalArgumentException e) {
-            e.printStackTrace();
-            return true; // qualquer erro, considera expirado
-        }
+    /**
+     * Retorna o campo exp do JWT (segundos desde epoch).
+     * @param token JWT
+     * @return exp ou -1 se o token for inválido ou não tiver exp
+     */
+    public static long getExpiracao(String token) {
+        TokenDecodificado decodificado = decodificar(token);
+        return decodificado != null ? decodificado.exp : -1L;
     }
 
     /**
      * Retorna o payload decodificado do JWT como JSONObject.
+     * O objeto é compartilhado pelo cache e não deve ser modificado.
      * @param token JWT
      * @return JSONObject do payload ou null se inválido
      */
     public static JSONObject getPayload(String token) {
+        TokenDecodificado decodificado = decodificar(token);
+        return decodificado != null ? decodificado.payload : null;
+    }
+
+    /** Descarta o token em cache (chamado ao salvar ou limpar o token). */
+    public static void invalidarCache() {
+        cache = null;
+    }
+
+    private static TokenDecodificado decodificar(String token) {
         if (token == null || token.isEmpty()) return null;
 
+        TokenDecodificado atual = cache;
+        if (atual != null && atual.token.equals(token)) return atual;
+
         try {
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) return null;
+            int primeiroPonto = token.indexOf('.');
+            int segundoPonto = token.indexOf('.', primeiroPonto + 1);
+            if (primeiroPonto < 0 || segundoPonto < 0 || token.indexOf('.', segundoPonto + 1) >= 0) {
+                return null; // token malformado
+            }
 
-            String payload = parts[1];
+            String payload = token.substring(primeiroPonto + 1, segundoPonto);
             byte[] decodedBytes = Base64.decode(payload, Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
             String decodedPayload = new String(decodedBytes, StandardCharsets.UTF_8);
 
-            return new JSONObject(decodedPayload);
+            JSONObject jsonObject = new JSONObject(decodedPayload);
+            long exp = jsonObject.has("exp") ? jsonObject.getLong("exp") : -1L;
+
+            TokenDecodificado novo = new TokenDecodificado(token, jsonObject, exp);
+            cache = novo;
+            return novo;
 
         } catch (JSONException | IllegalArgumentException e) {
             e.printStackTrace();
@@ -0,0 +1,116 @@
+package com.example.carekeeper.network;
+
+import com.example.carekeeper.service.auth.TokenRenewer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Todos os pontos de entrada do ApiClient precisam reaproveitar as mesmas conexões.
+ * Os clientes autenticados leem o token de um armazenamento em memória.
+ */
+public class ApiClientTest {
+
+    private static final String TOKEN = "token-teste";
+
+    private static final TokenRenewer.Armazenamento TOKENS = new TokenRenewer.Armazenamento() {
+        @Override
+        public String getJwtToken() {
+            return TOKEN;
+        }
+
+        @Override
+        public void saveJwtToken(String token) {}
+    };
+
+    @Test
+    public void todosOsClientesCompartilhamOPoolDeConexoes() {
+        ConnectionPool pool = ApiClient.getHttpClient().connectionPool();
+
+        assertSame(pool, ((OkHttpClient) ApiClient.getClient().callFactory()).connectionPool());
+        for (Prioridade prioridade : Prioridade.values()) {
+            assertSame(pool, ApiClient.getHttpClientWithAuth(TOKENS, prioridade).connectionPool());
+            assertSame(pool, ((OkHttpClient) ApiClient.getClientWithAuth(TOKENS, prioridade).callFactory()).connectionPool());
+        }
+    }
+
+    /**
+     * Uma requisição por cliente, em sequência, contra o mesmo servidor: todas precisam
+     * chegar pela mesma conexão TCP, com a sequência dela crescendo a cada uma.
+     */
+    @Test
+    public void requisicoesDeTodosOsClientesUsamUmaSoConexao() throws Exception {
+        List<OkHttpClient> clientes = new ArrayList<>();
+        clientes.add(ApiClient.getHttpClient());
+        clientes.add((OkHttpClient) ApiClient.getClient().callFactory());
+        for (Prioridade prioridade : Prioridade.values()) {
+            clientes.add(ApiClient.getHttpClientWithAuth(TOKENS, prioridade));
+            clientes.add((OkHttpClient) ApiClient.getClientWithAuth(TOKENS, prioridade).callFactory());
+        }
+
+        ConnectionPool pool = ApiClient.getHttpClient().connectionPool();
+        pool.evictAll(); // conexões de outros testes não contam
+        MockWebServer servidor = new MockWebServer();
+        servidor.start();
+        try {
+            for (OkHttpClient cliente : clientes) {
+                servidor.enqueue(new MockResponse().setBody("ok"));
+                Request request = new Request.Builder().url(servidor.url("/api/ping")).build();
+                try (Response response = cliente.newCall(request).execute()) {
+                    assertEquals(200, response.code());
+                    assertEquals("ok", response.body().string());
+                }
+            }
+
+            for (int i = 0; i < clientes.size(); i++) {
+                RecordedRequest recebida = servidor.takeRequest(5, TimeUnit.SECONDS);
+                assertNotNull(recebida);
+                assertEquals("requisição " + i + " abriu outra conexão", i, recebida.getSequenceNumber());
+                // As duas primeiras vêm do cliente base, sem token
+                String esperado = i < 2 ? null : "Bearer " + TOKEN;
+                assertEquals(esperado, recebida.getHeader("Authorization"));
+            }
+            assertEquals(1, pool.connectionCount());
+        } finally {
+            servidor.shutdown();
+            pool.evictAll();
+        }
+    }
+
+    @Test
+    public void clientesSaoReaproveitados() {
+        assertSame(ApiClient.getClient(), ApiClient.getClient());
+        assertSame(ApiClient.getClientWithAuth(TOKENS), ApiClient.getClientWithAuth(TOKENS, Prioridade.NORMAL));
+        assertNotSame(ApiClient.getHttpClientWithAuth(TOKENS, Prioridade.CRITICA).dispatcher(),
+                ApiClient.getHttpClientWithAuth(TOKENS, Prioridade.NORMAL).dispatcher());
+    }
+
+    @Test
+    public void limitePorHostValeParaTodasAsFaixas() {
+        try {
+            ApiClient.setMaxRequisicoesPorHost(1);
+            assertEquals(1, ApiClient.getHttpClient().dispatcher().getMaxRequestsPerHost());
+            for (Prioridade prioridade : Prioridade.values()) {
+                assertEquals(1, ApiClient.getHttpClientWithAuth(TOKENS, prioridade).dispatcher().getMaxRequestsPerHost());
+            }
+        } finally {
+            ApiClient.setMaxRequisicoesPorHost(4);
+        }
+        // Nunca acima da concorrência da faixa
+        assertEquals(Prioridade.LOTE.concorrencia,
+                ApiClient.getHttpClientWithAuth(TOKENS, Prioridade.LOTE).dispatcher().getMaxRequestsPerHost());
+    }
+}
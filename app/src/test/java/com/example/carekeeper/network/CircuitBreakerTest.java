@@ -0,0 +1,117 @@
+package com.example.carekeeper.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Relógio simulado: o tempo só anda quando o teste manda.
+ */
+public class CircuitBreakerTest {
+
+    private static final long ESPERA_INICIAL_MS = 5_000L;
+    private static final long ESPERA_MAXIMA_MS = 5 * 60_000L;
+
+    private static CircuitBreaker novo() {
+        return new CircuitBreaker(3, ESPERA_INICIAL_MS, ESPERA_MAXIMA_MS, new Random(7));
+    }
+
+    @Test
+    public void abreDepoisDoLimiarEFechaComSonda() {
+        CircuitBreaker circuito = novo();
+        List<String> transicoes = new ArrayList<>();
+        circuito.adicionarOuvinte((anterior, novo) -> transicoes.add(anterior + "→" + novo));
+
+        circuito.registrarFalha(0);
+        circuito.registrarFalha(0);
+        assertTrue(circuito.permitir(0));
+        circuito.registrarFalha(0);
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuito.getEstado());
+        assertFalse(circuito.permitir(1));
+
+        long espera = circuito.getEsperaMs(0);
+        assertTrue(espera >= ESPERA_INICIAL_MS / 2 && espera <= ESPERA_INICIAL_MS);
+
+        // Uma sonda só; as outras continuam recusadas até ela terminar
+        assertTrue(circuito.permitir(espera));
+        assertEquals(CircuitBreaker.Estado.SEMIABERTO, circuito.getEstado());
+        assertFalse(circuito.permitir(espera));
+
+        circuito.registrarSucesso(espera + 100);
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuito.getEstado());
+        assertEquals(0L, circuito.getEsperaMs(espera + 100));
+        assertEquals(List.of("FECHADO→ABERTO", "ABERTO→SEMIABERTO", "SEMIABERTO→FECHADO"), transicoes);
+        assertEquals(2, circuito.getRecusadas());
+    }
+
+    @Test
+    public void sondaQueFalhaDobraEspera() {
+        CircuitBreaker circuito = novo();
+        long agora = 0;
+        for (int i = 0; i < 3; i++) circuito.registrarFalha(agora);
+
+        for (int abertura = 0; abertura < 10; abertura++) {
+            long espera = circuito.getEsperaMs(agora);
+            long teto = Math.min(ESPERA_MAXIMA_MS, ESPERA_INICIAL_MS << abertura);
+            assertTrue("espera " + espera + " fora de [" + teto / 2 + ", " + teto + "]",
+                    espera >= teto / 2 && espera <= teto);
+
+            agora += espera;
+            assertTrue(circuito.permitir(agora));
+            circuito.registrarFalha(agora);
+            assertEquals(CircuitBreaker.Estado.ABERTO, circuito.getEstado());
+        }
+    }
+
+    @Test
+    public void sondaCanceladaPodeSerRefeita() {
+        CircuitBreaker circuito = novo();
+        for (int i = 0; i < 3; i++) circuito.registrarFalha(0);
+        long espera = circuito.getEsperaMs(0);
+
+        assertTrue(circuito.permitir(espera));
+        circuito.registrarDesistencia();
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuito.getEstado());
+        assertTrue(circuito.permitir(espera + 1));
+    }
+
+    @Test
+    public void sucessoNoMeioReiniciaContagem() {
+        CircuitBreaker circuito = novo();
+        circuito.registrarFalha(0);
+        circuito.registrarFalha(0);
+        circuito.registrarSucesso(0);
+        circuito.registrarFalha(0);
+        circuito.registrarFalha(0);
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuito.getEstado());
+    }
+
+    /** Backend fora do ar por 30 min, uma requisição por segundo, como o envio de leituras. */
+    @Test
+    public void backendForaDoArNaoGastaTimeoutPorRequisicao() {
+        CircuitBreaker circuito = novo();
+        long foraDoArAteMs = 30 * 60_000L;
+        int tentativasNaQueda = 0;
+        long fechouEmMs = -1L;
+
+        for (long agora = 0; fechouEmMs < 0; agora += 1_000L) {
+            if (!circuito.permitir(agora)) continue;
+            if (agora < foraDoArAteMs) {
+                tentativasNaQueda++;
+                circuito.registrarFalha(agora);
+            } else {
+                circuito.registrarSucesso(agora);
+                fechouEmMs = agora;
+            }
+        }
+
+        // 3 falhas para abrir e uma sonda por abertura, com espera crescente
+        assertTrue(tentativasNaQueda < 20);
+        assertTrue(fechouEmMs - foraDoArAteMs <= ESPERA_MAXIMA_MS);
+        assertEquals(1, circuito.getTransicoes(CircuitBreaker.Estado.FECHADO));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.carekeeper.network;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Gzip de lotes de 30 leituras em JSON, com o celular parado e em movimento: taxa de
+ * compressão e custo de CPU comparados ao {@code GZIPOutputStream} no nível padrão.
+ */
+public class GzipCompressorTest {
+
+    private static final int LEITURAS = 30;
+    private static final int AQUECIMENTO = 1_000;
+    private static final int ITERACOES = 2_000;
+    private static final int RODADAS = 5;
+
+    private static List<SensorDTO> lote(boolean parado) {
+        Random r = new Random(3);
+        List<SensorDTO> leituras = new ArrayList<>();
+        long ts = 1_760_000_000_000L;
+        for (int i = 0; i < LEITURAS; i++) {
+            double ruido = parado ? 0.01 : 1.5;
+            leituras.add(new SensorDTO(
+                    r.nextGaussian() * ruido, r.nextGaussian() * ruido, 9.80665 + r.nextGaussian() * ruido,
+                    r.nextGaussian() * ruido / 10, r.nextGaussian() * ruido / 10, r.nextGaussian() * ruido / 10,
+                    -16.6868912 + (parado ? 0 : i * 1e-5), -49.2647943, ts + i * 1000L));
+        }
+        return leituras;
+    }
+
+    private static byte[] gzipPadrao(byte[] dados) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        }
+        return saida.toByteArray();
+    }
+
+    private static byte[] descomprimir(byte[] dados) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(dados))) {
+            ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            byte[] bloco = new byte[4096];
+            int n;
+            while ((n = gzip.read(bloco)) > 0) saida.write(bloco, 0, n);
+            return saida.toByteArray();
+        }
+    }
+
+    @Test
+    public void geraGzipValido() throws IOException {
+        byte[] json = new Gson().toJson(lote(false)).getBytes(StandardCharsets.UTF_8);
+        assertArrayEquals(json, descomprimir(GzipCompressor.comprimir(json)));
+        assertArrayEquals(new byte[0], descomprimir(GzipCompressor.comprimir(new byte[0])));
+    }
+
+    @Test
+    public void jsonCaiAMenosDaMetade() {
+        Gson gson = new Gson();
+        for (boolean parado : new boolean[]{true, false}) {
+            byte[] corpo = gson.toJson(lote(parado)).getBytes(StandardCharsets.UTF_8);
+            int tamanho = GzipCompressor.comprimir(corpo).length;
+            assertTrue((parado ? "parado" : "movimento") + ": " + corpo.length + " → " + tamanho,
+                    tamanho * 2 < corpo.length);
+        }
+    }
+
+    @Test
+    public void nivelPadraoQuaseNaoReduzEGastaMaisCpu() throws IOException {
+        Gson gson = new Gson();
+        for (boolean parado : new boolean[]{true, false}) {
+            String cenario = parado ? "parado" : "movimento";
+            byte[] corpo = gson.toJson(lote(parado)).getBytes(StandardCharsets.UTF_8);
+
+            // Poucos bytes a menos no nível padrão
+            int rapido = GzipCompressor.comprimir(corpo).length;
+            int padrao = gzipPadrao(corpo).length;
+            assertTrue(cenario + ": " + rapido + " contra " + padrao + " bytes", rapido <= padrao * 1.25);
+
+            long soma = 0;
+            for (int i = 0; i < AQUECIMENTO; i++) {
+                soma += GzipCompressor.comprimir(corpo).length + gzipPadrao(corpo).length;
+            }
+            // Melhor rodada de cada um: descarta pausas de GC e do agendador
+            long melhorRapido = Long.MAX_VALUE, melhorPadrao = Long.MAX_VALUE;
+            for (int r = 0; r < RODADAS; r++) {
+                long inicio = System.nanoTime();
+                for (int i = 0; i < ITERACOES; i++) soma += GzipCompressor.comprimir(corpo).length;
+                melhorRapido = Math.min(melhorRapido, System.nanoTime() - inicio);
+
+                inicio = System.nanoTime();
+                for (int i = 0; i < ITERACOES; i++) soma += gzipPadrao(corpo).length;
+                melhorPadrao = Math.min(melhorPadrao, System.nanoTime() - inicio);
+            }
+
+            assertTrue(soma > 0);
+            assertTrue(cenario + ": " + melhorRapido / ITERACOES + " ns contra " + melhorPadrao / ITERACOES + " ns",
+                    melhorRapido <= melhorPadrao);
+        }
+    }
+}
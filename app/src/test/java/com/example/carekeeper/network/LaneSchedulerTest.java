@@ -0,0 +1,156 @@
+package com.example.carekeeper.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Requisições simuladas por threads que seguram a vaga até o teste liberar. Nada depende
+ * de relógio: a admissão é vista por latches e pelo estado da thread parada na fila.
+ */
+public class LaneSchedulerTest {
+
+    private static final long LIMITE_S = 5L;
+
+    @Test
+    public void alertaEntraComFaixaNormalCheia() throws Exception {
+        LaneScheduler scheduler = new LaneScheduler();
+        List<Runnable> telemetria = encher(scheduler, Prioridade.NORMAL);
+
+        // Mais telemetria espera a vez
+        CountDownLatch leituraEntrou = new CountDownLatch(1);
+        Thread leitura = entrarEmThread(scheduler, Prioridade.NORMAL, leituraEntrou);
+        aguardarNaFila(leitura);
+
+        // O alerta tem faixa própria e não espera ninguém
+        CountDownLatch alertaEntrou = new CountDownLatch(1);
+        entrarEmThread(scheduler, Prioridade.CRITICA, alertaEntrou);
+        assertTrue(alertaEntrou.await(LIMITE_S, TimeUnit.SECONDS));
+        assertEquals(1, leituraEntrou.getCount());
+
+        telemetria.get(0).run();
+        assertTrue(leituraEntrou.await(LIMITE_S, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void naMesmaFaixaAlertaEsperaAVaga() throws Exception {
+        LaneScheduler scheduler = new LaneScheduler();
+        List<Runnable> telemetria = encher(scheduler, Prioridade.NORMAL);
+
+        CountDownLatch alertaEntrou = new CountDownLatch(1);
+        Thread alerta = entrarEmThread(scheduler, Prioridade.NORMAL, alertaEntrou);
+        aguardarNaFila(alerta);
+        assertEquals(1, alertaEntrou.getCount());
+
+        telemetria.get(0).run();
+        assertTrue(alertaEntrou.await(LIMITE_S, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void criticaCancelaLoteEmAndamento() throws Exception {
+        LaneScheduler scheduler = new LaneScheduler();
+        AtomicBoolean cancelada = new AtomicBoolean(false);
+
+        Runnable liberarLote = scheduler.entrar(Prioridade.LOTE, () -> cancelada.set(true));
+        Runnable liberarCritica = scheduler.entrar(Prioridade.CRITICA, () -> fail("crítica não é cancelada"));
+
+        assertTrue(cancelada.get());
+        assertEquals(1, scheduler.getLoteCanceladas());
+        liberarLote.run();
+        liberarCritica.run();
+        assertEquals(0, scheduler.getAtivas(Prioridade.LOTE));
+        assertEquals(0, scheduler.getAtivas(Prioridade.CRITICA));
+    }
+
+    @Test
+    public void loteEsperaCriticaTerminar() throws Exception {
+        LaneScheduler scheduler = new LaneScheduler();
+        Runnable liberarCritica = scheduler.entrar(Prioridade.CRITICA, () -> { });
+
+        CountDownLatch entrou = new CountDownLatch(1);
+        Thread lote = entrarEmThread(scheduler, Prioridade.LOTE, entrou);
+        aguardarNaFila(lote);
+        assertEquals(1, entrou.getCount());
+
+        liberarCritica.run();
+        assertTrue(entrou.await(LIMITE_S, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void faixaRespeitaConcorrencia() throws Exception {
+        LaneScheduler scheduler = new LaneScheduler();
+        AtomicInteger simultaneas = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            threads.add(iniciar(() -> {
+                Runnable liberar = scheduler.entrar(Prioridade.NORMAL, () -> { });
+                maximo.accumulateAndGet(simultaneas.incrementAndGet(), Math::max);
+                soltar.await();
+                simultaneas.decrementAndGet();
+                liberar.run();
+            }));
+        }
+
+        // Admitidas paradas no latch, as outras na fila do scheduler
+        for (Thread t : threads) aguardarNaFila(t);
+        assertEquals(Prioridade.NORMAL.concorrencia, scheduler.getAtivas(Prioridade.NORMAL));
+        assertEquals(Prioridade.NORMAL.concorrencia, simultaneas.get());
+
+        soltar.countDown();
+        for (Thread t : threads) t.join();
+        assertEquals(Prioridade.NORMAL.concorrencia, maximo.get());
+        assertEquals(0, scheduler.getAtivas(Prioridade.NORMAL));
+    }
+
+    // ===========================================================
+    // =============== AUXILIARES ===============================
+    // ===========================================================
+    private interface Tarefa {
+        void executar() throws InterruptedException;
+    }
+
+    private static Thread iniciar(Tarefa tarefa) {
+        Thread t = new Thread(() -> {
+            try {
+                tarefa.executar();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    /** Ocupa todas as vagas da faixa e devolve as ações que as liberam. */
+    private static List<Runnable> encher(LaneScheduler scheduler, Prioridade faixa) throws InterruptedException {
+        List<Runnable> liberar = new ArrayList<>();
+        for (int i = 0; i < faixa.concorrencia; i++) liberar.add(scheduler.entrar(faixa, () -> { }));
+        return liberar;
+    }
+
+    private static Thread entrarEmThread(LaneScheduler scheduler, Prioridade faixa, CountDownLatch entrou) {
+        return iniciar(() -> {
+            scheduler.entrar(faixa, () -> { });
+            entrou.countDown();
+        });
+    }
+
+    /** Espera a thread parar em WAITING: no wait() do scheduler ou, se admitida, num latch do teste. */
+    private static void aguardarNaFila(Thread thread) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(LIMITE_S);
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue("thread não chegou à fila", System.nanoTime() < limite);
+            Thread.yield();
+        }
+    }
+}
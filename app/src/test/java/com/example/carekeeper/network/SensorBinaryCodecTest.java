@@ -0,0 +1,209 @@
+package com.example.carekeeper.network;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.dto.SensorWindowDTO;
+import com.example.carekeeper.service.location.LocationFix;
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trip do formato binário, e bytes e tempo de codificação comparados ao JSON do Gson.
+ */
+public class SensorBinaryCodecTest {
+
+    private static final int LEITURAS = 30;
+    private static final int AQUECIMENTO = 2_000;
+    private static final int ITERACOES = 5_000;
+    private static final int RODADAS = 5;
+
+    private static List<SensorDTO> lote() {
+        List<SensorDTO> leituras = new ArrayList<>();
+        long ts = 1_760_000_000_000L;
+        for (int i = 0; i < LEITURAS; i++) {
+            leituras.add(new SensorDTO(
+                    0.0123 * i, -0.4567, 9.80665 + 0.001 * i,
+                    0.0012, -0.0034 * i, 0.0056,
+                    -16.6868912 + i * 1e-6, -49.2647943 - i * 1e-6,
+                    ts + i * 1000L));
+        }
+        return leituras;
+    }
+
+    @Test
+    public void roundTripPreservaLeituras() {
+        List<SensorDTO> originais = lote();
+        byte[] codificado = SensorBinaryCodec.encode(originais);
+        List<SensorDTO> decodificadas = SensorBinaryCodec.decode(codificado);
+
+        assertTrue(SensorBinaryCodec.isLista(codificado));
+        assertEquals(originais.size(), decodificadas.size());
+        for (int i = 0; i < originais.size(); i++) {
+            SensorDTO a = originais.get(i), b = decodificadas.get(i);
+            assertEquals(a.getTimestamp(), b.getTimestamp());
+            assertEquals(a.getAccelerometerZ(), b.getAccelerometerZ(), 1e-5);
+            assertEquals(a.getGyroscopeY(), b.getGyroscopeY(), 1e-6);
+            // Posições reconstruídas a partir da trajetória simplificada
+            assertTrue(LocationFix.distanciaM(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude())
+                    <= SensorBinaryCodec.TOLERANCIA_TRAJETORIA_M);
+        }
+    }
+
+    @Test
+    public void posicaoParadaOcupaPoucosBytes() {
+        List<SensorDTO> leituras = new ArrayList<>();
+        for (int i = 0; i < LEITURAS; i++) {
+            leituras.add(new SensorDTO(0, 0, 9.8, 0, 0, 0, -16.6868912, -49.2647943, 1_760_000_000_000L + i * 1000L));
+        }
+        // Versão 1: cabeçalho de 11 bytes, timestamps (1 + 2 por leitura seguinte) e 24 + 16 bytes por leitura
+        int bytesAntes = 11 + 1 + (LEITURAS - 1) * 2 + LEITURAS * (24 + 16);
+        int bytesDepois = SensorBinaryCodec.encode(leituras).length;
+
+        List<SensorDTO> decodificadas = SensorBinaryCodec.decode(SensorBinaryCodec.encode(leituras));
+        for (SensorDTO l : decodificadas) {
+            assertEquals(-16.6868912, l.getLatitude(), 1e-7);
+            assertEquals(-49.2647943, l.getLongitude(), 1e-7);
+        }
+        // Só a primeira e a última posição vão, mais o mapa de 4 bytes
+        assertTrue(bytesAntes - bytesDepois >= LEITURAS * 16 - 4 - 2 * 2 * 5);
+    }
+
+    @Test
+    public void leiturasSemPosicaoContinuamZeradas() {
+        List<SensorDTO> leituras = lote();
+        leituras.get(10).setLatitude(0.0);
+        leituras.get(10).setLongitude(0.0);
+
+        List<SensorDTO> decodificadas = SensorBinaryCodec.decode(SensorBinaryCodec.encode(leituras));
+        assertEquals(0.0, decodificadas.get(10).getLatitude(), 0.0);
+        assertEquals(0.0, decodificadas.get(10).getLongitude(), 0.0);
+        assertEquals(leituras.get(11).getLatitude(), decodificadas.get(11).getLatitude(), 1e-7);
+    }
+
+    @Test
+    public void sequenciasEChavesCustamUmBytePorLeitura() {
+        List<SensorDTO> leituras = lote();
+        int semSequencia = SensorBinaryCodec.encode(leituras).length;
+        String dispositivo = "3f2c9a1e-7b7d-4a51-9c0e-5d2a8e61b0aa";
+        for (int i = 0; i < leituras.size(); i++) {
+            long seq = 1_000_000L + i;
+            leituras.get(i).setSeq(seq);
+            leituras.get(i).setChaveIdempotencia(dispositivo + ":" + seq);
+        }
+        leituras.get(5).setSeq(null); // registro antigo do outbox
+        leituras.get(5).setChaveIdempotencia(null);
+        leituras.get(0).setInicioBloco(true);
+        leituras.get(20).setInicioBloco(true);
+
+        byte[] codificado = SensorBinaryCodec.encode(leituras);
+        List<SensorDTO> decodificadas = SensorBinaryCodec.decode(codificado);
+        for (int i = 0; i < leituras.size(); i++) {
+            assertEquals(leituras.get(i).getSeq(), decodificadas.get(i).getSeq());
+            assertEquals(leituras.get(i).getChaveIdempotencia(), decodificadas.get(i).getChaveIdempotencia());
+            assertEquals(leituras.get(i).getInicioBloco(), decodificadas.get(i).getInicioBloco());
+        }
+        // Dispositivo uma vez, a primeira sequência em 4 bytes e o resto em 1
+        int extra = codificado.length - semSequencia;
+        assertTrue("extra=" + extra, extra <= 1 + dispositivo.length() + 4 + (LEITURAS - 1) + 1);
+    }
+
+    @Test
+    public void roundTripPreservaJanelas() {
+        List<SensorDTO> leituras = lote();
+        SensorWindowDTO janela = new SensorWindowDTO(50,
+                new double[]{-0.5, -0.25, 9.5}, new double[]{0.5, 0.25, 10.5},
+                new double[]{0.01, -0.02, 9.81}, new double[]{0.04, 0.01, 0.09}, 10.2, 35.5);
+        leituras.get(0).setJanelaAcelerometro(janela);
+        leituras.get(0).setJanelaGiroscopio(null);
+        leituras.get(1).setJanelaGiroscopio(janela);
+
+        List<SensorDTO> decodificadas = SensorBinaryCodec.decode(SensorBinaryCodec.encode(leituras));
+        assertJanela(janela, decodificadas.get(0).getJanelaAcelerometro());
+        assertNull(decodificadas.get(0).getJanelaGiroscopio());
+        assertNull(decodificadas.get(1).getJanelaAcelerometro());
+        assertJanela(janela, decodificadas.get(1).getJanelaGiroscopio());
+        assertNull(decodificadas.get(2).getJanelaAcelerometro());
+    }
+
+    // Eixos viajam como float
+    private static void assertJanela(SensorWindowDTO esperada, SensorWindowDTO real) {
+        assertNotNull(real);
+        assertEquals(esperada.getAmostras(), real.getAmostras());
+        assertArrayEquals(esperada.getMinimo(), real.getMinimo(), 1e-5);
+        assertArrayEquals(esperada.getMaximo(), real.getMaximo(), 1e-5);
+        assertArrayEquals(esperada.getMedia(), real.getMedia(), 1e-5);
+        assertArrayEquals(esperada.getVariancia(), real.getVariancia(), 1e-5);
+        assertEquals(esperada.getSma(), real.getSma(), 1e-5);
+        assertEquals(esperada.getPicoJerk(), real.getPicoJerk(), 1e-5);
+    }
+
+    @Test
+    public void versaoAnteriorSoSemOsCamposNovos() {
+        // Sem repetições nem sequências o layout é o mesmo da versão 2
+        byte[] codificado = SensorBinaryCodec.encode(lote());
+        assertEquals(SensorBinaryCodec.VERSAO, codificado[0]);
+        codificado[0] = SensorBinaryCodec.VERSAO_TRAJETORIA;
+        assertEquals(LEITURAS, SensorBinaryCodec.decode(codificado).size());
+
+        List<SensorDTO> comSequencia = lote();
+        comSequencia.get(0).setSeq(1L);
+        comSequencia.get(0).setChaveIdempotencia("d:1");
+        byte[] novo = SensorBinaryCodec.encode(comSequencia);
+        novo[0] = SensorBinaryCodec.VERSAO_TRAJETORIA;
+        try {
+            SensorBinaryCodec.decode(novo);
+            fail("a versão 2 não tinha sequências");
+        } catch (IllegalArgumentException esperado) {
+            // ok
+        }
+    }
+
+    @Test
+    public void leituraUnicaNaoEhLista() {
+        byte[] codificado = SensorBinaryCodec.encode(lote().get(0));
+        assertFalse(SensorBinaryCodec.isLista(codificado));
+        assertEquals(1, SensorBinaryCodec.decode(codificado).size());
+    }
+
+    @Test
+    public void binarioOcupaMenosQueGson() {
+        List<SensorDTO> leituras = lote();
+        int bytesJson = new Gson().toJson(leituras).getBytes(StandardCharsets.UTF_8).length;
+        int bytesBinario = SensorBinaryCodec.encode(leituras).length;
+
+        assertTrue("binário deveria ocupar menos de 1/4 do JSON", bytesBinario * 4 < bytesJson);
+    }
+
+    @Test
+    public void codificarNaoEhMaisLentoQueGson() {
+        List<SensorDTO> leituras = lote();
+        Gson gson = new Gson();
+        long soma = 0;
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            soma += SensorBinaryCodec.encode(leituras).length;
+            soma += gson.toJson(leituras).getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        // Melhor rodada de cada um: descarta pausas de GC e do agendador
+        long melhorBinario = Long.MAX_VALUE, melhorJson = Long.MAX_VALUE;
+        for (int r = 0; r < RODADAS; r++) {
+            long inicio = System.nanoTime();
+            for (int i = 0; i < ITERACOES; i++) soma += SensorBinaryCodec.encode(leituras).length;
+            melhorBinario = Math.min(melhorBinario, System.nanoTime() - inicio);
+
+            inicio = System.nanoTime();
+            for (int i = 0; i < ITERACOES; i++) soma += gson.toJson(leituras).getBytes(StandardCharsets.UTF_8).length;
+            melhorJson = Math.min(melhorJson, System.nanoTime() - inicio);
+        }
+
+        assertTrue(soma > 0);
+        assertTrue("binário " + melhorBinario / ITERACOES + " ns/lote, Gson " + melhorJson / ITERACOES + " ns/lote",
+                melhorBinario <= melhorJson);
+    }
+}
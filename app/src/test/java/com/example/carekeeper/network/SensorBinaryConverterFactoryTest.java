@@ -0,0 +1,32 @@
+package com.example.carekeeper.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Negociação do formato binário pelo {@code Accept-Post}.
+ */
+public class SensorBinaryConverterFactoryTest {
+
+    @Test
+    public void mediaTypeLevaAVersaoDoCodec() {
+        assertEquals(String.valueOf(SensorBinaryCodec.VERSAO),
+                SensorBinaryConverterFactory.MEDIA_TYPE.parameter("v"));
+    }
+
+    @Test
+    public void soAceitaAVersaoAtual() {
+        int versao = SensorBinaryCodec.VERSAO;
+        assertTrue(SensorBinaryConverterFactory.aceitaVersaoAtual(
+                "application/json, application/x-carekeeper-sensor;v=" + versao));
+        assertTrue(SensorBinaryConverterFactory.aceitaVersaoAtual(
+                "application/x-carekeeper-sensor; v=" + (versao - 1) + ", application/x-carekeeper-sensor; v=" + versao));
+
+        // Servidor de uma versão anterior, ou que não diz qual
+        assertFalse(SensorBinaryConverterFactory.aceitaVersaoAtual(
+                "application/x-carekeeper-sensor; v=" + (versao - 1)));
+        assertFalse(SensorBinaryConverterFactory.aceitaVersaoAtual("application/x-carekeeper-sensor"));
+        assertFalse(SensorBinaryConverterFactory.aceitaVersaoAtual("application/json"));
+    }
+}
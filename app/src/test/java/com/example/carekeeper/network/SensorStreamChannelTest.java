@@ -0,0 +1,224 @@
+package com.example.carekeeper.network;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.service.monitor.StreamUplinkSession;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import okhttp3.OkHttpClient;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+/**
+ * Protocolo do canal contra um servidor WebSocket de verdade (MockWebServer): "ola",
+ * "retomar", quadros binários, ack cumulativo e reenvio depois de reconectar.
+ */
+public class SensorStreamChannelTest {
+
+    private static final long ESPERA_S = 5L;
+
+    /** Lado do servidor: guarda o que chega; o teste decide o que responder. */
+    private static class ServidorFalso extends WebSocketListener {
+        final BlockingQueue<JsonObject> textos = new LinkedBlockingQueue<>();
+        final BlockingQueue<ByteString> quadros = new LinkedBlockingQueue<>();
+        volatile WebSocket socket;
+
+        @Override
+        public void onOpen(WebSocket webSocket, okhttp3.Response response) {
+            socket = webSocket;
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String texto) {
+            textos.add(JsonParser.parseString(texto).getAsJsonObject());
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, ByteString bytes) {
+            quadros.add(bytes);
+        }
+
+        JsonObject proximoTexto() throws InterruptedException {
+            JsonObject texto = textos.poll(ESPERA_S, TimeUnit.SECONDS);
+            assertNotNull("servidor não recebeu mensagem de texto", texto);
+            return texto;
+        }
+
+        ByteString proximoQuadro() throws InterruptedException {
+            ByteString quadro = quadros.poll(ESPERA_S, TimeUnit.SECONDS);
+            assertNotNull("servidor não recebeu quadro", quadro);
+            return quadro;
+        }
+
+        void enviar(String tipo, long seq) {
+            socket.send("{\"tipo\":\"" + tipo + "\",\"seq\":" + seq + "}");
+        }
+    }
+
+    /** Diário em memória: o protocolo é o foco aqui. */
+    private static class DiarioFalso implements StreamUplinkSession.Diario {
+        final List<StreamUplinkSession.Quadro> quadros = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void gravar(StreamUplinkSession.Quadro quadro) {
+            quadros.add(quadro);
+        }
+
+        @Override
+        public void confirmar(long seq) {
+            quadros.removeIf(q -> q.seq <= seq);
+        }
+
+        @Override
+        public List<StreamUplinkSession.Quadro> recuperar() {
+            return new ArrayList<>();
+        }
+    }
+
+    private final MockWebServer servidor = new MockWebServer();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final DiarioFalso diario = new DiarioFalso();
+    private final List<List<SensorDTO>> pelaReserva = Collections.synchronizedList(new ArrayList<>());
+    private StreamUplinkSession sessao;
+    private SensorStreamChannel canal;
+
+    private final SensorStreamChannel.Agendador agendador = new SensorStreamChannel.Agendador() {
+        @Override
+        public void agendar(Runnable tarefa, long atrasoMs) {
+            try {
+                executor.schedule(tarefa, atrasoMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Canal já encerrado
+            }
+        }
+
+        @Override
+        public void encerrar() {
+            executor.shutdownNow();
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        servidor.start();
+        sessao = new StreamUplinkSession(20, 60_000L, diario, (lote, ativo) -> pelaReserva.add(lote));
+        canal = new SensorStreamChannel(new OkHttpClient(), servidor.url("/"), sessao, agendador);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        canal.encerrar();
+        servidor.shutdown();
+    }
+
+    private static List<SensorDTO> lote(long timestamp) {
+        return Arrays.asList(
+                new SensorDTO(0.1, 0.2, 9.8, 0.01, 0.02, 0.03, -16.68, -49.25, timestamp),
+                new SensorDTO(0.1, 0.3, 9.7, 0.01, 0.02, 0.03, -16.68, -49.25, timestamp + 1000L));
+    }
+
+    private static void esperar(String oQue, BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(ESPERA_S);
+        while (!condicao.getAsBoolean()) {
+            assertTrue("tempo esgotado esperando " + oQue, System.nanoTime() < limite);
+            Thread.sleep(10);
+        }
+    }
+
+    /** u8 versão, i64 seq, u8 ativo, corpo do codec. */
+    private static long seqDoQuadro(ByteString quadro) {
+        return ByteBuffer.wrap(quadro.toByteArray()).order(ByteOrder.LITTLE_ENDIAN).getLong(1);
+    }
+
+    private ServidorFalso aceitarConexao() {
+        ServidorFalso lado = new ServidorFalso();
+        servidor.enqueue(new MockResponse().withWebSocketUpgrade(lado));
+        return lado;
+    }
+
+    @Test
+    public void olaRetomarQuadroEAck() throws Exception {
+        NetworkTelemetry telemetria = NetworkTelemetry.get();
+        String rede = "TESTE_CANAL";
+        telemetria.setRedeAtual(rede);
+        ServidorFalso lado = aceitarConexao();
+        canal.iniciar();
+
+        JsonObject ola = lado.proximoTexto();
+        assertEquals("ola", ola.get("tipo").getAsString());
+        assertFalse(ola.get("sessao").getAsString().isEmpty());
+        assertEquals("/monitor/stream", servidor.takeRequest().getPath());
+
+        lado.enviar("retomar", 0);
+        esperar("retomar", () -> !sessao.isUsandoReserva());
+
+        sessao.enviarLote(lote(1_000L), true);
+        ByteString quadro = lado.proximoQuadro();
+        byte[] bytes = quadro.toByteArray();
+        ByteBuffer cabecalho = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(1, cabecalho.get());
+        assertEquals(1L, cabecalho.getLong());
+        assertEquals(1, cabecalho.get());
+        List<SensorDTO> recebidas = SensorBinaryCodec.decode(Arrays.copyOfRange(bytes, 10, bytes.length));
+        assertEquals(2, recebidas.size());
+        assertEquals(2_000L, recebidas.get(1).getTimestamp());
+        assertEquals(1, diario.quadros.size());
+        // Quadros não passam pelo interceptor: contados à parte, na rede atual
+        esperar("telemetria do quadro", () -> telemetria.getBytesEnviados(rede) >= bytes.length);
+        assertTrue(telemetria.getMetricas(SensorStreamChannel.ENDPOINT).bytesEnviados.get() >= bytes.length);
+
+        lado.enviar("ack", 1);
+        esperar("ack", () -> sessao.getPendentes() == 0);
+        assertTrue(diario.quadros.isEmpty());
+        assertTrue(pelaReserva.isEmpty());
+    }
+
+    @Test
+    public void reconexaoReenviaOQueOServidorNaoRecebeu() throws Exception {
+        ServidorFalso primeiro = aceitarConexao();
+        ServidorFalso segundo = aceitarConexao();
+        canal.iniciar();
+
+        String sessaoId = primeiro.proximoTexto().get("sessao").getAsString();
+        primeiro.enviar("retomar", 0);
+        esperar("retomar", () -> !sessao.isUsandoReserva());
+        sessao.enviarLote(lote(1_000L), false);
+        sessao.enviarLote(lote(3_000L), false);
+        assertEquals(1L, seqDoQuadro(primeiro.proximoQuadro()));
+        assertEquals(2L, seqDoQuadro(primeiro.proximoQuadro()));
+
+        // Servidor cai sem ack; na volta diz que guardou só o primeiro
+        primeiro.socket.close(1001, "reiniciando");
+        JsonObject ola = segundo.proximoTexto();
+        assertEquals(sessaoId, ola.get("sessao").getAsString());
+        segundo.enviar("retomar", 1);
+
+        assertEquals(2L, seqDoQuadro(segundo.proximoQuadro()));
+        esperar("pendentes confirmados pelo retomar", () -> sessao.getPendentes() == 1);
+        assertEquals(1, diario.quadros.size());
+        assertTrue(pelaReserva.isEmpty());
+    }
+}
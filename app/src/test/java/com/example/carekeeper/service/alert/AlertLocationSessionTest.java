@@ -0,0 +1,126 @@
+package com.example.carekeeper.service.alert;
+
+import com.example.carekeeper.dto.AlertLocationUpdate;
+import com.example.carekeeper.dto.PanicAlertRequest;
+import com.example.carekeeper.service.location.LocationFix;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Provedor falso com posição em cache de 40 s atrás e fix de alta precisão que leva 1,8 s:
+ * o alerta sai na hora com o cache e a posição melhor vai como atualização.
+ */
+public class AlertLocationSessionTest {
+
+    private static final long LATENCIA_FIX_ATUAL_MS = 1_800L;
+
+    private long agora = 100_000L;
+
+    private class ProvedorFalso implements AlertLocationSession.ProvedorLocalizacao {
+        LocationFix cache = new LocationFix(-16.680, -49.250, 25f, agora - 40_000L, LocationFix.VELOCIDADE_DESCONHECIDA, "cache");
+        AlertLocationSession.Ouvinte ouvinte;
+        boolean parado = false;
+
+        @Override public LocationFix melhorEmCache() { return cache; }
+        @Override public void iniciarAtualizacoes(AlertLocationSession.Ouvinte o) { ouvinte = o; }
+        @Override public void pararAtualizacoes() { parado = true; }
+
+        void entregar(double lat, float precisao) {
+            ouvinte.onLocalizacao(new LocationFix(lat, -49.250, precisao, agora, LocationFix.VELOCIDADE_DESCONHECIDA, "fused"));
+        }
+    }
+
+    private class CanalFalso implements AlertLocationSession.Canal {
+        long alertaEnviadoEm = -1;
+        PanicAlertRequest alerta;
+        Runnable confirmar;
+        final List<AlertLocationUpdate> atualizacoes = new ArrayList<>();
+        final List<Long> atualizacoesEm = new ArrayList<>();
+
+        @Override
+        public void enviarAlerta(PanicAlertRequest a, Runnable aoConfirmar) {
+            alertaEnviadoEm = agora;
+            alerta = a;
+            confirmar = aoConfirmar;
+        }
+
+        @Override
+        public void enviarLocalizacao(String alertaId, AlertLocationUpdate atualizacao) {
+            assertEquals("a-1", alertaId);
+            atualizacoes.add(atualizacao);
+            atualizacoesEm.add(agora);
+        }
+    }
+
+    private static PanicAlertRequest alerta() {
+        PanicAlertRequest a = new PanicAlertRequest();
+        a.setAlertaId("a-1");
+        a.setLeitura("teste");
+        return a;
+    }
+
+    @Test
+    public void alertaSaiNaHoraComCacheEAtualizacaoChegaDepois() {
+        ProvedorFalso provedor = new ProvedorFalso();
+        CanalFalso canal = new CanalFalso();
+        AlertLocationSession sessao = new AlertLocationSession(provedor, canal, () -> agora);
+
+        long disparo = agora;
+        sessao.iniciar(alerta());
+        canal.confirmar.run(); // backend aceitou
+
+        agora += LATENCIA_FIX_ATUAL_MS;
+        provedor.entregar(-16.681, 5f);
+
+        assertEquals(disparo, canal.alertaEnviadoEm);
+        assertEquals(-16.680, canal.alerta.getLatitude(), 0.0);
+        assertEquals(25f, canal.alerta.getPrecisaoM(), 0f);
+        assertEquals(Long.valueOf(40_000L), canal.alerta.getIdadeLocalizacaoMs());
+
+        assertEquals(1, canal.atualizacoes.size());
+        assertEquals(-16.681, canal.atualizacoes.get(0).getLatitude(), 0.0);
+        assertEquals(Long.valueOf(disparo + LATENCIA_FIX_ATUAL_MS), canal.atualizacoesEm.get(0));
+    }
+
+    @Test
+    public void atualizacaoAntesDaConfirmacaoEsperaSoAMelhor() {
+        ProvedorFalso provedor = new ProvedorFalso();
+        CanalFalso canal = new CanalFalso();
+        AlertLocationSession sessao = new AlertLocationSession(provedor, canal, () -> agora);
+        sessao.iniciar(alerta());
+
+        agora += 500;
+        provedor.entregar(-16.681, 30f);
+        agora += 500;
+        provedor.entregar(-16.682, 8f);
+        assertTrue(canal.atualizacoes.isEmpty());
+
+        canal.confirmar.run();
+        assertEquals(1, canal.atualizacoes.size());
+        assertEquals(-16.682, canal.atualizacoes.get(0).getLatitude(), 0.0);
+    }
+
+    @Test
+    public void semCacheAlertaSaiSemPosicaoEEncerrarParaOProvedor() {
+        ProvedorFalso provedor = new ProvedorFalso();
+        provedor.cache = null;
+        CanalFalso canal = new CanalFalso();
+        AlertLocationSession sessao = new AlertLocationSession(provedor, canal, () -> agora);
+
+        sessao.iniciar(alerta());
+        assertNull(canal.alerta.getLatitude());
+        assertNull(canal.alerta.getLongitude());
+        assertNull(canal.alerta.getPrecisaoM());
+
+        sessao.encerrar();
+        assertTrue(provedor.parado);
+        canal.confirmar.run();
+        provedor.entregar(-16.681, 5f);
+        assertTrue(canal.atualizacoes.isEmpty());
+    }
+}
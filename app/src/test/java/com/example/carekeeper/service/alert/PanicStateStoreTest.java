@@ -0,0 +1,63 @@
+package com.example.carekeeper.service.alert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PanicStateStoreTest {
+
+    @Test
+    public void rajadaDeMudancasViraUmaEntrega() {
+        PanicStateStore store = new PanicStateStore();
+        List<Runnable> fila = new ArrayList<>();
+        List<PanicStateStore.Snapshot[]> entregas = new ArrayList<>();
+        store.inscrever((anterior, atual) -> entregas.add(new PanicStateStore.Snapshot[]{anterior, atual}), fila::add);
+
+        for (int i = 1; i <= 60; i++) {
+            float p = i / 60f;
+            store.atualizar(s -> s.comProgresso(p));
+        }
+        store.atualizar(s -> s.comDisparado(true).comAlertaAtivo(true));
+
+        assertEquals(1, fila.size());
+        fila.remove(0).run();
+
+        assertEquals(1, entregas.size());
+        assertFalse(entregas.get(0)[0].alertaAtivo);
+        assertTrue(entregas.get(0)[1].alertaAtivo);
+        assertEquals(61, entregas.get(0)[1].versao);
+    }
+
+    @Test
+    public void alteracaoSemEfeitoNaoGeraVersao() {
+        PanicStateStore store = new PanicStateStore();
+        List<Runnable> fila = new ArrayList<>();
+        store.inscrever((anterior, atual) -> fail(), fila::add);
+
+        store.atualizar(s -> s.comAlertaAtivo(false));
+
+        assertEquals(0, store.getAtual().versao);
+        assertTrue(fila.isEmpty());
+    }
+
+    @Test
+    public void escritasConcorrentesNaoSePerdem() throws InterruptedException {
+        PanicStateStore store = new PanicStateStore();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    store.atualizar(s -> s.comLocalizacao(s.latitude + 1, s.longitude));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(40_000.0, store.getAtual().latitude, 0.0);
+        assertEquals(40_000, store.getAtual().versao);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.carekeeper.service.auth;
+
+import com.example.carekeeper.network.ApiService;
+import com.example.carekeeper.network.AuthInterceptor;
+import com.example.carekeeper.network.TokenAuthenticator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Renovação em voo único ({@link TokenRenewer}) e repetição depois dela
+ * ({@link TokenAuthenticator}) contra um servidor HTTP de verdade (MockWebServer):
+ * várias chamadas recebem 401 ao mesmo tempo e só uma vai a {@code auth/refresh}.
+ */
+public class TokenRenewerTest {
+
+    private static final String TOKEN_ANTIGO = "antigo";
+    private static final String TOKEN_NOVO = "novo";
+    private static final int CHAMADAS = 5;
+    private static final long ESPERA_S = 5L;
+
+    /** Token em memória no lugar do SharedPreferencesService. */
+    private static class TokensEmMemoria implements TokenRenewer.Armazenamento {
+        volatile String token = TOKEN_ANTIGO;
+
+        @Override
+        public String getJwtToken() {
+            return token;
+        }
+
+        @Override
+        public void saveJwtToken(String token) {
+            this.token = token;
+        }
+    }
+
+    /**
+     * Recusa o token antigo e aceita o novo. A renovação só responde depois que todas as
+     * chamadas receberam 401, para que todas disputem a mesma renovação.
+     */
+    private static class ServidorFalso extends Dispatcher {
+        final CountDownLatch recusadas = new CountDownLatch(CHAMADAS);
+        final AtomicInteger renovacoes = new AtomicInteger();
+        final AtomicInteger repeticoesComTokenNovo = new AtomicInteger();
+        volatile boolean renovacaoFalha = false;
+        volatile boolean aceitaTokenNovo = true;
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            String autorizacao = request.getHeader("Authorization");
+            if ("/auth/refresh".equals(request.getPath())) {
+                renovacoes.incrementAndGet();
+                recusadas.await(ESPERA_S, TimeUnit.SECONDS);
+                if (renovacaoFalha || !("Bearer " + TOKEN_ANTIGO).equals(autorizacao)) {
+                    return new MockResponse().setResponseCode(500);
+                }
+                return new MockResponse().setBody("{\"token\":\"" + TOKEN_NOVO + "\"}");
+            }
+            if (aceitaTokenNovo && ("Bearer " + TOKEN_NOVO).equals(autorizacao)) {
+                repeticoesComTokenNovo.incrementAndGet();
+                return new MockResponse().setBody("ok");
+            }
+            recusadas.countDown();
+            return new MockResponse().setResponseCode(401);
+        }
+    }
+
+    private MockWebServer servidor;
+    private ServidorFalso falso;
+    private TokensEmMemoria tokens;
+    private OkHttpClient cliente;
+    private ExecutorService threads;
+
+    @Before
+    public void setUp() throws Exception {
+        falso = new ServidorFalso();
+        servidor = new MockWebServer();
+        servidor.setDispatcher(falso);
+        servidor.start();
+
+        // A renovação sai por um cliente sem autenticação, como no app
+        ApiService api = new Retrofit.Builder()
+                .baseUrl(servidor.url("/"))
+                .addConverterFactory(GsonConverterFactory.create())
+                .build()
+                .create(ApiService.class);
+        tokens = new TokensEmMemoria();
+        TokenRenewer renewer = new TokenRenewer(tokens, api);
+        cliente = new OkHttpClient.Builder()
+                .addInterceptor(new AuthInterceptor(tokens))
+                .authenticator(new TokenAuthenticator(renewer))
+                .build();
+        threads = Executors.newFixedThreadPool(CHAMADAS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        threads.shutdownNow();
+        servidor.shutdown();
+    }
+
+    @Test
+    public void chamadasSimultaneasFazemUmaSoRenovacaoERepetemComTokenNovo() throws Exception {
+        for (int codigo : chamarEmParalelo()) {
+            assertEquals(200, codigo);
+        }
+
+        assertEquals(1, falso.renovacoes.get());
+        assertEquals(CHAMADAS, falso.repeticoesComTokenNovo.get());
+        assertEquals(TOKEN_NOVO, tokens.getJwtToken());
+        // Cada chamada: o 401 e a repetição; mais a renovação
+        assertEquals(2 * CHAMADAS + 1, servidor.getRequestCount());
+    }
+
+    @Test
+    public void falhaNaRenovacaoEntregaO401SemLaco() throws Exception {
+        falso.renovacaoFalha = true;
+
+        for (int codigo : chamarEmParalelo()) {
+            assertEquals(401, codigo);
+        }
+
+        // As que esperavam no lock veem a falha recente e não chamam o backend de novo
+        assertEquals(1, falso.renovacoes.get());
+        assertEquals(TOKEN_ANTIGO, tokens.getJwtToken());
+        assertEquals(CHAMADAS + 1, servidor.getRequestCount());
+    }
+
+    @Test
+    public void tokenNovoTambemRecusadoNaoRenovaDeNovo() throws Exception {
+        falso.aceitaTokenNovo = false;
+        for (int i = 1; i < CHAMADAS; i++) falso.recusadas.countDown(); // só uma chamada
+
+        assertEquals(401, chamar());
+
+        // O 401, a renovação e uma única repetição com o token novo
+        assertEquals(1, falso.renovacoes.get());
+        assertEquals(3, servidor.getRequestCount());
+    }
+
+    private List<Integer> chamarEmParalelo() throws Exception {
+        List<Future<Integer>> chamadas = new ArrayList<>();
+        for (int i = 0; i < CHAMADAS; i++) {
+            chamadas.add(threads.submit((Callable<Integer>) this::chamar));
+        }
+        List<Integer> codigos = new ArrayList<>();
+        for (Future<Integer> chamada : chamadas) {
+            codigos.add(chamada.get(ESPERA_S * 2, TimeUnit.SECONDS));
+        }
+        return codigos;
+    }
+
+    private int chamar() throws Exception {
+        Request request = new Request.Builder().url(servidor.url("/api/protegido")).build();
+        try (Response response = cliente.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+}
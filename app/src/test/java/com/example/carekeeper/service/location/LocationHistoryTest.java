@@ -0,0 +1,62 @@
+package com.example.carekeeper.service.location;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LocationHistoryTest {
+
+    private static final long AGORA = 1_000_000L;
+
+    private static class PersistenciaFalsa implements LocationHistory.Persistencia {
+        LocationFix salva;
+        final List<LocationFix> gravadas = new ArrayList<>();
+
+        @Override public LocationFix carregar() { return salva; }
+        @Override public void salvar(LocationFix fix) { gravadas.add(fix); salva = fix; }
+    }
+
+    private static LocationFix fix(double lat, float precisao, long idadeMs) {
+        return new LocationFix(lat, -49.25, precisao, AGORA - idadeMs, LocationFix.VELOCIDADE_DESCONHECIDA, "teste");
+    }
+
+    @Test
+    public void escolhePorIdadeEPrecisao() {
+        LocationHistory historico = new LocationHistory(20, new PersistenciaFalsa());
+        historico.registrar(fix(1, 8f, 120_000));   // precisa, mas de 2 min atrás
+        historico.registrar(fix(2, 40f, 5_000));    // recente, menos precisa
+        historico.registrar(fix(3, 500f, 1_000));   // rede de celular
+
+        assertEquals(2, historico.melhorAgora(AGORA).latitude, 0.0);
+        assertEquals(1, historico.melhor(Long.MAX_VALUE, 10f, AGORA).latitude, 0.0);
+        assertEquals(3, historico.melhor(2_000, Float.MAX_VALUE, AGORA).latitude, 0.0);
+        assertNull(historico.melhor(2_000, 100f, AGORA));
+        assertEquals(3, historico.ultima().latitude, 0.0);
+    }
+
+    @Test
+    public void persisteSoAUltimaPosicaoBoaEARecuperaNoColdStart() {
+        PersistenciaFalsa persistencia = new PersistenciaFalsa();
+        LocationHistory historico = new LocationHistory(20, persistencia);
+        historico.registrar(fix(1, 15f, 10_000));
+        historico.registrar(fix(2, 800f, 5_000));   // ruim: não vai para o disco
+        historico.registrar(fix(3, 20f, 20_000));   // boa, mas mais velha que a salva
+
+        assertEquals(1, persistencia.gravadas.size());
+
+        LocationHistory depoisDoReinicio = new LocationHistory(20, persistencia);
+        assertEquals(1, depoisDoReinicio.melhorAgora(AGORA).latitude, 0.0);
+    }
+
+    @Test
+    public void historicoDescartaAsMaisAntigas() {
+        LocationHistory historico = new LocationHistory(3, new PersistenciaFalsa());
+        for (int i = 0; i < 5; i++) historico.registrar(fix(i, 10f, 10_000 - i));
+
+        assertEquals(3, historico.historico().size());
+        assertEquals(2, historico.historico().get(0).latitude, 0.0);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.carekeeper.service.location;
+
+import com.example.carekeeper.service.monitor.ModoAmostragem;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Roteiro de um dia curto com provedor falso: sai de casa andando, fica parada num lugar,
+ * volta a andar e dispara um alerta. A bateria falsa gasta por modo de localização
+ * (GPS caro, cerca/passivo baratos), e o consumo é comparado com o GPS sempre ligado.
+ */
+public class LocationStrategyTest {
+
+    private static final double LAT = -16.680, LON = -49.250;
+    private static final double GRAU_POR_METRO = 1.0 / 111_195.0;
+
+    // µAh por segundo em cada modo, imitando a diferença de custo
+    private static long custo(ModoLocalizacao modo) {
+        return modo.usaGps() ? 30 : 1;
+    }
+
+    private long agora = 1_000_000L;
+    private long carga = 10_000_000;
+
+    private LocationStrategy estrategia;
+
+    private void avancar(long ms) {
+        // A bateria gasta conforme o modo em vigor
+        long passo = 1000;
+        for (long t = 0; t < ms; t += passo) {
+            agora += passo;
+            carga -= custo(estrategia.getModoAtual());
+        }
+        estrategia.verificar(agora);
+    }
+
+    private void fix(double metrosAoNorte, float precisao) {
+        estrategia.onFix(new LocationFix(LAT + metrosAoNorte * GRAU_POR_METRO, LON, precisao, agora,
+                LocationFix.VELOCIDADE_DESCONHECIDA, "falso"), agora);
+    }
+
+    private LocationStrategy nova() {
+        return new LocationStrategy(agora, Collections.emptyList(), () -> carga,
+                (modo, cerca) -> {});
+    }
+
+    @Test
+    public void paradoComPosicaoBoaUsaCercaEVoltaAoGpsAoSair() {
+        estrategia = nova();
+        fix(0, 8f);
+
+        estrategia.onModoAmostragem(ModoAmostragem.REPOUSO, agora);
+        assertEquals(ModoLocalizacao.CERCA, estrategia.getModoAtual());
+        assertNotNull(estrategia.getCercaAtual());
+
+        avancar(10 * 60_000L);
+        assertEquals(ModoLocalizacao.CERCA, estrategia.getModoAtual()); // fix velho, mas a cerca vale
+
+        estrategia.onSaidaCerca(agora);
+        assertEquals(ModoLocalizacao.GPS, estrategia.getModoAtual());
+
+        // Em trânsito sem acelerômetro acusar movimento: não fica alternando com a cerca
+        for (int i = 1; i <= 5; i++) {
+            avancar(5_000);
+            fix(300 + i * 100, 8f);
+            assertEquals(ModoLocalizacao.GPS, estrategia.getModoAtual());
+        }
+        // Parou: duas posições próximas com 30 s entre elas
+        avancar(30_000);
+        fix(805, 8f);
+        assertEquals(ModoLocalizacao.CERCA, estrategia.getModoAtual());
+    }
+
+    @Test
+    public void semPosicaoBoaFicaPassivoEAlertaSempreLigaGps() {
+        estrategia = nova();
+        fix(0, 400f);
+        estrategia.onModoAmostragem(ModoAmostragem.REPOUSO, agora);
+        assertEquals(ModoLocalizacao.PASSIVO, estrategia.getModoAtual());
+
+        estrategia.onModoAmostragem(ModoAmostragem.ALERTA, agora);
+        assertEquals(ModoLocalizacao.GPS_ALERTA, estrategia.getModoAtual());
+    }
+
+    @Test
+    public void permanenciaLongaViraLugarConhecido() {
+        estrategia = nova();
+        fix(0, 8f);
+        estrategia.onModoAmostragem(ModoAmostragem.REPOUSO, agora);
+        assertEquals(0, estrategia.getVersaoLugares());
+        avancar(LocationStrategy.PERMANENCIA_LUGAR_CONHECIDO_MS + 1000);
+
+        assertEquals(1, estrategia.getVersaoLugares());
+        assertEquals(1, estrategia.getLugaresConhecidos().size());
+        assertEquals(LocationStrategy.RAIO_LUGAR_CONHECIDO_M, estrategia.getCercaAtual().raioM, 0f);
+    }
+
+    @Test
+    public void diaRoteirizadoGastaMenosQueGpsSempreLigado() {
+        estrategia = nova();
+        long inicio = agora, cargaInicial = carga;
+
+        // 20 min andando
+        estrategia.onModoAmostragem(ModoAmostragem.MOVIMENTO, agora);
+        for (int i = 0; i < 400; i++) { avancar(3_000); fix(i * 4, 6f); }
+        // 3 h parada no mesmo lugar
+        estrategia.onModoAmostragem(ModoAmostragem.REPOUSO, agora);
+        avancar(3 * 3_600_000L);
+        // 20 min andando de volta
+        estrategia.onModoAmostragem(ModoAmostragem.MOVIMENTO, agora);
+        for (int i = 0; i < 400; i++) { avancar(3_000); fix(1600 - i * 4, 6f); }
+        // 5 min de alerta
+        estrategia.onModoAmostragem(ModoAmostragem.ALERTA, agora);
+        avancar(5 * 60_000L);
+
+        long duracaoS = (agora - inicio) / 1000;
+        long consumoGpsSempre = duracaoS * custo(ModoLocalizacao.GPS);
+        long consumoDepois = cargaInicial - carga;
+        Map<ModoLocalizacao, LocationStrategy.Metricas> m = estrategia.getMetricas(agora);
+
+        assertTrue(consumoDepois * 3 < consumoGpsSempre);
+        assertEquals(consumoDepois, m.values().stream().mapToLong(x -> x.consumoMicroAh).sum());
+        assertEquals(agora - inicio, m.values().stream().mapToLong(x -> x.tempoMs).sum());
+        assertEquals(6.0, m.get(ModoLocalizacao.GPS).getPrecisaoMediaM(), 0.001);
+        assertTrue(m.get(ModoLocalizacao.CERCA).tempoMs >= 3 * 3_600_000L - 1000);
+    }
+}
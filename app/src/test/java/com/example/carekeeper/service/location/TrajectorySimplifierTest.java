@@ -0,0 +1,116 @@
+package com.example.carekeeper.service.location;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Trajetórias sintéticas a 1 Hz: parado com ruído de GPS, caminhada reta, curva em L e
+ * passeio aleatório. Mede quantas posições sobram e o erro da reconstrução por interpolação.
+ */
+public class TrajectorySimplifierTest {
+
+    private static final double LAT = -16.680, LON = -49.250;
+    private static final double GRAU_POR_METRO = 1.0 / 111_195.0;
+    private static final double TOLERANCIA_M = 5.0;
+    private static final long T0 = 1_760_000_000_000L;
+
+    /** Posições em metros (norte, leste) a partir da origem. */
+    private static double[][] paraGraus(double[][] metros) {
+        double cosLat = Math.cos(Math.toRadians(LAT));
+        double[][] graus = new double[metros.length][];
+        for (int i = 0; i < metros.length; i++) {
+            graus[i] = new double[]{LAT + metros[i][0] * GRAU_POR_METRO, LON + metros[i][1] * GRAU_POR_METRO / cosLat};
+        }
+        return graus;
+    }
+
+    private static List<Integer> simplificar(double[][] pontos) {
+        List<Integer> mantidas = new ArrayList<>();
+        TrajectorySimplifier s = new TrajectorySimplifier(TOLERANCIA_M, 64, mantidas::add);
+        for (int i = 0; i < pontos.length; i++) s.adicionar(pontos[i][0], pontos[i][1], T0 + i * 1000L);
+        s.fechar();
+        return mantidas;
+    }
+
+    private static double erroMaximoM(double[][] pontos, List<Integer> mantidas) {
+        double[] interpolada = new double[2];
+        double pior = 0;
+        for (int k = 0; k + 1 < mantidas.size(); k++) {
+            int a = mantidas.get(k), b = mantidas.get(k + 1);
+            for (int i = a; i <= b; i++) {
+                TrajectorySimplifier.interpolar(pontos[a][0], pontos[a][1], T0 + a * 1000L,
+                        pontos[b][0], pontos[b][1], T0 + b * 1000L, T0 + i * 1000L, interpolada);
+                pior = Math.max(pior, LocationFix.distanciaM(interpolada[0], interpolada[1], pontos[i][0], pontos[i][1]));
+            }
+        }
+        return pior;
+    }
+
+    private static void verificar(String nome, double[][] metros, int maximoMantidas) {
+        double[][] pontos = paraGraus(metros);
+        List<Integer> mantidas = simplificar(pontos);
+        double erro = erroMaximoM(pontos, mantidas);
+
+        assertEquals(Integer.valueOf(0), mantidas.get(0));
+        assertEquals(Integer.valueOf(pontos.length - 1), mantidas.get(mantidas.size() - 1));
+        assertTrue(nome + ": erro acima da tolerância", erro <= TOLERANCIA_M);
+        assertTrue(nome + ": " + mantidas.size() + " posições mantidas", mantidas.size() <= maximoMantidas);
+    }
+
+    @Test
+    public void paradoComRuidoMantemPoucasPosicoes() {
+        Random r = new Random(1);
+        double[][] metros = new double[600][];
+        for (int i = 0; i < metros.length; i++) metros[i] = new double[]{r.nextGaussian() * 0.8, r.nextGaussian() * 0.8};
+        // A janela limita o trecho: a cada 64 posições uma é mantida
+        verificar("parado", metros, 600 / 64 + 2);
+    }
+
+    @Test
+    public void caminhadaRetaECurvaEmL() {
+        double[][] reta = new double[300][];
+        for (int i = 0; i < reta.length; i++) reta[i] = new double[]{i * 1.4, i * 0.3};
+        verificar("reta", reta, 300 / 64 + 2);
+
+        double[][] curva = new double[300][];
+        for (int i = 0; i < curva.length; i++) curva[i] = i < 150 ? new double[]{i * 1.4, 0} : new double[]{150 * 1.4, (i - 150) * 1.4};
+        List<Integer> mantidas = simplificar(paraGraus(curva));
+        // A esquina (índice 150) fica representada por uma posição a menos de 5 m dela
+        assertTrue("a esquina deveria ser mantida", mantidas.stream().anyMatch(i -> Math.abs(i - 150) <= 3));
+        verificar("curva em L", curva, 300 / 64 + 4);
+    }
+
+    @Test
+    public void passeioAleatorioRespeitaTolerancia() {
+        Random r = new Random(7);
+        double[][] metros = new double[2_000][];
+        double norte = 0, leste = 0, rumo = 0;
+        for (int i = 0; i < metros.length; i++) {
+            rumo += r.nextGaussian() * 0.2;
+            double velocidade = i % 400 < 100 ? 0 : 1.4; // paradas de 100 s
+            norte += Math.cos(rumo) * velocidade + r.nextGaussian() * 0.5;
+            leste += Math.sin(rumo) * velocidade + r.nextGaussian() * 0.5;
+            metros[i] = new double[]{norte, leste};
+        }
+        verificar("passeio aleatório", metros, metros.length / 4);
+    }
+
+    @Test
+    public void fecharRecomecaTrecho() {
+        List<Integer> mantidas = new ArrayList<>();
+        TrajectorySimplifier s = new TrajectorySimplifier(TOLERANCIA_M, 64, mantidas::add);
+        s.adicionar(LAT, LON, T0);
+        s.adicionar(LAT, LON, T0 + 1000);
+        s.adicionar(LAT, LON, T0 + 2000);
+        s.fechar();
+        s.adicionar(LAT, LON, T0 + 3000);
+        s.fechar();
+
+        assertEquals(List.of(0, 2, 3), mantidas);
+    }
+}
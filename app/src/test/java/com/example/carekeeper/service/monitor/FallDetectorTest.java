@@ -0,0 +1,125 @@
+package com.example.carekeeper.service.monitor;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reproduz traços gravados do acelerômetro (src/test/resources/traces) no {@link FallDetector}.
+ * Formato do CSV: {@code t_ms,ax,ay,az} com amostras a 50 Hz.
+ */
+public class FallDetectorTest {
+
+    /** Reproduz um traço como gravado e devolve o instante (ms) de cada queda detectada. */
+    private static List<Long> reproduzir(String traco) throws IOException {
+        List<Long> quedas = new ArrayList<>();
+        FallDetector detector = new FallDetector((timestampMs, pico) -> quedas.add(timestampMs));
+        for (float[] a : ler(traco)) detector.onAmostra(a[1], a[2], a[3], (long) a[0]);
+        return quedas;
+    }
+
+    /** Linhas do traço como {t_ms, ax, ay, az}. */
+    private static List<float[]> ler(String traco) throws IOException {
+        List<float[]> amostras = new ArrayList<>();
+        try (InputStream in = FallDetectorTest.class.getClassLoader().getResourceAsStream("traces/" + traco)) {
+            assertNotNull("traço não encontrado: " + traco, in);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            reader.readLine(); // cabeçalho
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                String[] campos = linha.split(",");
+                amostras.add(new float[]{Long.parseLong(campos[0]), Float.parseFloat(campos[1]),
+                        Float.parseFloat(campos[2]), Float.parseFloat(campos[3])});
+            }
+        }
+        return amostras;
+    }
+
+    /**
+     * Reproduz o traço como o modo entregaria: reamostrado (interpolação linear) para o
+     * período do acelerômetro e, com latência máxima, em lotes que só chegam quando a
+     * amostra mais antiga do FIFO completa a latência.
+     *
+     * @return para cada queda, {instante da amostra que confirmou, instante em que o lote chegou}
+     */
+    private static List<long[]> reproduzir(String traco, ModoAmostragem modo) throws IOException {
+        List<float[]> originais = ler(traco);
+        long periodoMs = modo.periodoAcelerometroUs / 1_000;
+        long latenciaMs = modo.latenciaMaximaUs / 1_000;
+
+        List<float[]> amostras = new ArrayList<>();
+        long fim = (long) originais.get(originais.size() - 1)[0];
+        int j = 0;
+        for (long t = 0; t <= fim; t += periodoMs) {
+            while (j + 2 < originais.size() && originais.get(j + 1)[0] <= t) j++;
+            float[] a = originais.get(j), b = originais.get(j + 1);
+            float f = Math.min(1f, (t - a[0]) / (b[0] - a[0]));
+            amostras.add(new float[]{t, a[1] + f * (b[1] - a[1]), a[2] + f * (b[2] - a[2]), a[3] + f * (b[3] - a[3])});
+        }
+
+        List<long[]> quedas = new ArrayList<>();
+        long[] chegada = {0};
+        FallDetector detector = new FallDetector((timestampMs, pico) -> quedas.add(new long[]{timestampMs, chegada[0]}));
+        int i = 0;
+        while (i < amostras.size()) {
+            // Um lote: tudo que entrou no FIFO antes de a primeira amostra completar a latência
+            long inicioLote = (long) amostras.get(i)[0];
+            chegada[0] = inicioLote + latenciaMs;
+            do {
+                float[] a = amostras.get(i++);
+                detector.onAmostra(a[1], a[2], a[3], (long) a[0]);
+            } while (i < amostras.size() && (long) amostras.get(i)[0] < inicioLote + latenciaMs);
+        }
+        return quedas;
+    }
+
+    @Test
+    public void quedaComImobilidadeDisparaUmAlerta() throws IOException {
+        List<Long> quedas = reproduzir("queda.csv");
+        assertEquals(1, quedas.size());
+        // Impacto em ~3,4 s; confirmação ao fim da janela de imobilidade (0,5 s + 2 s)
+        long impactoMs = 3_360L;
+        assertTrue(quedas.get(0) >= impactoMs + 2_500L);
+        assertTrue(quedas.get(0) < impactoMs + 80L + 2_500L + 100L);
+    }
+
+    @Test
+    public void quedaVistaEmTodosOsModosDeAmostragem() throws IOException {
+        long impactoMs = 3_360L;
+        for (ModoAmostragem modo : ModoAmostragem.values()) {
+            List<long[]> quedas = reproduzir("queda.csv", modo);
+            assertEquals("modo " + modo, 1, quedas.size());
+            long confirmacao = quedas.get(0)[0], chegada = quedas.get(0)[1];
+            assertTrue("modo " + modo, confirmacao >= impactoMs + 2_500L && confirmacao < impactoMs + 2_700L);
+            // Em REPOUSO o alerta sai com o lote: no máximo a latência do FIFO depois
+            assertTrue("modo " + modo + ": chegou " + (chegada - confirmacao) + " ms depois",
+                    chegada - confirmacao <= modo.latenciaMaximaUs / 1_000);
+        }
+    }
+
+    @Test
+    public void movimentosComunsNaoDisparamEmNenhumModo() throws IOException {
+        for (ModoAmostragem modo : ModoAmostragem.values()) {
+            assertTrue("modo " + modo, reproduzir("sentar.csv", modo).isEmpty());
+            assertTrue("modo " + modo, reproduzir("celular_derrubado.csv", modo).isEmpty());
+        }
+    }
+
+    @Test
+    public void sentarNaoDisparaAlerta() throws IOException {
+        assertTrue(reproduzir("sentar.csv").isEmpty());
+    }
+
+    @Test
+    public void celularDerrubadoERecolhidoNaoDisparaAlerta() throws IOException {
+        assertTrue(reproduzir("celular_derrubado.csv").isEmpty());
+    }
+}
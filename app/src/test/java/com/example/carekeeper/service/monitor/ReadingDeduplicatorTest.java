@@ -0,0 +1,94 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.dto.SensorWindowDTO;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Dez minutos de leituras a 1 Hz com o celular parado na mesa (ruído abaixo do limiar),
+ * seguidos de um minuto andando.
+ */
+public class ReadingDeduplicatorTest {
+
+    private static final long HEARTBEAT_MS = 30_000L;
+
+    private final Random random = new Random(5);
+
+    private SensorDTO leitura(long ts, double ruido) {
+        return new SensorDTO(random.nextGaussian() * ruido, random.nextGaussian() * ruido, 9.8 + random.nextGaussian() * ruido,
+                0, 0, 0, -16.68, -49.25, ts);
+    }
+
+    @Test
+    public void paradoViraHeartbeatComContagem() {
+        ReadingDeduplicator dedup = new ReadingDeduplicator(0.05, 0.02, 5.0, 5.0, 2.0, HEARTBEAT_MS);
+        List<SensorDTO> enviadas = new ArrayList<>();
+        long ts = 0;
+        for (int i = 0; i < 600; i++, ts += 1000) {
+            SensorDTO l = leitura(ts, 0.005);
+            if (dedup.filtrar(l, false)) enviadas.add(l);
+        }
+        int paradoEnviadas = enviadas.size();
+        for (int i = 0; i < 60; i++, ts += 1000) {
+            SensorDTO l = leitura(ts, 1.0);
+            if (dedup.filtrar(l, false)) enviadas.add(l);
+        }
+
+        int representadas = 0;
+        long maiorIntervalo = 0;
+        for (int i = 0; i < enviadas.size(); i++) {
+            SensorDTO l = enviadas.get(i);
+            representadas += 1 + (l.getRepeticoes() != null ? l.getRepeticoes() : 0);
+            if (i > 0) maiorIntervalo = Math.max(maiorIntervalo, l.getTimestamp() - enviadas.get(i - 1).getTimestamp());
+        }
+        assertEquals(600 / 30, paradoEnviadas);
+        assertTrue(maiorIntervalo <= HEARTBEAT_MS);
+        // O servidor reconstrói a contagem (menos as suprimidas depois da última enviada)
+        assertTrue(representadas <= 660 && representadas >= 660 - 29);
+        assertTrue(enviadas.size() > 600 / 30 + 50); // em movimento quase todas saem
+    }
+
+    @Test
+    public void alertaNaoSuprime() {
+        ReadingDeduplicator dedup = new ReadingDeduplicator(0.05, 0.02, 5.0, 5.0, 2.0, HEARTBEAT_MS);
+        int enviadas = 0;
+        for (int i = 0; i < 20; i++) {
+            if (dedup.filtrar(leitura(i * 250L, 0), true)) enviadas++;
+        }
+        assertEquals(20, enviadas);
+    }
+
+    /** Janela de acelerômetro em repouso, com o eixo Z entre {@code minZ} e {@code maxZ}. */
+    private static SensorWindowDTO janela(double minZ, double maxZ, double desvioZ, double picoJerk) {
+        return new SensorWindowDTO(50, new double[]{-0.01, -0.01, minZ}, new double[]{0.01, 0.01, maxZ},
+                new double[]{0, 0, 9.8}, new double[]{1e-4, 1e-4, desvioZ * desvioZ}, 9.8, picoJerk);
+    }
+
+    private static SensorDTO comJanela(long ts, SensorWindowDTO janela) {
+        SensorDTO l = new SensorDTO(0, 0, 9.8, 0, 0, 0, -16.68, -49.25, ts);
+        l.setJanelaAcelerometro(janela);
+        return l;
+    }
+
+    @Test
+    public void picoOuTremorNaJanelaNaoSaoSuprimidos() {
+        ReadingDeduplicator dedup = new ReadingDeduplicator(0.05, 0.02, 5.0, 5.0, 2.0, HEARTBEAT_MS);
+        assertTrue(dedup.filtrar(comJanela(0, janela(9.78, 9.82, 0.01, 1.0)), false));
+        assertFalse(dedup.filtrar(comJanela(1000, janela(9.77, 9.82, 0.01, 1.5)), false));
+
+        // Mesma média: batida curta (máximo e jerk) e tremor (desvio)
+        assertTrue(dedup.filtrar(comJanela(2000, janela(9.78, 11.5, 0.01, 40.0)), false));
+        assertTrue(dedup.filtrar(comJanela(3000, janela(9.78, 9.82, 0.01, 1.0)), false));
+        assertTrue(dedup.filtrar(comJanela(4000, janela(9.6, 10.0, 0.2, 1.2)), false));
+
+        // Leitura sem janela depois de uma com janela também sai
+        assertTrue(dedup.filtrar(comJanela(5000, null), false));
+    }
+}
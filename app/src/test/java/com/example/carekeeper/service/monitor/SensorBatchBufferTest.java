@@ -0,0 +1,126 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.network.ApiService;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Um minuto de leituras (1 por segundo) enviado a um servidor local (MockWebServer):
+ * conta as requisições HTTP do envio individual e do envio em lotes.
+ */
+public class SensorBatchBufferTest {
+
+    private static final int LEITURAS_POR_MINUTO = 60;
+
+    private static SensorDTO leitura(long ts) {
+        return new SensorDTO(0, 0, 9.8, 0, 0, 0, -16.68, -49.25, ts);
+    }
+
+    @Test
+    public void loteReduzRequisicoesPorMinuto() throws Exception {
+        MockWebServer servidor = new MockWebServer();
+        servidor.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setResponseCode(204);
+            }
+        });
+        servidor.start();
+        try {
+            ApiService api = new Retrofit.Builder()
+                    .baseUrl(servidor.url("/api/"))
+                    .addConverterFactory(GsonConverterFactory.create())
+                    .build()
+                    .create(ApiService.class);
+
+            // Antes: uma POST por leitura
+            for (int i = 0; i < LEITURAS_POR_MINUTO; i++) {
+                api.sendReading(leitura(i * 1000L), false).execute();
+            }
+            int individuais = servidor.getRequestCount();
+            assertEquals(LEITURAS_POR_MINUTO, individuais);
+            for (int i = 0; i < individuais; i++) {
+                assertEquals("/api/monitor/leitura?ativo=false", servidor.takeRequest().getPath());
+            }
+
+            // Depois: o mesmo minuto passando pelo buffer
+            SensorBatchBuffer buffer = new SensorBatchBuffer(30, 30_000L, (lote, ativo) -> {
+                try {
+                    api.sendReadings(lote, ativo).execute();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            for (int i = 0; i < LEITURAS_POR_MINUTO; i++) {
+                long agora = i * 1000L;
+                buffer.adicionar(leitura(agora), false, agora);
+            }
+            buffer.descarregar();
+
+            int emLote = servidor.getRequestCount() - individuais;
+            assertEquals(2, emLote);
+            int leiturasRecebidas = 0;
+            for (int i = 0; i < emLote; i++) {
+                RecordedRequest recebida = servidor.takeRequest();
+                assertEquals("/api/monitor/leituras?ativo=false", recebida.getPath());
+                leiturasRecebidas += JsonParser.parseString(recebida.getBody().readUtf8()).getAsJsonArray().size();
+            }
+            assertEquals(LEITURAS_POR_MINUTO, leiturasRecebidas);
+        } finally {
+            servidor.shutdown();
+        }
+    }
+
+    @Test
+    public void prazoMaximoDescarregaLoteIncompleto() {
+        List<Integer> tamanhos = new ArrayList<>();
+        SensorBatchBuffer buffer = new SensorBatchBuffer(100, 5_000L,
+                (lote, ativo) -> tamanhos.add(lote.size()));
+
+        buffer.adicionar(leitura(0), false, 0);
+        buffer.adicionar(leitura(1000), false, 1000);
+        buffer.verificarPrazo(4_999L);
+        assertTrue(tamanhos.isEmpty());
+
+        buffer.verificarPrazo(5_000L);
+        assertEquals(1, tamanhos.size());
+        assertEquals(2, (int) tamanhos.get(0));
+    }
+
+    @Test
+    public void mudancaDoAlertaDescarregaNaHora() {
+        List<Boolean> flags = new ArrayList<>();
+        List<Integer> tamanhos = new ArrayList<>();
+        SensorBatchBuffer buffer = new SensorBatchBuffer(100, 60_000L, (lote, ativo) -> {
+            flags.add(ativo);
+            tamanhos.add(lote.size());
+        });
+
+        buffer.adicionar(leitura(0), false, 0);
+        buffer.adicionar(leitura(1000), false, 1000);
+        buffer.adicionar(leitura(2000), true, 2000);
+
+        assertEquals(2, flags.size());
+        assertFalse(flags.get(0));
+        assertEquals(2, (int) tamanhos.get(0));
+        assertTrue(flags.get(1));
+        assertEquals(1, (int) tamanhos.get(1));
+        assertEquals(0, buffer.getPendentes());
+    }
+}
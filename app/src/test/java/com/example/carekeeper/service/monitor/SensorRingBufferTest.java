@@ -0,0 +1,78 @@
+package com.example.carekeeper.service.monitor;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifica o conteúdo dos snapshots e que o caminho quente (escrita no ring buffer,
+ * detector de quedas e leitura do último valor) não aloca memória em regime.
+ */
+public class SensorRingBufferTest {
+
+    private static final int AMOSTRAS = 200_000;
+
+    @Test
+    public void ultimaRetornaAmostraMaisRecente() {
+        SensorRingBuffer ring = new SensorRingBuffer(8);
+        double[] destino = new double[3];
+        assertEquals(-1L, ring.ultima(destino));
+
+        for (int i = 0; i < 20; i++) ring.escrever(i, i, i + 1, i + 2);
+
+        assertEquals(19L, ring.ultima(destino));
+        assertEquals(19.0, destino[0], 0.0);
+        assertEquals(21.0, destino[2], 0.0);
+    }
+
+    @Test
+    public void copiarDesdeRespeitaJanelaECapacidade() {
+        SensorRingBuffer ring = new SensorRingBuffer(16);
+        for (int i = 0; i < 40; i++) ring.escrever(i * 10L, i, 0, 0);
+
+        long[] tempos = new long[32];
+        double[] valores = new double[32 * 3];
+
+        int n = ring.copiarDesde(350L, tempos, valores);
+        assertEquals(5, n);
+        assertEquals(350L, tempos[0]);
+        assertEquals(39.0, valores[(n - 1) * 3], 0.0);
+
+        // Janela maior que o buffer: só as amostras ainda não sobrescritas
+        n = ring.copiarDesde(0L, tempos, valores);
+        assertEquals(15, n);
+        assertEquals(250L, tempos[0]);
+    }
+
+    @Test
+    public void caminhoQuenteNaoAloca() {
+        com.sun.management.ThreadMXBean mx =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        SensorRingBuffer ring = new SensorRingBuffer(1024);
+        FallDetector detector = new FallDetector((ts, pico) -> {});
+        double[] ultima = new double[3];
+
+        // Aquecimento para o JIT
+        executar(ring, detector, ultima, AMOSTRAS);
+
+        long antes = mx.getThreadAllocatedBytes(thread);
+        executar(ring, detector, ultima, AMOSTRAS);
+        long alocados = mx.getThreadAllocatedBytes(thread) - antes;
+
+        // Margem pequena para a própria medição
+        assertTrue("caminho quente alocou " + alocados + " bytes", alocados < 1024);
+    }
+
+    private static void executar(SensorRingBuffer ring, FallDetector detector, double[] ultima, int amostras) {
+        for (int i = 0; i < amostras; i++) {
+            float z = 9.8f + (i % 7) * 0.01f;
+            ring.escrever(i * 10L, 0.1f, 0.2f, z);
+            detector.onAmostra(0.1f, 0.2f, z, i * 10L);
+            if (i % 100 == 0) ring.ultima(ultima);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorDTO;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Canal falso que registra as sequências enviadas; a reserva conta os lotes que foram pelo REST
+ * e o diário guarda em memória o que iria para o disco.
+ */
+public class StreamUplinkSessionTest {
+
+    private final List<Long> enviadas = new ArrayList<>();
+    private final List<List<SensorDTO>> pelaReserva = new ArrayList<>();
+    private final DiarioFalso diario = new DiarioFalso();
+
+    private final StreamUplinkSession.Conexao conexao = (seq, lote, ativo) -> {
+        // O quadro já está no disco quando chega ao socket
+        assertTrue(diario.contem(seq));
+        enviadas.add(seq);
+    };
+
+    /** Sobrevive à sessão, como o arquivo sobreviveria ao processo. */
+    private static class DiarioFalso implements StreamUplinkSession.Diario {
+        final List<StreamUplinkSession.Quadro> quadros = new ArrayList<>();
+
+        @Override
+        public void gravar(StreamUplinkSession.Quadro quadro) {
+            quadros.add(quadro);
+        }
+
+        @Override
+        public void confirmar(long seq) {
+            quadros.removeIf(q -> q.seq <= seq);
+        }
+
+        @Override
+        public List<StreamUplinkSession.Quadro> recuperar() {
+            return new ArrayList<>(quadros);
+        }
+
+        boolean contem(long seq) {
+            return quadros.stream().anyMatch(q -> q.seq == seq);
+        }
+    }
+
+    private StreamUplinkSession nova(int maxPendentes) {
+        return new StreamUplinkSession(maxPendentes, 15_000L, diario, (lote, ativo) -> pelaReserva.add(lote));
+    }
+
+    private static List<SensorDTO> lote() {
+        return Collections.singletonList(new SensorDTO(0, 0, 9.8, 0, 0, 0, -16.68, -49.25, 0));
+    }
+
+    @Test
+    public void semCanalUsaRest() {
+        StreamUplinkSession sessao = nova(20);
+        sessao.enviarLote(lote(), false);
+        assertEquals(1, pelaReserva.size());
+
+        // Conectado mas sem "retomar" ainda: continua no REST
+        sessao.onConectado(conexao);
+        sessao.enviarLote(lote(), false);
+        assertEquals(2, pelaReserva.size());
+        assertTrue(enviadas.isEmpty());
+    }
+
+    @Test
+    public void ackDescartaEReconexaoRetomaDaSequencia() {
+        StreamUplinkSession sessao = nova(20);
+        sessao.onConectado(conexao);
+        sessao.onRetomar(0);
+        for (int i = 0; i < 5; i++) sessao.enviarLote(lote(), false);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), enviadas);
+
+        sessao.onAck(3);
+        assertEquals(2, sessao.getPendentes());
+        assertEquals(2, diario.quadros.size());
+
+        // Cai a conexão: os próximos esperam, sem ir pelo REST
+        sessao.onDesconectado(conexao, 1_000L);
+        sessao.enviarLote(lote(), false);
+        sessao.enviarLote(lote(), false);
+        assertEquals(4, sessao.getPendentes());
+        assertTrue(pelaReserva.isEmpty());
+
+        // Servidor tinha recebido até 4 antes de cair
+        enviadas.clear();
+        StreamUplinkSession.Conexao nova = (seq, l, a) -> enviadas.add(seq);
+        sessao.onConectado(nova);
+        sessao.onRetomar(4);
+        assertEquals(List.of(5L, 6L, 7L), enviadas);
+        assertFalse(sessao.isUsandoReserva());
+
+        // Fechamento atrasado da conexão antiga não derruba a nova
+        sessao.onDesconectado(conexao, 2_000L);
+        sessao.enviarLote(lote(), false);
+        assertEquals(Long.valueOf(8L), enviadas.get(enviadas.size() - 1));
+    }
+
+    @Test
+    public void semReconexaoNoPrazoPendentesVaoPeloRest() {
+        StreamUplinkSession sessao = nova(20);
+        sessao.onConectado(conexao);
+        sessao.onRetomar(0);
+        sessao.enviarLote(lote(), false);
+        sessao.enviarLote(lote(), false);
+        sessao.onDesconectado(conexao, 1_000L);
+
+        sessao.verificar(10_000L);
+        assertTrue(pelaReserva.isEmpty());
+
+        sessao.verificar(16_000L);
+        assertEquals(2, pelaReserva.size());
+        assertTrue(sessao.isUsandoReserva());
+        sessao.enviarLote(lote(), false);
+        assertEquals(3, pelaReserva.size());
+    }
+
+    @Test
+    public void servidorSemAckLimitaPendentes() {
+        StreamUplinkSession sessao = nova(3);
+        sessao.onConectado(conexao);
+        sessao.onRetomar(0);
+        for (int i = 0; i < 5; i++) sessao.enviarLote(lote(), false);
+
+        assertEquals(3, sessao.getPendentes());
+        assertEquals(2, pelaReserva.size());
+
+        sessao.encerrar();
+        assertEquals(5, pelaReserva.size());
+        assertTrue(diario.quadros.isEmpty());
+    }
+
+    @Test
+    public void processoMortoSemAckReenviaPeloRest() {
+        StreamUplinkSession sessao = nova(20);
+        sessao.onConectado(conexao);
+        sessao.onRetomar(0);
+        for (int i = 0; i < 4; i++) sessao.enviarLote(lote(), i == 3);
+        sessao.onAck(1);
+        // Processo morto aqui: nada de encerrar(), só o diário sobrevive
+
+        nova(20);
+        assertEquals(3, pelaReserva.size());
+        assertTrue(diario.quadros.isEmpty());
+
+        // A sessão nova recomeça a numeração sem esbarrar nos quadros antigos
+        StreamUplinkSession seguinte = nova(20);
+        seguinte.onConectado(conexao);
+        seguinte.onRetomar(0);
+        seguinte.enviarLote(lote(), false);
+        assertEquals(Long.valueOf(1L), enviadas.get(enviadas.size() - 1));
+        assertEquals(3, pelaReserva.size());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.network.EstadoRede;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Uma hora de leituras (1 por segundo) passando pelo lote configurado pelo agendador:
+ * 20 min offline, 20 min em dados móveis e 20 min em Wi-Fi, com um alerta no Wi-Fi.
+ */
+public class UploadSchedulerTest {
+
+    private static final EstadoRede WIFI = new EstadoRede(EstadoRede.Tipo.WIFI, false, false);
+    private static final EstadoRede CELULAR = new EstadoRede(EstadoRede.Tipo.CELULAR, true, false);
+    private static final EstadoRede CELULAR_FRACO = new EstadoRede(EstadoRede.Tipo.CELULAR, true, true);
+
+    @Test
+    public void cadenciaSegueRedeEAlerta() {
+        UploadScheduler agendador = new UploadScheduler(WIFI, false);
+        assertSame(UploadScheduler.LIVRE, agendador.getCadencia());
+        assertSame(UploadScheduler.LIMITADA, agendador.setRede(CELULAR));
+        assertSame(UploadScheduler.FRACA, agendador.setRede(CELULAR_FRACO));
+
+        UploadScheduler.Cadencia offline = agendador.setRede(EstadoRede.OFFLINE);
+        assertFalse(offline.enviarPelaRede);
+
+        // Alerta sai na hora mesmo sem rede conhecida
+        UploadScheduler.Cadencia alerta = agendador.setAlertaAtivo(true);
+        assertTrue(alerta.enviarPelaRede);
+        assertEquals(1, alerta.tamanhoLote);
+        assertEquals(0L, alerta.latenciaMaximaMs);
+
+        assertSame(offline, agendador.setAlertaAtivo(false));
+    }
+
+    @Test
+    public void circuitoAbertoDesviaParaOutbox() {
+        UploadScheduler agendador = new UploadScheduler(WIFI, false);
+        assertFalse(agendador.setBackendDisponivel(false).enviarPelaRede);
+        assertTrue(agendador.setAlertaAtivo(true).enviarPelaRede);
+        agendador.setAlertaAtivo(false);
+        assertSame(UploadScheduler.LIVRE, agendador.setBackendDisponivel(true));
+    }
+
+    private int requisicoes;
+    private int paraOutbox;
+    private int requisicoesCelular;
+
+    @Test
+    public void horaComRedesVariadas() {
+        UploadScheduler agendador = new UploadScheduler(EstadoRede.OFFLINE, false);
+        SensorBatchBuffer lote = new SensorBatchBuffer(agendador.getCadencia().tamanhoLote,
+                agendador.getCadencia().latenciaMaximaMs, (leituras, ativo) -> {
+            if (!agendador.getCadencia().enviarPelaRede) paraOutbox += leituras.size();
+            else {
+                requisicoes++;
+                if (agendador.getRede() == CELULAR) requisicoesCelular++;
+            }
+        });
+
+        long agora = 0;
+        for (int minuto = 0; minuto < 60; minuto++) {
+            if (minuto == 20) {
+                aplicar(lote, agendador.setRede(CELULAR));
+                lote.descarregar(); // como o SensorService faz quando a rede volta
+            }
+            if (minuto == 40) aplicar(lote, agendador.setRede(WIFI));
+            if (minuto == 50) aplicar(lote, agendador.setAlertaAtivo(true));
+            if (minuto == 52) aplicar(lote, agendador.setAlertaAtivo(false));
+            boolean alerta = minuto >= 50 && minuto < 52;
+            for (int s = 0; s < 60; s++, agora += 1000) {
+                lote.adicionar(new SensorDTO(0, 0, 9.8, 0, 0, 0, -16.68, -49.25, agora), alerta, agora);
+            }
+        }
+
+        assertTrue(paraOutbox > 20 * 60 - 60 && paraOutbox <= 20 * 60);
+        // 20 min em dados móveis: no máximo um lote por minuto
+        assertTrue(requisicoesCelular <= 20);
+        assertTrue(requisicoes >= 2 * 60); // alerta: uma requisição por leitura
+    }
+
+    private static void aplicar(SensorBatchBuffer lote, UploadScheduler.Cadencia cadencia) {
+        lote.configurar(cadencia.tamanhoLote, cadencia.latenciaMaximaMs);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.carekeeper.service.monitor;
+
+import com.example.carekeeper.dto.SensorWindowDTO;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Estatísticas da janela conferidas contra valores calculados à mão.
+ */
+public class WindowAggregatorTest {
+
+    @Test
+    public void estatisticasPorEixo() {
+        WindowAggregator janela = new WindowAggregator();
+        // x: 1, 2, 3, 4   y: constante   z: -1, 1, -1, 1
+        janela.adicionar(0L, 1, 5, -1);
+        janela.adicionar(10L, 2, 5, 1);
+        janela.adicionar(20L, 3, 5, -1);
+        janela.adicionar(30L, 4, 5, 1);
+
+        SensorWindowDTO resumo = janela.fecharJanela();
+        assertEquals(4, resumo.getAmostras());
+        assertArrayEquals(new double[]{1, 5, -1}, resumo.getMinimo(), 1e-12);
+        assertArrayEquals(new double[]{4, 5, 1}, resumo.getMaximo(), 1e-12);
+        assertArrayEquals(new double[]{2.5, 5, 0}, resumo.getMedia(), 1e-12);
+        // Variância amostral (n - 1)
+        assertArrayEquals(new double[]{5.0 / 3, 0, 4.0 / 3}, resumo.getVariancia(), 1e-12);
+        // SMA: média de |x| + |y| + |z| = (7 + 8 + 9 + 10) / 4
+        assertEquals(8.5, resumo.getSma(), 1e-12);
+        // Maior salto: (1, 0, 2) em 10 ms
+        assertEquals(Math.sqrt(5) / 0.010, resumo.getPicoJerk(), 1e-9);
+    }
+
+    @Test
+    public void jerkAtravessaJanelasEJanelaVaziaEhNula() {
+        WindowAggregator janela = new WindowAggregator();
+        janela.adicionar(0L, 0, 0, 9.8);
+        SensorWindowDTO primeira = janela.fecharJanela();
+        assertEquals(0.0, primeira.getPicoJerk(), 0.0);
+        assertEquals(0.0, primeira.getVariancia()[2], 0.0);
+
+        assertNull(janela.fecharJanela());
+
+        // A primeira amostra da janela nova usa a última da anterior
+        janela.adicionar(20L, 0, 0, 19.8);
+        assertEquals(10.0 / 0.020, janela.fecharJanela().getPicoJerk(), 1e-9);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.carekeeper.service.outbox;
+
+import com.example.carekeeper.service.outbox.OutboxStore.Fila;
+import com.example.carekeeper.service.outbox.OutboxStore.Registro;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Escrita interrompida no meio de um registro, como depois de o processo morrer.
+ */
+public class OutboxStoreTest {
+
+    @Test
+    public void linhaIncompletaNaoContaminaProximoRegistro() throws Exception {
+        File dir = Files.createTempDirectory("outbox").toFile();
+        OutboxStore store = new OutboxStore(dir, 256 * 1024L);
+        store.anexar(Fila.LEITURA, "{\"a\":1}");
+
+        // Metade de um registro sem o '\n'
+        try (FileOutputStream out = new FileOutputStream(new File(dir, "leitura/00000001.seg"), true)) {
+            out.write("{\"a\":".getBytes(StandardCharsets.UTF_8));
+        }
+
+        store = new OutboxStore(dir, 256 * 1024L);
+        store.anexar(Fila.LEITURA, "{\"a\":2}");
+
+        List<Registro> registros = store.ler(Fila.LEITURA, 10);
+        assertEquals(2, registros.size());
+        assertEquals("{\"a\":1}", registros.get(0).payload);
+        assertEquals("{\"a\":2}", registros.get(1).payload);
+    }
+
+    @Test
+    public void confirmarAvancaAFila() throws Exception {
+        OutboxStore store = new OutboxStore(Files.createTempDirectory("outbox").toFile(), 256 * 1024L);
+        store.anexar(Fila.ALERTA, "1");
+        store.anexar(Fila.ALERTA, "2");
+
+        store.confirmar(store.ler(Fila.ALERTA, 1).get(0));
+        assertEquals("2", store.ler(Fila.ALERTA, 10).get(0).payload);
+        assertTrue(store.isVazia(Fila.LEITURA));
+    }
+}
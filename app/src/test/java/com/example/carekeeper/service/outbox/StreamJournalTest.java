@@ -0,0 +1,58 @@
+package com.example.carekeeper.service.outbox;
+
+import com.example.carekeeper.dto.SensorDTO;
+import com.example.carekeeper.service.monitor.StreamUplinkSession.Quadro;
+import com.example.carekeeper.service.outbox.OutboxStore.Fila;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Quadros do canal gravados, parte confirmada por ack e o resto lido de volta por um store
+ * novo, como depois de o processo morrer.
+ */
+public class StreamJournalTest {
+
+    private static Quadro quadro(long seq, boolean ativo) {
+        return new Quadro(seq, Collections.singletonList(
+                new SensorDTO(0, 0, 9.8, 0, 0, 0, -16.68, -49.25, seq * 1000L)), ativo);
+    }
+
+    @Test
+    public void recuperaSoOQueNaoTeveAck() throws Exception {
+        File dir = Files.createTempDirectory("outbox").toFile();
+        StreamJournal diario = new StreamJournal(new OutboxStore(dir, 256 * 1024L));
+        for (long seq = 1; seq <= 4; seq++) diario.gravar(quadro(seq, seq == 4));
+        diario.confirmar(2);
+
+        OutboxStore reaberto = new OutboxStore(dir, 256 * 1024L);
+        List<Quadro> recuperados = new StreamJournal(reaberto).recuperar();
+
+        assertEquals(2, recuperados.size());
+        assertEquals(3L, recuperados.get(0).seq);
+        assertFalse(recuperados.get(0).ativo);
+        assertEquals(4L, recuperados.get(1).seq);
+        assertTrue(recuperados.get(1).ativo);
+        assertEquals(4000L, recuperados.get(1).lote.get(0).getTimestamp());
+        assertTrue(reaberto.isVazia(Fila.LEITURA));
+    }
+
+    @Test
+    public void linhaIlegivelEhPuladaEConfirmadaComAsVizinhas() throws Exception {
+        OutboxStore store = new OutboxStore(Files.createTempDirectory("outbox").toFile(), 256 * 1024L);
+        StreamJournal diario = new StreamJournal(store);
+        diario.gravar(quadro(1, false));
+        store.anexar(Fila.STREAM, "{\"leituras\":");
+        diario.gravar(quadro(2, false));
+
+        assertEquals(2, diario.recuperar().size());
+        diario.confirmar(2);
+        assertTrue(store.isVazia(Fila.STREAM));
+    }
+}
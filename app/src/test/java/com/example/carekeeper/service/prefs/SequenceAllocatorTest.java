@@ -0,0 +1,152 @@
+package com.example.carekeeper.service.prefs;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Um dia de leituras (uma por segundo) com reinícios do processo no meio, contando as
+ * gravações do limite.
+ */
+public class SequenceAllocatorTest {
+
+    private static final int BLOCO = 1000;
+
+    /** Guarda o limite como o arquivo de preferências guardaria. */
+    private static class DiscoFalso implements SequenceAllocator.Persistencia {
+        long limite = 0;
+        int gravacoes = 0;
+        int acessosNaChamada = 0;
+        // Ligado enquanto o teste pede números, como a thread principal
+        boolean naChamada = false;
+
+        @Override
+        public long carregarLimite() {
+            if (naChamada) acessosNaChamada++;
+            return limite;
+        }
+
+        @Override
+        public void gravarLimite(long limite) {
+            if (naChamada) acessosNaChamada++;
+            gravacoes++;
+            this.limite = limite;
+        }
+    }
+
+    /** Executor de fundo que só roda quando o teste manda. */
+    private static class FundoManual implements Executor {
+        final Queue<Runnable> tarefas = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable tarefa) {
+            tarefas.add(tarefa);
+        }
+
+        void rodar() {
+            while (!tarefas.isEmpty()) tarefas.poll().run();
+        }
+    }
+
+    @Test
+    public void diaComReiniciosNuncaRepeteNemVolta() {
+        DiscoFalso disco = new DiscoFalso();
+        SequenceAllocator alocador = new SequenceAllocator(disco, BLOCO);
+        Set<Long> vistas = new HashSet<>();
+        long anterior = 0;
+
+        int leituras = 24 * 60 * 60;
+        for (int i = 0; i < leituras; i++) {
+            // Processo morto a cada ~3 h: o que ficou em memória se perde
+            if (i > 0 && i % 10_000 == 0) alocador = new SequenceAllocator(disco, BLOCO);
+            SequenceAllocator.Numero numero = alocador.proximoNumero();
+            assertTrue(numero.seq > anterior);
+            assertTrue(vistas.add(numero.seq));
+            // Só um início de bloco pode vir depois de números não usados
+            if (numero.seq != anterior + 1) assertTrue(numero.inicioBloco);
+            anterior = numero.seq;
+        }
+
+        // Um bloco a cada 1000 leituras, mais um por reinício
+        assertTrue(disco.gravacoes <= leituras / BLOCO + leituras / 10_000 + 1);
+    }
+
+    @Test
+    public void comFundoQuemPedeNaoTocaODisco() {
+        DiscoFalso disco = new DiscoFalso();
+        FundoManual fundo = new FundoManual();
+        SequenceAllocator alocador = new SequenceAllocator(disco, BLOCO, fundo);
+        assertEquals(0, disco.gravacoes);
+        fundo.rodar();
+        assertEquals(1, disco.gravacoes);
+
+        disco.naChamada = true;
+        long anterior = 0;
+        for (int i = 0; i < 10 * BLOCO; i++) {
+            SequenceAllocator.Numero numero = alocador.proximoNumero();
+            assertEquals(anterior + 1, numero.seq);
+            anterior = numero.seq;
+            // O fundo acompanha: roda entre um pedido e outro
+            disco.naChamada = false;
+            fundo.rodar();
+            disco.naChamada = true;
+        }
+        assertEquals(0, disco.acessosNaChamada);
+        assertEquals(11, disco.gravacoes);
+    }
+
+    @Test
+    public void fundoAtrasadoNaoTravaNemRepete() {
+        DiscoFalso disco = new DiscoFalso();
+        FundoManual fundo = new FundoManual();
+        SequenceAllocator alocador = new SequenceAllocator(disco, BLOCO, fundo);
+
+        // Pedido antes de o fundo rodar: reserva na chamada
+        SequenceAllocator.Numero primeiro = alocador.proximoNumero();
+        assertEquals(1L, primeiro.seq);
+        assertTrue(primeiro.inicioBloco);
+        fundo.rodar();
+        assertEquals(1, disco.gravacoes);
+        assertTrue(disco.limite > 1L);
+
+        // Processo morto com o bloco seguinte já reservado: recomeça depois dele
+        long ultimo = 0;
+        for (int i = 0; i < BLOCO - 1; i++) ultimo = alocador.proxima();
+        fundo.rodar();
+        SequenceAllocator.Numero depois = new SequenceAllocator(disco, BLOCO).proximoNumero();
+        assertTrue(depois.seq > ultimo);
+        assertTrue(depois.inicioBloco);
+    }
+
+    @Test
+    public void comecaEmUm() {
+        assertEquals(1L, new SequenceAllocator(new DiscoFalso(), BLOCO).proxima());
+    }
+
+    @Test
+    public void threadsConcorrentesRecebemNumerosDistintos() throws Exception {
+        SequenceAllocator alocador = new SequenceAllocator(new DiscoFalso(), 16);
+        List<Long> todas = Collections.synchronizedList(new ArrayList<>());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) todas.add(alocador.proxima());
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread t : threads) t.join();
+
+        assertEquals(20_000, new HashSet<>(todas).size());
+    }
+}
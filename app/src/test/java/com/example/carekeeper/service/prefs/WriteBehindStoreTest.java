@@ -0,0 +1,154 @@
+package com.example.carekeeper.service.prefs;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simula um gesto de hold de 3 s no botão de pânico (um setPanicProgress por quadro a 60 fps)
+ * e conta as gravações em disco com a janela de write-behind.
+ */
+public class WriteBehindStoreTest {
+
+    private static final long HOLD_MS = 3000L;
+    private static final long QUADRO_MS = 16L;
+    private static final long JANELA_MS = 500L;
+
+    /** Conta gravações e guarda o que chegaria ao XML. */
+    private static class DiscoFalso implements WriteBehindStore.Persistencia {
+        final Map<String, Object> disco = new HashMap<>();
+        int gravacoes = 0;
+
+        @Override
+        public Map<String, ?> carregar() {
+            return new HashMap<>(disco);
+        }
+
+        @Override
+        public void gravar(Map<String, Object> alterados, Set<String> removidos) {
+            gravacoes++;
+            for (String chave : removidos) disco.remove(chave);
+            disco.putAll(alterados);
+        }
+
+        @Override
+        public void limpar() {
+            gravacoes++;
+            disco.clear();
+        }
+    }
+
+    /** Relógio manual: as tarefas rodam quando o tempo simulado alcança o prazo. */
+    private static class AgendadorFalso implements WriteBehindStore.Agendador {
+        final List<long[]> prazos = new ArrayList<>();
+        final List<Runnable> tarefas = new ArrayList<>();
+        long agora = 0;
+
+        @Override
+        public void agendar(Runnable tarefa, long atrasoMs) {
+            prazos.add(new long[]{agora + atrasoMs});
+            tarefas.add(tarefa);
+        }
+
+        void avancarPara(long t) {
+            agora = t;
+            for (int i = 0; i < tarefas.size(); i++) {
+                if (prazos.get(i)[0] <= t) {
+                    Runnable r = tarefas.remove(i);
+                    prazos.remove(i);
+                    i--;
+                    r.run();
+                }
+            }
+        }
+    }
+
+    private static int simularHold(WriteBehindStore store, AgendadorFalso relogio) {
+        int quadros = 0;
+        for (long t = 0; t <= HOLD_MS; t += QUADRO_MS) {
+            relogio.avancarPara(t);
+            store.put("panicProgress", t / (float) HOLD_MS);
+            quadros++;
+        }
+        store.put("panicProgress", 0f); // cancelHold
+        relogio.avancarPara(HOLD_MS + JANELA_MS);
+        return quadros;
+    }
+
+    @Test
+    public void holdGravaUmaVezPorJanelaEmVezDeUmaPorQuadro() {
+        DiscoFalso disco = new DiscoFalso();
+        AgendadorFalso relogio = new AgendadorFalso();
+        WriteBehindStore store = new WriteBehindStore(disco, relogio, JANELA_MS);
+
+        int quadros = simularHold(store, relogio);
+
+        assertTrue(disco.gravacoes <= HOLD_MS / JANELA_MS + 2);
+        assertTrue(quadros > 20 * disco.gravacoes);
+        assertEquals(0f, (Float) disco.disco.get("panicProgress"), 0f);
+    }
+
+    @Test
+    public void escritaImediataLevaJuntoAsPendentes() {
+        DiscoFalso disco = new DiscoFalso();
+        AgendadorFalso relogio = new AgendadorFalso();
+        WriteBehindStore store = new WriteBehindStore(disco, relogio, JANELA_MS);
+
+        store.put("panicProgress", 0.5f);
+        store.put("jwt_token", "abc", true);
+
+        assertEquals(1, disco.gravacoes);
+        assertEquals("abc", disco.disco.get("jwt_token"));
+        assertEquals(0.5f, (Float) disco.disco.get("panicProgress"), 0f);
+
+        relogio.avancarPara(JANELA_MS);
+        assertEquals(1, disco.gravacoes); // nada mais pendente
+    }
+
+    @Test
+    public void valorRepetidoNaoGravaELeituraVemDaMemoria() {
+        DiscoFalso disco = new DiscoFalso();
+        disco.disco.put("isDarkTheme", true);
+        AgendadorFalso relogio = new AgendadorFalso();
+        WriteBehindStore store = new WriteBehindStore(disco, relogio, JANELA_MS);
+
+        assertTrue(store.getBoolean("isDarkTheme", false));
+        store.put("isDarkTheme", true);
+        relogio.avancarPara(JANELA_MS);
+        assertEquals(0, disco.gravacoes);
+
+        store.remover("isDarkTheme", false);
+        assertFalse(store.getBoolean("isDarkTheme", false));
+        relogio.avancarPara(2 * JANELA_MS);
+        assertEquals(1, disco.gravacoes);
+        assertFalse(disco.disco.containsKey("isDarkTheme"));
+    }
+
+    @Test
+    public void escritoresConcorrentesGravamOUltimoValor() throws Exception {
+        DiscoFalso disco = new DiscoFalso();
+        WriteBehindStore store = new WriteBehindStore(disco, (tarefa, atrasoMs) -> { }, JANELA_MS);
+
+        for (int rodada = 0; rodada < 200; rodada++) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int id = t;
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 50; i++) store.put("panicProgress", (float) (id * 100 + i));
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread t : threads) t.join();
+
+            store.persistirAgora();
+            assertEquals(store.getFloat("panicProgress", -1f), (Float) disco.disco.get("panicProgress"), 0f);
+        }
+    }
+}